@@ -3,9 +3,11 @@ package com.example.project;
 import org.mybatis.spring.annotation.MapperScan;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 //这是一个启动项
 @SpringBootApplication
 @MapperScan("com.example.project.mapper") // 扫描Mapper接口
+@EnableScheduling // 启用定时任务
 public class ProjectApplication {
     public static void main(String[] args) {
         SpringApplication.run(ProjectApplication.class, args);
@@ -50,6 +50,174 @@ public class DatabaseInitializer implements CommandLineRunner {
             System.err.println("Failed to create sensitive_word table: " + e.getMessage());
         }
 
+        try {
+            String createTableSql = "CREATE TABLE IF NOT EXISTS `exam_submission` (" +
+                    "`id` bigint(20) NOT NULL AUTO_INCREMENT COMMENT 'Primary Key'," +
+                    "`exam_id` bigint(20) NOT NULL COMMENT 'Exam ID'," +
+                    "`student_id` varchar(64) NOT NULL COMMENT 'Student ID'," +
+                    "`payload` longtext COMMENT 'Submitted answers (JSON)'," +
+                    "`status` varchar(20) NOT NULL DEFAULT 'PENDING' COMMENT 'Status: PENDING, PROCESSING, DONE, FAILED'," +
+                    "`attempts` int(11) NOT NULL DEFAULT '0' COMMENT 'Processing attempts'," +
+                    "`error_message` varchar(500) DEFAULT NULL COMMENT 'Last error'," +
+                    "`create_time` datetime DEFAULT NULL COMMENT 'Create Time'," +
+                    "`update_time` datetime DEFAULT NULL COMMENT 'Update Time'," +
+                    "PRIMARY KEY (`id`)," +
+                    "UNIQUE KEY `uk_exam_student` (`exam_id`, `student_id`)," +
+                    "KEY `idx_status_id` (`status`, `id`)" +
+                    ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='Exam Submission Intake'";
+            jdbcTemplate.execute(createTableSql);
+            System.out.println("Successfully check/create table: exam_submission");
+        } catch (Exception e) {
+            System.err.println("Failed to create exam_submission table: " + e.getMessage());
+        }
+
+        try {
+            String createTableSql = "CREATE TABLE IF NOT EXISTS `deletion_job` (" +
+                    "`id` bigint(20) NOT NULL AUTO_INCREMENT COMMENT 'Primary Key'," +
+                    "`target_type` varchar(20) NOT NULL COMMENT 'Target: EXAM, COURSE'," +
+                    "`target_id` varchar(64) NOT NULL COMMENT 'Target ID'," +
+                    "`status` varchar(20) NOT NULL DEFAULT 'PENDING' COMMENT 'Status: PENDING, RUNNING, DONE, FAILED'," +
+                    "`step` int(11) NOT NULL DEFAULT '0' COMMENT 'Current step index'," +
+                    "`step_name` varchar(64) DEFAULT NULL COMMENT 'Current step (child table)'," +
+                    "`deleted_rows` bigint(20) NOT NULL DEFAULT '0' COMMENT 'Deleted child rows'," +
+                    "`attempts` int(11) NOT NULL DEFAULT '0' COMMENT 'Run attempts'," +
+                    "`error_message` varchar(500) DEFAULT NULL COMMENT 'Last error'," +
+                    "`create_time` datetime DEFAULT NULL COMMENT 'Create Time'," +
+                    "`update_time` datetime DEFAULT NULL COMMENT 'Update Time (heartbeat)'," +
+                    "PRIMARY KEY (`id`)," +
+                    "KEY `idx_status` (`status`, `id`)," +
+                    "KEY `idx_target` (`target_type`, `target_id`)" +
+                    ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='Cascade Deletion Jobs'";
+            jdbcTemplate.execute(createTableSql);
+            System.out.println("Successfully check/create table: deletion_job");
+        } catch (Exception e) {
+            System.err.println("Failed to create deletion_job table: " + e.getMessage());
+        }
+
+        try {
+            jdbcTemplate.execute(
+                    "ALTER TABLE exam ADD COLUMN lifecycle_status VARCHAR(20) DEFAULT NULL COMMENT 'Lifecycle: PUBLISHED, ONGOING, ENDED'");
+            System.out.println("Successfully added column: exam.lifecycle_status");
+        } catch (Exception e) {
+            System.out.println("Skipped exam.lifecycle_status (info: " + e.getMessage() + ")");
+        }
+
+        try {
+            jdbcTemplate.execute(
+                    "ALTER TABLE chat_message ADD COLUMN conversation_key VARCHAR(200) DEFAULT NULL COMMENT 'Ordered participant pair'");
+            System.out.println("Successfully added column: chat_message.conversation_key");
+        } catch (Exception e) {
+            System.out.println("Skipped chat_message.conversation_key (info: " + e.getMessage() + ")");
+        }
+
+        try {
+            jdbcTemplate.execute(
+                    "ALTER TABLE chat_message ADD COLUMN need_review TINYINT(1) DEFAULT 0 COMMENT 'Flagged by a REVIEW sensitive word'");
+            System.out.println("Successfully added column: chat_message.need_review");
+        } catch (Exception e) {
+            System.out.println("Skipped chat_message.need_review (info: " + e.getMessage() + ")");
+        }
+
+        try {
+            jdbcTemplate.execute(
+                    "ALTER TABLE course_comment ADD COLUMN need_review TINYINT(1) DEFAULT 0 COMMENT 'Flagged by a REVIEW sensitive word'");
+            System.out.println("Successfully added column: course_comment.need_review");
+        } catch (Exception e) {
+            System.out.println("Skipped course_comment.need_review (info: " + e.getMessage() + ")");
+        }
+
+        try {
+            String createTableSql = "CREATE TABLE IF NOT EXISTS `chat_conversation` (" +
+                    "`id` bigint(20) NOT NULL AUTO_INCREMENT COMMENT 'Primary Key'," +
+                    "`owner_id` varchar(64) NOT NULL COMMENT 'List owner ID'," +
+                    "`owner_role` varchar(20) NOT NULL COMMENT 'List owner role'," +
+                    "`peer_id` varchar(64) NOT NULL COMMENT 'Counterparty ID'," +
+                    "`peer_role` varchar(20) NOT NULL COMMENT 'Counterparty role'," +
+                    "`conversation_key` varchar(200) NOT NULL COMMENT 'Ordered participant pair'," +
+                    "`last_message_id` bigint(20) NOT NULL DEFAULT '0' COMMENT 'Last chat_message ID'," +
+                    "`last_message` varchar(200) DEFAULT NULL COMMENT 'Last message snippet'," +
+                    "`last_time` datetime DEFAULT NULL COMMENT 'Last message time'," +
+                    "`unread_count` int(11) NOT NULL DEFAULT '0' COMMENT 'Unread messages for owner'," +
+                    "`update_time` datetime DEFAULT NULL COMMENT 'Update Time'," +
+                    "PRIMARY KEY (`id`)," +
+                    "UNIQUE KEY `uk_owner_peer` (`owner_role`, `owner_id`, `peer_role`, `peer_id`)," +
+                    "KEY `idx_owner_time` (`owner_role`, `owner_id`, `last_time`)," +
+                    "KEY `idx_conversation` (`conversation_key`)" +
+                    ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='Chat Conversations'";
+            jdbcTemplate.execute(createTableSql);
+            System.out.println("Successfully check/create table: chat_conversation");
+        } catch (Exception e) {
+            System.err.println("Failed to create chat_conversation table: " + e.getMessage());
+        }
+
+        try {
+            String createTableSql = "CREATE TABLE IF NOT EXISTS `data_backfill` (" +
+                    "`name` varchar(64) NOT NULL COMMENT 'Backfill name'," +
+                    "`status` varchar(20) NOT NULL DEFAULT 'RUNNING' COMMENT 'Status: RUNNING, DONE'," +
+                    "`last_key` varchar(200) DEFAULT NULL COMMENT 'Last completed batch key'," +
+                    "`update_time` datetime DEFAULT NULL COMMENT 'Update Time'," +
+                    "PRIMARY KEY (`name`)" +
+                    ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='Background Backfill Progress'";
+            jdbcTemplate.execute(createTableSql);
+            System.out.println("Successfully check/create table: data_backfill");
+        } catch (Exception e) {
+            System.err.println("Failed to create data_backfill table: " + e.getMessage());
+        }
+
+        try {
+            String createTableSql = "CREATE TABLE IF NOT EXISTS `notification_read_state` (" +
+                    "`id` bigint(20) NOT NULL AUTO_INCREMENT COMMENT 'Primary Key'," +
+                    "`user_id` varchar(64) NOT NULL COMMENT 'User ID'," +
+                    "`user_role` varchar(20) NOT NULL COMMENT 'User role: STUDENT, TEACHER'," +
+                    "`high_water` bigint(20) NOT NULL DEFAULT '0' COMMENT 'Notifications up to this ID are read'," +
+                    "`read_ids` varchar(2000) DEFAULT NULL COMMENT 'Read notification IDs above high_water'," +
+                    "`update_time` datetime DEFAULT NULL COMMENT 'Update Time'," +
+                    "PRIMARY KEY (`id`)," +
+                    "UNIQUE KEY `uk_user` (`user_role`, `user_id`)" +
+                    ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='System Notification Read State'";
+            jdbcTemplate.execute(createTableSql);
+            System.out.println("Successfully check/create table: notification_read_state");
+        } catch (Exception e) {
+            System.err.println("Failed to create notification_read_state table: " + e.getMessage());
+        }
+
+        // 为历史私信补齐会话标识，规则与 ChatServiceImpl.conversationKeyOf 一致
+        try {
+            int updated = jdbcTemplate.update("UPDATE chat_message SET conversation_key = CASE " +
+                    "WHEN BINARY CONCAT(UPPER(sender_role), ':', sender_id) <= BINARY CONCAT(UPPER(receiver_role), ':', receiver_id) " +
+                    "THEN CONCAT(UPPER(sender_role), ':', sender_id, '|', UPPER(receiver_role), ':', receiver_id) " +
+                    "ELSE CONCAT(UPPER(receiver_role), ':', receiver_id, '|', UPPER(sender_role), ':', sender_id) END " +
+                    "WHERE conversation_key IS NULL");
+            if (updated > 0) {
+                System.out.println("Backfilled chat_message.conversation_key: " + updated + " rows");
+            }
+        } catch (Exception e) {
+            System.err.println("Failed to backfill chat_message.conversation_key: " + e.getMessage());
+        }
+
+        // 学生考试列表查询所用索引（已存在时跳过）
+        String[][] indexes = {
+                { "student_course", "idx_student_status_course", "(`student_id`, `status`, `course_id`)" },
+                { "exam", "idx_course_status_create", "(`course_id`, `status`, `create_time`)" },
+                { "student_exam", "idx_exam_student", "(`exam_id`, `student_id`)" },
+                { "exam", "idx_status_end_time", "(`status`, `end_time`)" },
+                { "lab_report", "idx_course", "(`course_id`)" },
+                { "student_lab_report", "idx_report_submit", "(`report_id`, `submit_time`)" },
+                { "student_exam", "idx_exam_submit", "(`exam_id`, `submit_time`)" },
+                { "course_enrollment", "idx_course_apply", "(`course_id`, `apply_time`)" },
+                { "course_comment", "idx_course_create", "(`course_id`, `create_time`)" },
+                { "chat_message", "idx_conversation_id", "(`conversation_key`, `id`)" },
+                { "message", "idx_receiver_time", "(`receiver_id`, `receiver_type`, `create_time`, `message_id`)" },
+        };
+        for (String[] index : indexes) {
+            try {
+                jdbcTemplate.execute("CREATE INDEX `" + index[1] + "` ON `" + index[0] + "` " + index[2]);
+                System.out.println("Successfully added index: " + index[0] + "." + index[1]);
+            } catch (Exception e) {
+                System.out.println("Skipped index " + index[0] + "." + index[1] + " (info: " + e.getMessage() + ")");
+            }
+        }
+
         System.out.println("Database schema updates completed.");
     }
 }
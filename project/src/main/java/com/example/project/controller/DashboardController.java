@@ -1,6 +1,7 @@
 package com.example.project.controller;
 
 import com.example.project.common.Result;
+import com.example.project.dto.ActivityFeedItemDTO;
 import com.example.project.dto.DashboardStatisticsDTO;
 import com.example.project.dto.TodoItemDTO;
 import com.example.project.entity.course.Course;
@@ -8,7 +9,6 @@ import com.example.project.service.DashboardService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -27,30 +27,12 @@ public class DashboardController {
      * 获取教师主页数据
      */
     @GetMapping("/dashboard")
-    public Result<Map<String, Object>> getDashboardData(@RequestParam String teacherId) {
+    public Result<Map<String, Object>> getDashboardData(
+            @RequestParam String teacherId,
+            @RequestParam(defaultValue = "5") Integer recentLimit,
+            @RequestParam(defaultValue = "5") Integer messageLimit) {
         try {
-            Map<String, Object> data = new HashMap<>();
-            
-            // 获取统计数据
-            DashboardStatisticsDTO statistics = dashboardService.getStatistics(teacherId);
-            data.put("statistics", statistics);
-            
-            // 获取最近课程
-            List<Course> recentCourses = dashboardService.getRecentCourses(teacherId, 5);
-            data.put("recentCourses", recentCourses);
-            
-            // 获取待办事项
-            List<TodoItemDTO> todoList = dashboardService.getTodoList(teacherId);
-            data.put("todoList", todoList);
-            
-            // 获取最近留言
-            List<Map<String, Object>> recentMessages = dashboardService.getRecentMessages(teacherId, 5);
-            data.put("recentMessages", recentMessages);
-            
-            // 获取本周课程表
-            List<Map<String, Object>> weekSchedule = dashboardService.getWeekSchedule(teacherId);
-            data.put("weekSchedule", weekSchedule);
-            
+            Map<String, Object> data = dashboardService.getDashboard(teacherId, recentLimit, messageLimit);
             return Result.success(data);
         } catch (Exception e) {
             e.printStackTrace();
@@ -103,17 +85,33 @@ public class DashboardController {
      * 获取最近留言
      */
     @GetMapping("/recent-messages")
-    public Result<List<Map<String, Object>>> getRecentMessages(
+    public Result<List<ActivityFeedItemDTO>> getRecentMessages(
             @RequestParam String teacherId,
             @RequestParam(defaultValue = "5") Integer limit) {
         try {
-            List<Map<String, Object>> messages = dashboardService.getRecentMessages(teacherId, limit);
+            List<ActivityFeedItemDTO> messages = dashboardService.getRecentMessages(teacherId, limit);
             return Result.success(messages);
         } catch (Exception e) {
             return Result.error("获取最近留言失败: " + e.getMessage());
         }
     }
     
+    /**
+     * 获取教师动态（游标分页）
+     */
+    @GetMapping("/activity-feed")
+    public Result<Map<String, Object>> getActivityFeed(
+            @RequestParam String teacherId,
+            @RequestParam(defaultValue = "10") Integer limit,
+            @RequestParam(required = false) String cursor) {
+        try {
+            Map<String, Object> feed = dashboardService.getActivityFeed(teacherId, limit, cursor);
+            return Result.success(feed);
+        } catch (Exception e) {
+            return Result.error("获取教师动态失败: " + e.getMessage());
+        }
+    }
+    
     /**
      * 获取本周课程表
      */
@@ -0,0 +1,46 @@
+package com.example.project.controller;
+
+import com.example.project.common.Result;
+import com.example.project.entity.DeletionJob;
+import com.example.project.service.DeletionJobService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * 级联删除任务进度查询
+ */
+@RestController
+@RequestMapping("/api/deletion-jobs")
+public class DeletionJobController {
+
+    @Autowired
+    private DeletionJobService deletionJobService;
+
+    /**
+     * 查询任务进度
+     */
+    @GetMapping("/{jobId}")
+    public Result<DeletionJob> getJob(@PathVariable Long jobId) {
+        try {
+            return Result.success(deletionJobService.getJob(jobId));
+        } catch (Exception e) {
+            return Result.error(e.getMessage());
+        }
+    }
+
+    /**
+     * 按删除对象查询任务（targetType: EXAM / COURSE）
+     */
+    @GetMapping
+    public Result<List<DeletionJob>> getJobsByTarget(
+            @RequestParam String targetType,
+            @RequestParam String targetId) {
+        try {
+            return Result.success(deletionJobService.getJobsByTarget(targetType, targetId));
+        } catch (Exception e) {
+            return Result.error(e.getMessage());
+        }
+    }
+}
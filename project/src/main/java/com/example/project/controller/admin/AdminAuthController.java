@@ -1,6 +1,8 @@
 package com.example.project.controller.admin;
 
 import com.example.project.common.Result;
+import com.example.project.service.impl.AdminSessions;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
@@ -14,6 +16,9 @@ import java.util.Map;
 @CrossOrigin(origins = "*")
 public class AdminAuthController {
 
+    @Autowired
+    private AdminSessions adminSessions;
+
     /**
      * 管理员登录
      */
@@ -26,13 +31,13 @@ public class AdminAuthController {
         if ("admin".equals(username) && "123".equals(password)) {
             Map<String, Object> data = new HashMap<>();
             
-            // 生成简单的 token
-            String token = "admin_token_" + System.currentTimeMillis();
+            // 签发 token，需要管理员身份的接口据此校验
+            String token = adminSessions.issue();
             data.put("token", token);
             
             // 管理员信息
             Map<String, Object> adminInfo = new HashMap<>();
-            adminInfo.put("id", 1);
+            adminInfo.put("id", Integer.valueOf(AdminSessions.ADMIN_ID));
             adminInfo.put("username", "admin");
             adminInfo.put("email", "admin@example.com");
             adminInfo.put("role", "ADMIN");
@@ -48,7 +53,8 @@ public class AdminAuthController {
      * 管理员登出
      */
     @PostMapping("/logout")
-    public Result<Void> logout() {
+    public Result<Void> logout(@RequestHeader(value = "Authorization", required = false) String authorization) {
+        adminSessions.revoke(authorization);
         return Result.success();
     }
 
@@ -65,6 +65,7 @@ public class AdminSensitiveWordController {
         }
         word.setUpdateTime(new Date());
         sensitiveWordService.save(word);
+        sensitiveWordService.reload();
         return Result.success(word.getId());
     }
 
@@ -76,6 +77,7 @@ public class AdminSensitiveWordController {
         word.setId(id);
         word.setUpdateTime(new Date());
         sensitiveWordService.updateById(word);
+        sensitiveWordService.reload();
         return Result.success();
     }
 
@@ -85,6 +87,7 @@ public class AdminSensitiveWordController {
     @DeleteMapping("/{id}")
     public Result<Void> deleteSensitiveWord(@PathVariable Long id) {
         sensitiveWordService.removeById(id);
+        sensitiveWordService.reload();
         return Result.success();
     }
 
@@ -96,6 +99,7 @@ public class AdminSensitiveWordController {
         List<Long> ids = data.get("ids");
         if (ids != null && !ids.isEmpty()) {
             sensitiveWordService.removeBatchByIds(ids);
+            sensitiveWordService.reload();
         }
         return Result.success();
     }
@@ -126,6 +130,7 @@ public class AdminSensitiveWordController {
         word.setStatus(status);
         word.setUpdateTime(new Date());
         sensitiveWordService.updateById(word);
+        sensitiveWordService.reload();
         return Result.success();
     }
 
@@ -135,12 +140,7 @@ public class AdminSensitiveWordController {
     @PostMapping("/test")
     public Result<Map<String, Object>> testSensitiveWords(@RequestBody Map<String, String> data) {
         String text = data.get("text");
-        boolean hasWords = sensitiveWordService.hasSensitiveWords(text);
-        String filtered = sensitiveWordService.filterText(text);
-
-        Map<String, Object> result = new HashMap<>();
-        result.put("hasSensitiveWords", hasWords);
-        result.put("filteredText", filtered);
+        Map<String, Object> result = sensitiveWordService.checkText(text);
 
         return Result.success(result);
     }
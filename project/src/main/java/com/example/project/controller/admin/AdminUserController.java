@@ -7,6 +7,7 @@ import com.example.project.entity.Student;
 import com.example.project.entity.Teacher;
 import com.example.project.mapper.StudentUserMapper;
 import com.example.project.mapper.TeacherUserMapper;
+import com.example.project.service.impl.UserDirectory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
@@ -28,6 +29,9 @@ public class AdminUserController {
     @Autowired
     private TeacherUserMapper teacherUserMapper;
 
+    @Autowired
+    private UserDirectory userDirectory;
+
     /**
      * Get student list
      */
@@ -102,6 +106,7 @@ public class AdminUserController {
             student.setStudentsPassword(AESUtil.encrypt(student.getStudentsPassword()));
         }
         studentUserMapper.updateById(student);
+        userDirectory.invalidate(UserDirectory.STUDENT, id);
         return Result.success();
     }
 
@@ -214,6 +219,7 @@ public class AdminUserController {
             teacher.setTeacherPassword(AESUtil.encrypt(teacher.getTeacherPassword()));
         }
         teacherUserMapper.updateById(teacher);
+        userDirectory.invalidate(UserDirectory.TEACHER, id);
         return Result.success();
     }
 
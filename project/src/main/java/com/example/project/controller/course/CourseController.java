@@ -201,10 +201,11 @@ public class CourseController {
         Map<String, Object> response = new HashMap<>();
         
         try {
-            courseService.deleteCourse(courseId, teacherId);
+            Long jobId = courseService.deleteCourse(courseId, teacherId);
             
             response.put("success", true);
             response.put("message", "删除成功");
+            response.put("jobId", jobId);
             
             return ResponseEntity.ok(response);
             
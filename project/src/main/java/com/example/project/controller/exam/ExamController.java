@@ -5,12 +5,26 @@ import com.example.project.dto.exam.AiExamCreateRequest;
 import com.example.project.dto.exam.ExamCreateDTO;
 import com.example.project.dto.exam.ExamQuestionDTO;
 import com.example.project.dto.exam.ExamStatisticsDTO;
+import com.example.project.dto.exam.StudentExamStatusDTO;
 import com.example.project.entity.exam.Exam;
 import com.example.project.service.ai.AiQuestionGeneratorService;
+import com.example.project.service.exam.ExamExportService;
+import com.example.project.service.exam.ExamRegradeService;
 import com.example.project.service.exam.ExamService;
+import com.example.project.util.TabularWriter;
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -22,6 +36,12 @@ public class ExamController {
     private ExamService examService;
     @Autowired
     private AiQuestionGeneratorService aiQuestionService;
+    @Autowired
+    private ExamRegradeService examRegradeService;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private ExamExportService examExportService;
 
     /**
      * 手动创建考试
@@ -79,6 +99,18 @@ public class ExamController {
         }
     }
 
+    /**
+     * 获取考试列表汇总查询的统计指标
+     */
+    @GetMapping("/metrics/summary")
+    public Result<Map<String, Object>> getExamSummaryMetrics() {
+        try {
+            return Result.success(examService.getExamSummaryMetrics());
+        } catch (Exception e) {
+            return Result.error(e.getMessage());
+        }
+    }
+
     /**
      * 获取考试详情（包含试题）
      */
@@ -151,10 +183,10 @@ public class ExamController {
      * 删除考试
      */
     @DeleteMapping("/{examId}")
-    public Result<String> deleteExam(@PathVariable Long examId) {
+    public Result<Long> deleteExam(@PathVariable Long examId) {
         try {
-            examService.deleteExam(examId);
-            return Result.success("考试删除成功");
+            Long jobId = examService.deleteExam(examId);
+            return Result.success("考试删除成功", jobId);
         } catch (Exception e) {
             return Result.error(e.getMessage());
         }
@@ -173,19 +205,106 @@ public class ExamController {
         }
     }
 
+    /**
+     * 重建考试统计（统计与数据库不一致时使用）
+     */
+    @PostMapping("/{examId}/statistics/rebuild")
+    public Result<ExamStatisticsDTO> rebuildExamStatistics(@PathVariable Long examId) {
+        try {
+            ExamStatisticsDTO statistics = examService.rebuildExamStatistics(examId);
+            return Result.success("统计重建成功", statistics);
+        } catch (Exception e) {
+            return Result.error(e.getMessage());
+        }
+    }
+
     /**
      * 获取考试的所有学生答题记录
      */
     @GetMapping("/{examId}/students")
-    public Result<List<Map<String, Object>>> getStudentExams(@PathVariable Long examId) {
+    public Result<List<StudentExamStatusDTO>> getStudentExams(@PathVariable Long examId) {
         try {
-            List<Map<String, Object>> studentExams = examService.getStudentExamStatus(examId);
+            List<StudentExamStatusDTO> studentExams = examService.getStudentExamStatus(examId);
             return Result.success(studentExams);
         } catch (Exception e) {
             return Result.error(e.getMessage());
         }
     }
 
+    /**
+     * 分页获取考试的学生答题记录
+     */
+    @GetMapping("/{examId}/students/page")
+    public Result<Map<String, Object>> getStudentExamPage(
+            @PathVariable Long examId,
+            @RequestParam(defaultValue = "1") Integer pageNumber,
+            @RequestParam(defaultValue = "50") Integer pageSize) {
+        try {
+            IPage<StudentExamStatusDTO> page = examService.getStudentExamStatusPage(examId, pageNumber, pageSize);
+            Map<String, Object> data = new HashMap<>();
+            data.put("list", page.getRecords());
+            data.put("total", page.getTotal());
+            data.put("pageNumber", pageNumber);
+            data.put("pageSize", pageSize);
+            return Result.success(data);
+        } catch (Exception e) {
+            return Result.error(e.getMessage());
+        }
+    }
+
+    /**
+     * 流式输出考试的学生答题记录（JSON 数组，边查询边写出，适用于超大班级）
+     */
+    @GetMapping("/{examId}/students/stream")
+    public ResponseEntity<StreamingResponseBody> streamStudentExams(@PathVariable Long examId) {
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.writeStartArray();
+                examService.streamStudentExamStatus(examId, row -> {
+                    try {
+                        objectMapper.writeValue(generator, row);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    /**
+     * 导出考试成绩及答题明细（format: xlsx / csv；csv 时 content: results / answers）
+     */
+    @GetMapping("/{examId}/export")
+    public ResponseEntity<StreamingResponseBody> exportExamResults(
+            @PathVariable Long examId,
+            @RequestParam(defaultValue = "xlsx") String format,
+            @RequestParam(defaultValue = "results") String content) {
+        StreamingResponseBody body = out -> examExportService.exportExamResults(examId, format, content, out);
+        String suffix = TabularWriter.FORMAT_CSV.equalsIgnoreCase(format) ? "-" + content : "";
+        return exportResponse("exam-" + examId + suffix + "." + TabularWriter.extension(format), format, body);
+    }
+
+    /**
+     * 导出课程成绩册（所有考试）
+     */
+    @GetMapping("/course/{courseId}/gradebook/export")
+    public ResponseEntity<StreamingResponseBody> exportCourseGradebook(
+            @PathVariable String courseId,
+            @RequestParam(defaultValue = "xlsx") String format) {
+        StreamingResponseBody body = out -> examExportService.exportCourseGradebook(courseId, format, out);
+        return exportResponse("gradebook-" + courseId + "." + TabularWriter.extension(format), format, body);
+    }
+
+    private ResponseEntity<StreamingResponseBody> exportResponse(String filename, String format,
+            StreamingResponseBody body) {
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .contentType(MediaType.parseMediaType(TabularWriter.contentType(format)))
+                .body(body);
+    }
+
     /**
      * 保存考试试题
      */
@@ -199,6 +318,31 @@ public class ExamController {
         }
     }
 
+    /**
+     * 按最新标准答案重新判分（客观题），后台执行
+     */
+    @PostMapping("/{examId}/regrade")
+    public Result<Map<String, Object>> regradeExam(@PathVariable Long examId) {
+        try {
+            Map<String, Object> job = examRegradeService.startRegrade(examId);
+            return Result.success("重新判分任务已启动", job);
+        } catch (Exception e) {
+            return Result.error(e.getMessage());
+        }
+    }
+
+    /**
+     * 查询重新判分任务进度
+     */
+    @GetMapping("/regrade/{jobId}")
+    public Result<Map<String, Object>> getRegradeStatus(@PathVariable String jobId) {
+        try {
+            return Result.success(examRegradeService.getRegradeStatus(jobId));
+        } catch (Exception e) {
+            return Result.error(e.getMessage());
+        }
+    }
+
     /**
      * AI生成题目（仅生成，不保存）
      * 返回题目列表供前端预览和编辑
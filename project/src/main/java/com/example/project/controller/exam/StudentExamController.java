@@ -1,11 +1,19 @@
 package com.example.project.controller.exam;
 
+import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.example.project.common.Result;
+import com.example.project.dto.exam.StudentExamListItemDTO;
+import com.example.project.service.exam.ExamAutosaveService;
 import com.example.project.service.exam.ExamService;
+import com.example.project.service.exam.ExamSubmissionService;
+import com.example.project.service.exam.impl.ExamEventBroadcaster;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import com.example.project.entity.exam.Exam;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -16,22 +24,63 @@ public class StudentExamController {
     @Autowired
     private ExamService examService;
 
+    @Autowired
+    private ExamSubmissionService examSubmissionService;
+
+    @Autowired
+    private ExamAutosaveService examAutosaveService;
+
+    @Autowired
+    private ExamEventBroadcaster examEventBroadcaster;
+
     /**
      * 获取学生的所有考试列表（仅限已选课程且已发布）
      */
     @GetMapping("/list")
-    public Result<List<Map<String, Object>>> listExams(
+    public Result<List<StudentExamListItemDTO>> listExams(
             @RequestParam String studentId,
             @RequestParam(required = false) String status,
             @RequestParam(required = false) String courseId) {
         try {
-            List<Map<String, Object>> exams = examService.getStudentExams(studentId, status, courseId);
+            List<StudentExamListItemDTO> exams = examService.getStudentExams(studentId, status, courseId);
             return Result.success(exams);
         } catch (Exception e) {
             return Result.error(e.getMessage());
         }
     }
 
+    /**
+     * 订阅考试事件（SSE）：开考 EXAM_OPENED、结束 EXAM_CLOSED，收到事件后再刷新列表，无需轮询
+     */
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeEvents(@RequestParam String studentId) {
+        return examEventBroadcaster.subscribe(studentId);
+    }
+
+    /**
+     * 分页获取学生的考试列表
+     */
+    @GetMapping("/page")
+    public Result<Map<String, Object>> pageExams(
+            @RequestParam String studentId,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String courseId,
+            @RequestParam(defaultValue = "1") Integer pageNumber,
+            @RequestParam(defaultValue = "10") Integer pageSize) {
+        try {
+            IPage<StudentExamListItemDTO> page = examService.getStudentExamPage(studentId, status, courseId,
+                    pageNumber, pageSize);
+            Map<String, Object> data = new HashMap<>();
+            data.put("list", page.getRecords());
+            data.put("total", page.getTotal());
+            data.put("pageNumber", pageNumber);
+            data.put("pageSize", pageSize);
+            return Result.success(data);
+        } catch (Exception e) {
+            return Result.error(e.getMessage());
+        }
+    }
+
     /**
      * 学生获取考试详情（需要验证选课资格）
      */
@@ -77,19 +126,64 @@ public class StudentExamController {
      * 提交试卷
      */
     @PostMapping("/{examId}/submit")
-    public Result<String> submitExam(
+    public Result<Map<String, Object>> submitExam(
             @PathVariable Long examId,
             @RequestBody com.example.project.dto.exam.StudentExamSubmitDTO submitDTO) {
         try {
             submitDTO.setExamId(examId);
-            examService.submitExam(submitDTO);
-            return Result.success("试卷提交成功");
+            Map<String, Object> status = examSubmissionService.submit(submitDTO);
+            String message = "DONE".equals(status.get("status")) ? "试卷提交成功" : "试卷已提交，正在判分";
+            return Result.success(message, status);
         } catch (Exception e) {
             e.printStackTrace();
             return Result.error(e.getMessage());
         }
     }
 
+    /**
+     * 查询试卷提交状态（PENDING/PROCESSING/DONE/FAILED）
+     */
+    @GetMapping("/{examId}/submit-status")
+    public Result<Map<String, Object>> getSubmitStatus(
+            @PathVariable Long examId,
+            @RequestParam String studentId) {
+        try {
+            return Result.success(examSubmissionService.getSubmissionStatus(examId, studentId));
+        } catch (Exception e) {
+            return Result.error(e.getMessage());
+        }
+    }
+
+    /**
+     * 暂存作答中的答案（可频繁调用，只需提交有变化的题目）
+     */
+    @PostMapping("/{examId}/autosave")
+    public Result<Long> autosave(
+            @PathVariable Long examId,
+            @RequestBody com.example.project.dto.exam.StudentExamSubmitDTO draftDTO) {
+        try {
+            draftDTO.setExamId(examId);
+            Long studentExamId = examAutosaveService.autosave(draftDTO);
+            return Result.success("已暂存", studentExamId);
+        } catch (Exception e) {
+            return Result.error(e.getMessage());
+        }
+    }
+
+    /**
+     * 获取已暂存的答案（断线重连后恢复作答）
+     */
+    @GetMapping("/{examId}/draft")
+    public Result<List<Map<String, Object>>> getDraft(
+            @PathVariable Long examId,
+            @RequestParam String studentId) {
+        try {
+            return Result.success(examAutosaveService.getDraft(examId, studentId));
+        } catch (Exception e) {
+            return Result.error(e.getMessage());
+        }
+    }
+
     /**
      * 获取学生考试成绩详情（包含答题记录和正确答案）
      */
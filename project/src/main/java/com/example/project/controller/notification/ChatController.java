@@ -3,8 +3,12 @@ package com.example.project.controller.notification;
 import com.example.project.common.Result;
 import com.example.project.entity.notification.ChatMessage;
 import com.example.project.service.notification.ChatService;
+import com.example.project.service.notification.impl.ChatPushHub;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 import java.util.Map;
@@ -17,6 +21,31 @@ public class ChatController {
     @Autowired
     private ChatService chatService;
 
+    @Autowired
+    private ChatPushHub chatPushHub;
+
+    /**
+     * 订阅私信推送（SSE）：新消息(message)、未读数(unread)、已读回执(read)
+     */
+    @GetMapping(value = "/stream/{type}/{userId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(
+            @PathVariable String userId,
+            @PathVariable String type,
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        return chatPushHub.subscribe(userId, type.toUpperCase(), lastEventId);
+    }
+
+    /**
+     * 长轮询（SSE 不可用时使用）：since 为上次收到的最后一个事件 ID
+     */
+    @GetMapping("/poll/{type}/{userId}")
+    public DeferredResult<Result<Map<String, Object>>> poll(
+            @PathVariable String userId,
+            @PathVariable String type,
+            @RequestParam(required = false) Long since) {
+        return chatPushHub.poll(userId, type.toUpperCase(), since);
+    }
+
     /**
      * 发送私信
      */
@@ -47,6 +76,26 @@ public class ChatController {
         }
     }
 
+    /**
+     * 分页获取聊天历史（由新到旧）：不传 beforeId 为最新一页，之后传上一页返回的 nextBeforeId
+     */
+    @GetMapping("/history/page")
+    public Result<Map<String, Object>> getHistoryPage(
+            @RequestParam String user1Id,
+            @RequestParam String user1Type,
+            @RequestParam String user2Id,
+            @RequestParam String user2Type,
+            @RequestParam(required = false) Long beforeId,
+            @RequestParam(defaultValue = "50") Integer limit) {
+        try {
+            Map<String, Object> page = chatService.getHistoryPage(user1Id, user1Type, user2Id, user2Type, beforeId,
+                    limit);
+            return Result.success(page);
+        } catch (Exception e) {
+            return Result.error(e.getMessage());
+        }
+    }
+
     /**
      * 获取联系人列表
      */
@@ -2,6 +2,7 @@ package com.example.project.controller.notification;
 
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.example.project.common.Result;
+import com.example.project.dto.notification.BroadcastMessageDTO;
 import com.example.project.entity.notification.Message;
 import com.example.project.service.notification.MessageService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -25,17 +26,52 @@ public class MessageController {
             @PathVariable String receiverId,
             @PathVariable String receiverType,
             @RequestParam(required = false) Integer isRead,
+            @RequestParam(required = false) String messageType,
             @RequestParam(defaultValue = "1") Integer pageNumber,
             @RequestParam(defaultValue = "10") Integer pageSize) {
         try {
             Page<Message> messagePage = messageService.getMessageList(receiverId, receiverType.toUpperCase(), isRead,
-                    pageNumber, pageSize);
+                    messageType, pageNumber, pageSize);
             return Result.success(messagePage);
         } catch (Exception e) {
             return Result.error(e.getMessage());
         }
     }
 
+    /**
+     * 游标分页获取消息列表：不传 cursor 为第一页，之后传上一页返回的 nextCursor
+     */
+    @GetMapping("/{receiverType}/{receiverId}/feed")
+    public Result<Map<String, Object>> getMessageFeed(
+            @PathVariable String receiverId,
+            @PathVariable String receiverType,
+            @RequestParam(required = false) Integer isRead,
+            @RequestParam(required = false) String messageType,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") Integer limit) {
+        try {
+            Map<String, Object> feed = messageService.getMessageFeed(receiverId, receiverType.toUpperCase(), isRead,
+                    messageType, cursor, limit);
+            return Result.success(feed);
+        } catch (Exception e) {
+            return Result.error(e.getMessage());
+        }
+    }
+
+    /**
+     * 群发消息：按课程、班级或角色（管理员）发送
+     */
+    @PostMapping("/broadcast")
+    public Result<Map<String, Object>> broadcast(@RequestBody BroadcastMessageDTO request,
+            @RequestHeader(value = "Authorization", required = false) String authorization) {
+        try {
+            Map<String, Object> result = messageService.broadcast(request, authorization);
+            return Result.success("发送完成", result);
+        } catch (Exception e) {
+            return Result.error(e.getMessage());
+        }
+    }
+
     /**
      * 标记多条消息为已读
      */
@@ -20,10 +20,12 @@ public class NotificationController {
     @GetMapping("/teacher")
     public Result<Page<SystemNotification>> getTeacherNotificationList(
             @RequestParam(defaultValue = "1") Integer pageNumber,
-            @RequestParam(defaultValue = "10") Integer pageSize) {
+            @RequestParam(defaultValue = "10") Integer pageSize,
+            @RequestParam(required = false) String userId) {
         try {
-            Page<SystemNotification> notificationPage = notificationService.getNotificationList(pageNumber, pageSize,
-                    null, "TEACHER");
+            Page<SystemNotification> notificationPage = userId != null
+                    ? notificationService.getUserNotificationList(userId, "TEACHER", pageNumber, pageSize)
+                    : notificationService.getNotificationList(pageNumber, pageSize, null, "TEACHER");
             return Result.success(notificationPage);
         } catch (Exception e) {
             e.printStackTrace();
@@ -37,14 +39,55 @@ public class NotificationController {
     @GetMapping("/student")
     public Result<Page<SystemNotification>> getStudentNotificationList(
             @RequestParam(defaultValue = "1") Integer pageNumber,
-            @RequestParam(defaultValue = "10") Integer pageSize) {
+            @RequestParam(defaultValue = "10") Integer pageSize,
+            @RequestParam(required = false) String userId) {
         try {
-            Page<SystemNotification> notificationPage = notificationService.getNotificationList(pageNumber, pageSize,
-                    null, "STUDENT");
+            Page<SystemNotification> notificationPage = userId != null
+                    ? notificationService.getUserNotificationList(userId, "STUDENT", pageNumber, pageSize)
+                    : notificationService.getNotificationList(pageNumber, pageSize, null, "STUDENT");
             return Result.success(notificationPage);
         } catch (Exception e) {
             e.printStackTrace();
             return Result.error("获取学生通知失败: " + e.getMessage());
         }
     }
+
+    /**
+     * 获取未读系统通知数
+     */
+    @GetMapping("/{type}/{userId}/unread-count")
+    public Result<Integer> getUnreadCount(@PathVariable String type, @PathVariable String userId) {
+        try {
+            return Result.success(notificationService.getUnreadCount(userId, type.toUpperCase()));
+        } catch (Exception e) {
+            return Result.error("获取未读通知数失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 标记系统通知已读
+     */
+    @PutMapping("/{type}/{userId}/{notificationId}/read")
+    public Result<Void> markAsRead(@PathVariable String type, @PathVariable String userId,
+            @PathVariable Long notificationId) {
+        try {
+            notificationService.markAsRead(userId, type.toUpperCase(), notificationId);
+            return Result.success("已标记为已读");
+        } catch (Exception e) {
+            return Result.error("标记已读失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 全部标记已读
+     */
+    @PutMapping("/{type}/{userId}/read-all")
+    public Result<Void> markAllAsRead(@PathVariable String type, @PathVariable String userId) {
+        try {
+            notificationService.markAllAsRead(userId, type.toUpperCase());
+            return Result.success("已全部标记为已读");
+        } catch (Exception e) {
+            return Result.error("标记已读失败: " + e.getMessage());
+        }
+    }
 }
@@ -0,0 +1,41 @@
+package com.example.project.dto;
+
+import lombok.Data;
+
+import java.util.Date;
+
+/**
+ * 教师主页动态DTO
+ */
+@Data
+public class ActivityFeedItemDTO {
+
+    /**
+     * 动态类型：homework-提交作业，exam-提交考试，enrollment-申请选课，comment-课程评论
+     */
+    private String type;
+
+    /**
+     * 来源记录ID（学生作业、学生考试、报名、评论的主键）
+     */
+    private Long sourceId;
+
+    private String studentId;
+
+    private String studentName;
+
+    private String studentAvatar;
+
+    private String courseId;
+
+    private String courseName;
+
+    private String title;
+
+    /**
+     * 作业标题、考试标题、课程名或评论内容
+     */
+    private String content;
+
+    private Date time;
+}
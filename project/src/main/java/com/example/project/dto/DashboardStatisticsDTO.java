@@ -33,6 +33,11 @@ public class DashboardStatisticsDTO {
      */
     private Integer ongoingExamCount;
     
+    /**
+     * 待审核报名数
+     */
+    private Integer pendingEnrollmentCount;
+    
     /**
      * 今日新增学生数
      */
@@ -0,0 +1,33 @@
+package com.example.project.dto;
+
+import lombok.Data;
+
+/**
+ * 课程表条目（课程时间 + 课程信息）
+ */
+@Data
+public class TimetableEntryDTO {
+
+    private Long scheduleId;
+
+    private String courseId;
+
+    private String courseName;
+
+    private String teacherName;
+
+    private String location;
+
+    /**
+     * 星期几 (1-7, 1表示周一)
+     */
+    private Integer dayOfWeek;
+
+    private Integer startSection;
+
+    private Integer endSection;
+
+    private Integer startWeek;
+
+    private Integer endWeek;
+}
@@ -0,0 +1,23 @@
+package com.example.project.dto.exam;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * 考试答题明细导出行（学生 × 题目）
+ */
+@Data
+public class ExamAnswerExportRow {
+    private String studentId;
+    private String studentName;
+    private Integer questionOrder;
+    private String questionType;
+    private String questionContent;
+    private String studentAnswer;
+    private String correctAnswer;
+    private Integer isCorrect;
+    private BigDecimal score;
+    private Integer questionScore;
+    private String teacherComment;
+}
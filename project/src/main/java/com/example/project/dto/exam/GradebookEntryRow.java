@@ -0,0 +1,18 @@
+package com.example.project.dto.exam;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * 课程成绩册导出行（选课学生 × 考试，按报名记录连续排列）
+ */
+@Data
+public class GradebookEntryRow {
+    private Long enrollmentId;
+    private String studentId;
+    private String studentName;
+    private Long examId; // 未参加任何考试时为 null
+    private Integer status;
+    private BigDecimal obtainedScore;
+}
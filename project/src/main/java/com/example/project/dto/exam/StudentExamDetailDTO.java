@@ -18,4 +18,5 @@ public class StudentExamDetailDTO {
     private BigDecimal obtainedScore;
     private Integer status;
     private List<StudentAnswerDTO> answers;
+    private Long nextStudentExamId; // 下一份待批改试卷（已在后台预加载）
 }
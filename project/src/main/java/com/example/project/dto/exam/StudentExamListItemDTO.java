@@ -0,0 +1,28 @@
+package com.example.project.dto.exam;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+/**
+ * 学生考试列表项（考试信息 + 本人作答记录，单条 SQL 投影）
+ */
+@Data
+public class StudentExamListItemDTO {
+    private Long examId;
+    private String examTitle;
+    private String courseId;
+    private String courseName;
+    private Date startTime;
+    private Date endTime;
+    private Integer duration;
+    private Integer totalScore;
+    private Integer passScore;
+
+    // 学生作答记录（未作答时为 null）
+    private Long studentExamId;
+    private BigDecimal studentScore;
+    private Integer studentStatus;
+    private Boolean isSubmitted;
+}
@@ -0,0 +1,19 @@
+package com.example.project.dto.exam;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+/**
+ * 考试中每个选课学生的作答状态（教师端）
+ */
+@Data
+public class StudentExamStatusDTO {
+    private String studentId;
+    private String studentName;
+    private Long studentExamId;
+    private Integer status; // 0-未参加, 1-进行中, 2-已提交, 3-已批改
+    private BigDecimal obtainedScore;
+    private Date submitTime;
+}
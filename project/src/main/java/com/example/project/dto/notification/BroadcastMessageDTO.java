@@ -0,0 +1,35 @@
+package com.example.project.dto.notification;
+
+import lombok.Data;
+
+/**
+ * 群发消息请求
+ */
+@Data
+public class BroadcastMessageDTO {
+
+    private String senderId;
+
+    /**
+     * 发送者类型：TEACHER / ADMIN
+     */
+    private String senderType;
+
+    /**
+     * 接收范围：COURSE-课程学生，CLASS-班级学生，ROLE-按角色（仅管理员）
+     */
+    private String targetType;
+
+    /**
+     * 课程ID、班级ID，或角色 STUDENT / TEACHER / ALL
+     */
+    private String targetId;
+
+    private String messageType;
+
+    private String title;
+
+    private String content;
+
+    private String relatedId;
+}
@@ -0,0 +1,45 @@
+package com.example.project.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * 后台数据回填进度
+ * 每个回填任务一行，last_key 记录最后完成的批次，进程中途退出后从该位置继续；完成后 status 为 DONE
+ */
+@Data
+@TableName("data_backfill")
+public class DataBackfill implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_DONE = "DONE";
+
+    /**
+     * 回填任务名称
+     */
+    @TableId(type = IdType.INPUT)
+    private String name;
+
+    /**
+     * 状态: RUNNING(进行中)/DONE(已完成)
+     */
+    private String status;
+
+    /**
+     * 最后完成的批次的结束键，为空表示从头开始
+     */
+    private String lastKey;
+
+    @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss", timezone = "GMT+8")
+    private Date updateTime;
+}
@@ -0,0 +1,72 @@
+package com.example.project.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * 级联删除任务
+ * 考试/课程主记录在请求中立即删除，关联子表由后台按批清理；step 记录已完成的步骤，进程重启后从该步骤继续
+ */
+@Data
+@TableName("deletion_job")
+public class DeletionJob implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final String TYPE_EXAM = "EXAM";
+    public static final String TYPE_COURSE = "COURSE";
+
+    public static final String STATUS_PENDING = "PENDING";
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_DONE = "DONE";
+    public static final String STATUS_FAILED = "FAILED";
+
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    /**
+     * 删除对象类型: EXAM / COURSE
+     */
+    private String targetType;
+
+    private String targetId;
+
+    /**
+     * 状态: PENDING(待清理)/RUNNING(清理中)/DONE(已完成)/FAILED(失败，等待重试)
+     */
+    private String status;
+
+    /**
+     * 当前步骤序号（之前的步骤均已清理完成）
+     */
+    private Integer step;
+
+    /**
+     * 当前步骤名称（子表名）
+     */
+    private String stepName;
+
+    /**
+     * 已删除的子记录数
+     */
+    private Long deletedRows;
+
+    private Integer attempts;
+
+    private String errorMessage;
+
+    @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss", timezone = "GMT+8")
+    private Date createTime;
+
+    @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss", timezone = "GMT+8")
+    private Date updateTime;
+}
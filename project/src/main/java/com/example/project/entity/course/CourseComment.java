@@ -48,6 +48,10 @@ public class CourseComment implements Serializable {
     @com.baomidou.mybatisplus.annotation.TableField("target_user_type")
     private String targetUserType;
 
+    // 是否待人工复核 (0:否, 1:命中 REVIEW 类敏感词)
+    @com.baomidou.mybatisplus.annotation.TableField("need_review")
+    private Integer needReview;
+
     @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss")
     @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss", timezone = "GMT+8")
     private Date createTime;
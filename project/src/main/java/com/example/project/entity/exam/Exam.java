@@ -5,6 +5,7 @@ import com.baomidou.mybatisplus.annotation.TableField;
 import com.baomidou.mybatisplus.annotation.TableId;
 import com.baomidou.mybatisplus.annotation.TableName;
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Data;
 import org.springframework.format.annotation.DateTimeFormat;
 
@@ -43,6 +44,12 @@ public class Exam implements Serializable {
     private Integer passScore;
     
     private Integer status;
+
+    /**
+     * 考试阶段（由考试调度器在开始/结束时间写入）: PUBLISHED / ONGOING / ENDED，草稿为 null
+     */
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private String lifecycleStatus;
     
     @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss")
     @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss", timezone = "GMT+8")
@@ -0,0 +1,56 @@
+package com.example.project.entity.exam;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * 试卷提交受理记录
+ * (exam_id, student_id) 唯一，保证同一学生对同一考试只会被受理一次
+ */
+@Data
+@TableName("exam_submission")
+public class ExamSubmission implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final String STATUS_PENDING = "PENDING";
+    public static final String STATUS_PROCESSING = "PROCESSING";
+    public static final String STATUS_DONE = "DONE";
+    public static final String STATUS_FAILED = "FAILED";
+
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    private Long examId;
+
+    private String studentId;
+
+    /**
+     * 提交内容（StudentExamSubmitDTO 的 JSON）
+     */
+    private String payload;
+
+    /**
+     * 状态: PENDING(待判分)/PROCESSING(判分中)/DONE(已完成)/FAILED(失败)
+     */
+    private String status;
+
+    private Integer attempts;
+
+    private String errorMessage;
+
+    @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss", timezone = "GMT+8")
+    private Date createTime;
+
+    @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss", timezone = "GMT+8")
+    private Date updateTime;
+}
@@ -0,0 +1,56 @@
+package com.example.project.entity.notification;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * 私信会话（联系人列表）实体
+ * 每个会话为双方各保存一行，owner 为列表所属用户，peer 为对方
+ */
+@Data
+@TableName("chat_conversation")
+public class ChatConversation implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    private String ownerId;
+
+    private String ownerRole;
+
+    private String peerId;
+
+    private String peerRole;
+
+    /**
+     * 会话标识，与 chat_message.conversation_key 一致
+     */
+    private String conversationKey;
+
+    private Long lastMessageId;
+
+    /**
+     * 最后一条消息摘要
+     */
+    private String lastMessage;
+
+    @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss", timezone = "GMT+8")
+    private Date lastTime;
+
+    /**
+     * owner 未读的消息数
+     */
+    private Integer unreadCount;
+
+    private Date updateTime;
+}
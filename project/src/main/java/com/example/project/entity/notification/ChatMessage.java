@@ -60,6 +60,16 @@ public class ChatMessage implements Serializable {
      */
     private Integer isRead;
 
+    /**
+     * 会话标识：双方 "角色:ID" 按字典序排列后以 "|" 连接，与收发方向无关
+     */
+    private String conversationKey;
+
+    /**
+     * 是否待人工复核 (0:否, 1:命中 REVIEW 类敏感词)
+     */
+    private Integer needReview;
+
     /**
      * 发送时间
      */
@@ -0,0 +1,36 @@
+package com.example.project.entity.notification;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * 系统通知阅读状态（每个用户一行）
+ * ID 不大于 highWater 的通知视为已读，readIds 记录 highWater 之上零散已读的通知ID
+ */
+@Data
+@TableName("notification_read_state")
+public class NotificationReadState implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @TableId(type = IdType.AUTO)
+    private Long id;
+
+    private String userId;
+
+    private String userRole;
+
+    private Long highWater;
+
+    /**
+     * 逗号分隔的通知ID
+     */
+    private String readIds;
+
+    private Date updateTime;
+}
@@ -1,6 +1,7 @@
 package com.example.project.entity.notification;
 
 import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
 import com.baomidou.mybatisplus.annotation.TableId;
 import com.baomidou.mybatisplus.annotation.TableName;
 import com.fasterxml.jackson.annotation.JsonFormat;
@@ -36,4 +37,10 @@ public class SystemNotification implements Serializable {
     @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss")
     @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss", timezone = "GMT+8")
     private Date expireTime;
+
+    /**
+     * 当前用户是否已读（0:未读, 1:已读），仅按用户查询列表时填充
+     */
+    @TableField(exist = false)
+    private Integer isRead;
 }
@@ -0,0 +1,83 @@
+package com.example.project.mapper;
+
+import com.example.project.dto.ActivityFeedItemDTO;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 教师主页动态查询
+ * 作业提交、考试提交、选课申请、学生评论四类来源各自按教师课程过滤并取前 limit 条，
+ * 合并后按 (time, type, sourceId) 倒序；游标为上一页最后一条的 (time, type, sourceId)
+ */
+@Mapper
+public interface ActivityFeedMapper {
+
+    @Select("<script>" +
+            "SELECT feed.type, feed.source_id, feed.student_id, " +
+            "COALESCE(feed.student_name, su.students_username) AS student_name, su.students_head AS student_avatar, " +
+            "feed.course_id, feed.course_name, feed.content, feed.time " +
+            "FROM (" +
+            // 1. 作业提交
+            "(SELECT 'homework' AS type, slr.student_report_id AS source_id, slr.student_id, slr.student_name, " +
+            "c.id AS course_id, c.name AS course_name, lr.report_title AS content, slr.submit_time AS time " +
+            "FROM course c " +
+            "JOIN lab_report lr ON lr.course_id = c.id " +
+            "JOIN student_lab_report slr ON slr.report_id = lr.report_id " +
+            "WHERE c.teacher_id = #{teacherId} AND slr.status &gt;= 1 AND slr.submit_time IS NOT NULL " +
+            "<if test='cursorTime != null'>" +
+            "AND (slr.submit_time &lt; #{cursorTime} OR (slr.submit_time = #{cursorTime} AND ('homework' &lt; #{cursorType} " +
+            "OR ('homework' = #{cursorType} AND slr.student_report_id &lt; #{cursorId})))) " +
+            "</if>" +
+            "ORDER BY slr.submit_time DESC, slr.student_report_id DESC LIMIT #{limit}) " +
+            "UNION ALL " +
+            // 2. 考试提交
+            "(SELECT 'exam' AS type, se.student_exam_id AS source_id, se.student_id, NULL AS student_name, " +
+            "c.id AS course_id, c.name AS course_name, e.exam_title AS content, se.submit_time AS time " +
+            "FROM course c " +
+            "JOIN exam e ON e.course_id = c.id " +
+            "JOIN student_exam se ON se.exam_id = e.exam_id " +
+            "WHERE c.teacher_id = #{teacherId} AND se.status &gt;= 2 AND se.submit_time IS NOT NULL " +
+            "<if test='cursorTime != null'>" +
+            "AND (se.submit_time &lt; #{cursorTime} OR (se.submit_time = #{cursorTime} AND ('exam' &lt; #{cursorType} " +
+            "OR ('exam' = #{cursorType} AND se.student_exam_id &lt; #{cursorId})))) " +
+            "</if>" +
+            "ORDER BY se.submit_time DESC, se.student_exam_id DESC LIMIT #{limit}) " +
+            "UNION ALL " +
+            // 3. 选课申请
+            "(SELECT 'enrollment' AS type, ce.id AS source_id, ce.student_id, ce.student_name, " +
+            "c.id AS course_id, c.name AS course_name, c.name AS content, ce.apply_time AS time " +
+            "FROM course c " +
+            "JOIN course_enrollment ce ON ce.course_id = c.id " +
+            "WHERE c.teacher_id = #{teacherId} AND ce.apply_time IS NOT NULL " +
+            "<if test='cursorTime != null'>" +
+            "AND (ce.apply_time &lt; #{cursorTime} OR (ce.apply_time = #{cursorTime} AND ('enrollment' &lt; #{cursorType} " +
+            "OR ('enrollment' = #{cursorType} AND ce.id &lt; #{cursorId})))) " +
+            "</if>" +
+            "ORDER BY ce.apply_time DESC, ce.id DESC LIMIT #{limit}) " +
+            "UNION ALL " +
+            // 4. 学生评论
+            "(SELECT 'comment' AS type, cc.comment_id AS source_id, cc.user_id AS student_id, NULL AS student_name, " +
+            "c.id AS course_id, c.name AS course_name, cc.content, cc.create_time AS time " +
+            "FROM course c " +
+            "JOIN course_comment cc ON cc.course_id = c.id " +
+            "WHERE c.teacher_id = #{teacherId} AND cc.user_type = 'STUDENT' AND cc.create_time IS NOT NULL " +
+            "<if test='cursorTime != null'>" +
+            "AND (cc.create_time &lt; #{cursorTime} OR (cc.create_time = #{cursorTime} AND ('comment' &lt; #{cursorType} " +
+            "OR ('comment' = #{cursorType} AND cc.comment_id &lt; #{cursorId})))) " +
+            "</if>" +
+            "ORDER BY cc.create_time DESC, cc.comment_id DESC LIMIT #{limit}) " +
+            ") feed " +
+            "LEFT JOIN student_user su ON su.students_id = feed.student_id " +
+            "ORDER BY feed.time DESC, feed.type DESC, feed.source_id DESC " +
+            "LIMIT #{limit}" +
+            "</script>")
+    List<ActivityFeedItemDTO> selectTeacherFeed(@Param("teacherId") String teacherId,
+                                                @Param("cursorTime") Date cursorTime,
+                                                @Param("cursorType") String cursorType,
+                                                @Param("cursorId") Long cursorId,
+                                                @Param("limit") int limit);
+}
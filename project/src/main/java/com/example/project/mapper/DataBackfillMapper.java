@@ -0,0 +1,19 @@
+package com.example.project.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.example.project.entity.DataBackfill;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+@Mapper
+public interface DataBackfillMapper extends BaseMapper<DataBackfill> {
+
+    /**
+     * 写入回填进度（不存在时插入）
+     */
+    @Insert("INSERT INTO data_backfill (name, status, last_key, update_time) " +
+            "VALUES (#{name}, #{status}, #{lastKey}, NOW()) " +
+            "ON DUPLICATE KEY UPDATE status = VALUES(status), last_key = VALUES(last_key), update_time = NOW()")
+    int saveProgress(@Param("name") String name, @Param("status") String status, @Param("lastKey") String lastKey);
+}
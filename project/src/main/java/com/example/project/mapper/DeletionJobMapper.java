@@ -0,0 +1,85 @@
+package com.example.project.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.example.project.entity.DeletionJob;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * 级联删除任务 Mapper
+ * 按批删除的方法中表名、列名只能由 DeletionJobServiceImpl 内部的常量传入
+ */
+@Mapper
+public interface DeletionJobMapper extends BaseMapper<DeletionJob> {
+
+    /**
+     * 可执行的任务：待清理、失败未超过重试次数、或执行中但心跳超时（进程崩溃）
+     */
+    @Select("SELECT id FROM deletion_job " +
+            "WHERE status = 'PENDING' " +
+            "OR (status = 'FAILED' AND attempts < #{maxAttempts}) " +
+            "OR (status = 'RUNNING' AND update_time < #{staleBefore}) " +
+            "ORDER BY id LIMIT #{limit}")
+    List<Long> selectRunnableIds(@Param("staleBefore") Date staleBefore,
+                                 @Param("maxAttempts") int maxAttempts,
+                                 @Param("limit") int limit);
+
+    /**
+     * 领取任务（条件与 selectRunnableIds 一致，保证只有一个线程执行）
+     */
+    @Update("UPDATE deletion_job SET status = 'RUNNING', attempts = attempts + 1, update_time = NOW() " +
+            "WHERE id = #{id} AND (status = 'PENDING' " +
+            "OR (status = 'FAILED' AND attempts < #{maxAttempts}) " +
+            "OR (status = 'RUNNING' AND update_time < #{staleBefore}))")
+    int claim(@Param("id") Long id, @Param("staleBefore") Date staleBefore, @Param("maxAttempts") int maxAttempts);
+
+    /**
+     * 记录进度（同时作为心跳）
+     */
+    @Update("UPDATE deletion_job SET step = #{step}, step_name = #{stepName}, " +
+            "deleted_rows = deleted_rows + #{deleted}, update_time = NOW() WHERE id = #{id}")
+    int updateProgress(@Param("id") Long id, @Param("step") int step, @Param("stepName") String stepName,
+                       @Param("deleted") long deleted);
+
+    @Update("UPDATE deletion_job SET status = #{status}, error_message = #{errorMessage}, update_time = NOW() " +
+            "WHERE id = #{id}")
+    int finish(@Param("id") Long id, @Param("status") String status, @Param("errorMessage") String errorMessage);
+
+    @Select("SELECT * FROM deletion_job WHERE target_type = #{targetType} AND target_id = #{targetId} ORDER BY id DESC")
+    List<DeletionJob> selectByTarget(@Param("targetType") String targetType, @Param("targetId") String targetId);
+
+    /**
+     * 删除一批子记录
+     */
+    @Delete("DELETE FROM `${table}` WHERE `${column}` = #{value} LIMIT #{limit}")
+    int deleteChunk(@Param("table") String table, @Param("column") String column,
+                    @Param("value") String value, @Param("limit") int limit);
+
+    /**
+     * 查询一批子记录ID（用于孙表清理）
+     */
+    @Select("SELECT `${idColumn}` FROM `${table}` WHERE `${column}` = #{value} LIMIT #{limit}")
+    List<Long> selectChildIds(@Param("table") String table, @Param("idColumn") String idColumn,
+                              @Param("column") String column, @Param("value") String value,
+                              @Param("limit") int limit);
+
+    /**
+     * 按父记录ID删除一批孙记录
+     */
+    @Delete("<script>" +
+            "DELETE FROM `${table}` WHERE `${column}` IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>" +
+            "#{id}" +
+            "</foreach>" +
+            " LIMIT #{limit}" +
+            "</script>")
+    int deleteChunkByIds(@Param("table") String table, @Param("column") String column,
+                         @Param("ids") Collection<Long> ids, @Param("limit") int limit);
+}
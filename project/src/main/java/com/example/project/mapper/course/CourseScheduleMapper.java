@@ -1,6 +1,7 @@
 package com.example.project.mapper.course;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.example.project.dto.TimetableEntryDTO;
 import com.example.project.entity.course.CourseSchedule;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
@@ -56,4 +57,25 @@ public interface CourseScheduleMapper extends BaseMapper<CourseSchedule> {
             @Param("studentId") String studentId,
             @Param("week") Integer week
     );
+
+    /**
+     * 教师所有课程的有效课程时间（含课程名），用于构建课程表
+     */
+    @Select("SELECT cs.schedule_id, cs.course_id, c.name AS course_name, c.teacher_name, cs.location, " +
+            "cs.day_of_week, cs.start_section, cs.end_section, cs.start_week, cs.end_week " +
+            "FROM course_schedule cs " +
+            "INNER JOIN course c ON cs.course_id = c.id " +
+            "WHERE c.teacher_id = #{teacherId} AND cs.status = 1")
+    List<TimetableEntryDTO> selectTeacherTimetable(@Param("teacherId") String teacherId);
+
+    /**
+     * 学生已加入课程的有效课程时间（含课程名），用于构建课程表
+     */
+    @Select("SELECT DISTINCT cs.schedule_id, cs.course_id, c.name AS course_name, c.teacher_name, cs.location, " +
+            "cs.day_of_week, cs.start_section, cs.end_section, cs.start_week, cs.end_week " +
+            "FROM course_schedule cs " +
+            "INNER JOIN student_course sc ON cs.course_id = sc.course_id " +
+            "INNER JOIN course c ON cs.course_id = c.id " +
+            "WHERE sc.student_id = #{studentId} AND cs.status = 1")
+    List<TimetableEntryDTO> selectStudentTimetable(@Param("studentId") String studentId);
 }
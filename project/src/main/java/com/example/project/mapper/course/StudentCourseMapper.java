@@ -132,4 +132,16 @@ public interface StudentCourseMapper extends BaseMapper<StudentCourse> {
                                         "ORDER BY sc.last_active_time DESC"
         })
         List<Map<String, Object>> getStudentJoinedCourses(@Param("studentId") String studentId);
-}
\ No newline at end of file
+
+        /**
+         * 教师已启用课程中每位学习中学生所在的课程数
+         */
+        @Select({
+                        "SELECT sc.student_id AS studentId, COUNT(*) AS cnt",
+                        "FROM student_course sc",
+                        "INNER JOIN course c ON sc.course_id = c.id",
+                        "WHERE c.teacher_id = #{teacherId} AND c.state = 1 AND sc.status = 1",
+                        "GROUP BY sc.student_id"
+        })
+        List<Map<String, Object>> selectActiveStudentEnrollments(@Param("teacherId") String teacherId);
+}
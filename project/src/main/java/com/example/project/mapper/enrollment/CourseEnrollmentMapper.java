@@ -3,10 +3,37 @@ package com.example.project.mapper.enrollment;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.example.project.entity.enrollment.CourseEnrollment;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 /**
  * 课程报名Mapper
  */
 @Mapper
 public interface CourseEnrollmentMapper extends BaseMapper<CourseEnrollment> {
+
+    /**
+     * 按课程分组统计审核通过的报名人数
+     */
+    @Select("<script>" +
+            "SELECT course_id AS courseId, COUNT(*) AS approvedCount FROM course_enrollment " +
+            "WHERE status = 'approved' AND course_id IN " +
+            "<foreach collection='courseIds' item='id' open='(' separator=',' close=')'>" +
+            "#{id}" +
+            "</foreach>" +
+            " GROUP BY course_id" +
+            "</script>")
+    List<Map<String, Object>> countApprovedByCourseIds(@Param("courseIds") Collection<String> courseIds);
+
+    /**
+     * 统计教师已启用课程下待审核的报名数
+     */
+    @Select("SELECT COUNT(*) FROM course_enrollment ce " +
+            "INNER JOIN course c ON ce.course_id = c.id " +
+            "WHERE c.teacher_id = #{teacherId} AND c.state = 1 AND ce.status = 'pending'")
+    int countPendingByTeacher(@Param("teacherId") String teacherId);
 }
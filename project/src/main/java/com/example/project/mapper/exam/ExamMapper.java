@@ -1,10 +1,19 @@
 package com.example.project.mapper.exam;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.example.project.dto.exam.StudentExamListItemDTO;
 import com.example.project.entity.exam.Exam;
 import com.example.project.entity.course.Course;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
 
 @Mapper
 public interface ExamMapper extends BaseMapper<Exam> {
@@ -14,4 +23,84 @@ public interface ExamMapper extends BaseMapper<Exam> {
      */
     @Select("SELECT * FROM course WHERE id = #{courseId}")
     Course selectCourseById(String courseId);
+
+    /**
+     * 批量查询课程名称（用于考试列表批量填充）
+     */
+    @Select("<script>" +
+            "SELECT id AS courseId, name AS courseName FROM course WHERE id IN " +
+            "<foreach collection='courseIds' item='id' open='(' separator=',' close=')'>" +
+            "#{id}" +
+            "</foreach>" +
+            "</script>")
+    List<Map<String, Object>> selectCourseNamesByIds(@Param("courseIds") Collection<String> courseIds);
+
+    /**
+     * 需要调度的考试：已发布、未结束，且开始或结束时间在 until 之前
+     */
+    @Select("SELECT exam_id, course_id, exam_title, start_time, end_time, lifecycle_status FROM exam " +
+            "WHERE status = 1 AND (lifecycle_status IS NULL OR lifecycle_status <> 'ENDED') " +
+            "AND (start_time <= #{until} OR end_time <= #{until})")
+    List<Exam> selectLifecycleCandidates(@Param("until") Date until);
+
+    /**
+     * 开考：仅在尚未开考时生效，返回 1 表示本次完成了状态转换
+     */
+    @Update("UPDATE exam SET lifecycle_status = 'ONGOING' WHERE exam_id = #{examId} AND status = 1 " +
+            "AND (lifecycle_status IS NULL OR lifecycle_status = 'PUBLISHED')")
+    int markOngoing(@Param("examId") Long examId);
+
+    /**
+     * 结束：仅在尚未结束时生效，返回 1 表示本次完成了状态转换
+     */
+    @Update("UPDATE exam SET lifecycle_status = 'ENDED' WHERE exam_id = #{examId} AND status = 1 " +
+            "AND (lifecycle_status IS NULL OR lifecycle_status <> 'ENDED')")
+    int markEnded(@Param("examId") Long examId);
+
+    /**
+     * 重置考试阶段（发布、撤回、修改时间时调用）
+     */
+    @Update("UPDATE exam SET lifecycle_status = #{lifecycleStatus} WHERE exam_id = #{examId}")
+    int updateLifecycleStatus(@Param("examId") Long examId, @Param("lifecycleStatus") String lifecycleStatus);
+
+    /**
+     * 学生可见的考试列表（分页）
+     * 可见规则：加入课程后发布的考试、加入前发布但未截止的考试、本人已有作答记录的考试；
+     * status 为 ONGOING / FUTURE(PUBLISHED) / ENDED 时按当前时间过滤
+     */
+    @Select("<script>" +
+            "SELECT e.exam_id, e.exam_title, e.course_id, c.name AS course_name, " +
+            "e.start_time, e.end_time, e.duration, e.total_score, e.pass_score, " +
+            "se.student_exam_id, se.obtained_score AS student_score, se.status AS student_status, " +
+            "(COALESCE(se.status, 0) &gt;= 2) AS is_submitted " +
+            "FROM (" +
+            "  SELECT course_id, MIN(COALESCE(join_time, create_time, '1970-01-01')) AS join_time " +
+            "  FROM student_course WHERE student_id = #{studentId} AND status = 1 " +
+            "  <if test='courseId != null'>AND course_id = #{courseId} </if>" +
+            "  GROUP BY course_id" +
+            ") sc " +
+            "JOIN exam e ON e.course_id = sc.course_id AND e.status = 1 " +
+            "LEFT JOIN course c ON c.id = e.course_id " +
+            "LEFT JOIN student_exam se ON se.exam_id = e.exam_id AND se.student_id = #{studentId} " +
+            "WHERE (e.create_time &gt;= sc.join_time OR e.end_time &gt; #{now} OR se.student_exam_id IS NOT NULL) " +
+            "<choose>" +
+            "<when test='\"ONGOING\".equals(status)'>AND e.start_time &lt; #{now} AND e.end_time &gt; #{now} </when>" +
+            "<when test='\"FUTURE\".equals(status) or \"PUBLISHED\".equals(status)'>AND e.start_time &gt; #{now} </when>" +
+            "<when test='\"ENDED\".equals(status)'>AND e.end_time &lt; #{now} </when>" +
+            "</choose>" +
+            "ORDER BY e.create_time DESC, e.exam_id DESC" +
+            "</script>")
+    IPage<StudentExamListItemDTO> selectStudentExamPage(IPage<StudentExamListItemDTO> page,
+                                                        @Param("studentId") String studentId,
+                                                        @Param("courseId") String courseId,
+                                                        @Param("status") String status,
+                                                        @Param("now") Date now);
+
+    /**
+     * 统计教师已启用课程下已发布的考试数
+     */
+    @Select("SELECT COUNT(*) FROM exam e " +
+            "INNER JOIN course c ON e.course_id = c.id " +
+            "WHERE c.teacher_id = #{teacherId} AND c.state = 1 AND e.status = 1")
+    int countPublishedByTeacher(@Param("teacherId") String teacherId);
 }
@@ -0,0 +1,91 @@
+package com.example.project.mapper.exam;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.example.project.entity.exam.ExamSubmission;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.Date;
+import java.util.List;
+
+@Mapper
+public interface ExamSubmissionMapper extends BaseMapper<ExamSubmission> {
+
+    /**
+     * 受理提交，(exam_id, student_id) 已存在时不插入，返回 0
+     */
+    @Insert("INSERT IGNORE INTO exam_submission (exam_id, student_id, payload, status, attempts, create_time, update_time) " +
+            "VALUES (#{examId}, #{studentId}, #{payload}, 'PENDING', 0, NOW(), NOW())")
+    @Options(useGeneratedKeys = true, keyProperty = "id")
+    int insertIgnore(ExamSubmission submission);
+
+    /**
+     * 按唯一键查询受理记录
+     */
+    @Select("SELECT * FROM exam_submission WHERE exam_id = #{examId} AND student_id = #{studentId}")
+    ExamSubmission selectByKey(@Param("examId") Long examId, @Param("studentId") String studentId);
+
+    /**
+     * 领取待判分的提交，返回 1 表示领取成功
+     */
+    @Update("UPDATE exam_submission SET status = 'PROCESSING', attempts = attempts + 1, update_time = NOW() " +
+            "WHERE id = #{id} AND status = 'PENDING'")
+    int claim(@Param("id") Long id);
+
+    /**
+     * 更新受理状态
+     */
+    @Update("UPDATE exam_submission SET status = #{status}, error_message = #{errorMessage}, update_time = NOW() " +
+            "WHERE id = #{id}")
+    int updateStatus(@Param("id") Long id, @Param("status") String status, @Param("errorMessage") String errorMessage);
+
+    /**
+     * 失败的提交允许学生重新提交（受理时间更新为本次提交时间）
+     */
+    @Update("UPDATE exam_submission SET status = 'PENDING', payload = #{payload}, error_message = NULL, " +
+            "create_time = NOW(), update_time = NOW() " +
+            "WHERE id = #{id} AND status = 'FAILED'")
+    int reopenFailed(@Param("id") Long id, @Param("payload") String payload);
+
+    /**
+     * 将长时间停留在判分中的记录（如进程崩溃）放回待判分队列
+     */
+    @Update("UPDATE exam_submission SET status = 'PENDING', update_time = NOW() " +
+            "WHERE status = 'PROCESSING' AND update_time < #{before}")
+    int requeueStale(@Param("before") Date before);
+
+    /**
+     * 按受理顺序获取待判分的提交
+     */
+    @Select("SELECT id FROM exam_submission WHERE status = 'PENDING' ORDER BY id LIMIT #{limit}")
+    List<Long> selectPendingIds(@Param("limit") int limit);
+
+    /**
+     * 某场考试待判分的提交
+     */
+    @Select("SELECT id FROM exam_submission WHERE exam_id = #{examId} AND status = 'PENDING' ORDER BY id")
+    List<Long> selectPendingIdsByExam(@Param("examId") Long examId);
+
+    /**
+     * 某场考试尚未判分完成（待判分、判分中）的提交数
+     */
+    @Select("SELECT COUNT(*) FROM exam_submission WHERE exam_id = #{examId} AND status IN ('PENDING', 'PROCESSING')")
+    int countLiveByExam(@Param("examId") Long examId);
+
+    /**
+     * 删除受理记录（退回试卷后允许重新提交）
+     */
+    @Delete("DELETE FROM exam_submission WHERE exam_id = #{examId} AND student_id = #{studentId}")
+    int deleteByKey(@Param("examId") Long examId, @Param("studentId") String studentId);
+
+    /**
+     * 删除考试的全部受理记录
+     */
+    @Delete("DELETE FROM exam_submission WHERE exam_id = #{examId}")
+    int deleteByExamId(@Param("examId") Long examId);
+}
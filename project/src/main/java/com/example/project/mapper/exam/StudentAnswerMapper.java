@@ -1,9 +1,137 @@
 package com.example.project.mapper.exam;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.example.project.dto.exam.ExamAnswerExportRow;
 import com.example.project.entity.exam.StudentAnswer;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
+
+import java.math.BigDecimal;
+import java.util.List;
 
 @Mapper
 public interface StudentAnswerMapper extends BaseMapper<StudentAnswer> {
+
+    /**
+     * 批量插入答题记录（单条多行 INSERT）
+     */
+    @Insert("<script>" +
+            "INSERT INTO student_answer (student_exam_id, question_id, student_answer, is_correct, score, teacher_comment) VALUES " +
+            "<foreach collection='answers' item='a' separator=','>" +
+            "(#{a.studentExamId}, #{a.questionId}, #{a.studentAnswer}, #{a.isCorrect}, #{a.score}, #{a.teacherComment})" +
+            "</foreach>" +
+            "</script>")
+    int insertBatch(@Param("answers") List<StudentAnswer> answers);
+
+    /**
+     * 批量更新判分结果（单条 CASE 语句）
+     * 字段为 null 时保留原值，与 updateById 忽略 null 字段的行为一致；
+     * 仅更新属于 studentExamId 的答题记录
+     */
+    @Update("<script>" +
+            "UPDATE student_answer SET " +
+            "is_correct = CASE answer_id " +
+            "<foreach collection='answers' item='a'>" +
+            "WHEN #{a.answerId} THEN COALESCE(#{a.isCorrect,jdbcType=INTEGER}, is_correct) " +
+            "</foreach>" +
+            "END, " +
+            "score = CASE answer_id " +
+            "<foreach collection='answers' item='a'>" +
+            "WHEN #{a.answerId} THEN COALESCE(#{a.score,jdbcType=DECIMAL}, score) " +
+            "</foreach>" +
+            "END, " +
+            "teacher_comment = CASE answer_id " +
+            "<foreach collection='answers' item='a'>" +
+            "WHEN #{a.answerId} THEN COALESCE(#{a.teacherComment,jdbcType=VARCHAR}, teacher_comment) " +
+            "</foreach>" +
+            "END " +
+            "WHERE student_exam_id = #{studentExamId} AND answer_id IN " +
+            "<foreach collection='answers' item='a' open='(' separator=',' close=')'>" +
+            "#{a.answerId}" +
+            "</foreach>" +
+            "</script>")
+    int batchUpdateGrades(@Param("studentExamId") Long studentExamId, @Param("answers") List<StudentAnswer> answers);
+
+    /**
+     * 批量更新客观题判分结果（跨试卷，用于重新判分）
+     */
+    @Update("<script>" +
+            "UPDATE student_answer SET " +
+            "is_correct = CASE answer_id " +
+            "<foreach collection='answers' item='a'>" +
+            "WHEN #{a.answerId} THEN #{a.isCorrect} " +
+            "</foreach>" +
+            "END, " +
+            "score = CASE answer_id " +
+            "<foreach collection='answers' item='a'>" +
+            "WHEN #{a.answerId} THEN #{a.score} " +
+            "</foreach>" +
+            "END " +
+            "WHERE answer_id IN " +
+            "<foreach collection='answers' item='a' open='(' separator=',' close=')'>" +
+            "#{a.answerId}" +
+            "</foreach>" +
+            "</script>")
+    int batchUpdateObjectiveGrades(@Param("answers") List<StudentAnswer> answers);
+
+    /**
+     * 按 (student_exam_id, question_id) 批量删除答题记录（用于覆盖草稿答案）
+     */
+    @Delete("<script>" +
+            "DELETE FROM student_answer WHERE (student_exam_id, question_id) IN " +
+            "<foreach collection='answers' item='a' open='(' separator=',' close=')'>" +
+            "(#{a.studentExamId}, #{a.questionId})" +
+            "</foreach>" +
+            "</script>")
+    int deleteByPaperAndQuestion(@Param("answers") List<StudentAnswer> answers);
+
+    /**
+     * 游标读取考试答题明细（用于导出，需在事务内遍历）
+     */
+    @Select("SELECT se.student_id, COALESCE(su.students_username, '未知学生') AS student_name, " +
+            "eq.question_order, eq.question_type, eq.question_content, sa.student_answer, " +
+            "eq.answer AS correct_answer, sa.is_correct, sa.score, eq.score AS question_score, sa.teacher_comment " +
+            "FROM student_exam se " +
+            "JOIN student_answer sa ON sa.student_exam_id = se.student_exam_id " +
+            "LEFT JOIN exam_question eq ON eq.question_id = sa.question_id " +
+            "LEFT JOIN student_user su ON su.students_id = se.student_id " +
+            "WHERE se.exam_id = #{examId} " +
+            "ORDER BY se.student_exam_id, eq.question_order")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+    Cursor<ExamAnswerExportRow> cursorAnswersForExport(@Param("examId") Long examId);
+
+    /**
+     * 汇总试卷得分
+     */
+    @Select("SELECT COALESCE(SUM(score), 0) FROM student_answer WHERE student_exam_id = #{studentExamId}")
+    BigDecimal sumScore(@Param("studentExamId") Long studentExamId);
+
+    /**
+     * 分批插入答题记录，每批一条语句
+     */
+    default int insertInChunks(List<StudentAnswer> answers, int chunkSize) {
+        int rows = 0;
+        for (int from = 0; from < answers.size(); from += chunkSize) {
+            rows += insertBatch(answers.subList(from, Math.min(from + chunkSize, answers.size())));
+        }
+        return rows;
+    }
+
+    /**
+     * 分批更新判分结果，每批一条语句
+     */
+    default int updateGradesInChunks(Long studentExamId, List<StudentAnswer> answers, int chunkSize) {
+        int rows = 0;
+        for (int from = 0; from < answers.size(); from += chunkSize) {
+            rows += batchUpdateGrades(studentExamId, answers.subList(from, Math.min(from + chunkSize, answers.size())));
+        }
+        return rows;
+    }
 }
@@ -1,9 +1,148 @@
 package com.example.project.mapper.exam;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.example.project.dto.exam.GradebookEntryRow;
+import com.example.project.dto.exam.StudentExamStatusDTO;
 import com.example.project.entity.exam.StudentExam;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.ResultType;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
+import org.apache.ibatis.session.ResultHandler;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
 
 @Mapper
 public interface StudentExamMapper extends BaseMapper<StudentExam> {
+
+    /**
+     * 选课学生 + 学生姓名 + 本场考试作答记录（审核通过的报名，按报名顺序）
+     */
+    String STUDENT_STATUS_SQL = "SELECT ce.student_id, " +
+            "COALESCE(su.students_username, '未知学生') AS student_name, " +
+            "se.student_exam_id, COALESCE(se.status, 0) AS status, se.obtained_score, se.submit_time " +
+            "FROM course_enrollment ce " +
+            "LEFT JOIN student_user su ON su.students_id = ce.student_id " +
+            "LEFT JOIN student_exam se ON se.exam_id = #{examId} AND se.student_id = ce.student_id " +
+            "WHERE ce.course_id = #{courseId} AND ce.status = 'approved' " +
+            "ORDER BY ce.id";
+
+    @Select(STUDENT_STATUS_SQL)
+    List<StudentExamStatusDTO> selectStudentStatus(@Param("examId") Long examId, @Param("courseId") String courseId);
+
+    @Select(STUDENT_STATUS_SQL)
+    IPage<StudentExamStatusDTO> selectStudentStatusPage(IPage<StudentExamStatusDTO> page,
+                                                        @Param("examId") Long examId,
+                                                        @Param("courseId") String courseId);
+
+    /**
+     * 逐行回调（MySQL 流式结果集，内存占用与学生人数无关）
+     */
+    @Select(STUDENT_STATUS_SQL)
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+    @ResultType(StudentExamStatusDTO.class)
+    void streamStudentStatus(@Param("examId") Long examId, @Param("courseId") String courseId,
+                             ResultHandler<StudentExamStatusDTO> handler);
+
+    /**
+     * 考试结束时批量交卷：按试卷写入状态（2-待批改 / 3-已批改）和客观题得分，仅作用于仍在作答中的试卷
+     */
+    @Update("<script>" +
+            "UPDATE student_exam SET " +
+            "status = CASE student_exam_id " +
+            "<foreach collection='papers' item='p'>" +
+            "WHEN #{p.studentExamId} THEN #{p.status} " +
+            "</foreach>" +
+            "END, " +
+            "obtained_score = CASE student_exam_id " +
+            "<foreach collection='papers' item='p'>" +
+            "WHEN #{p.studentExamId} THEN #{p.obtainedScore} " +
+            "</foreach>" +
+            "END, " +
+            "submit_time = #{submitTime} " +
+            "WHERE status = 1 AND student_exam_id IN " +
+            "<foreach collection='papers' item='p' open='(' separator=',' close=')'>" +
+            "#{p.studentExamId}" +
+            "</foreach>" +
+            "</script>")
+    int autoSubmitPapers(@Param("papers") List<StudentExam> papers, @Param("submitTime") Date submitTime);
+
+    /**
+     * 按考试分组统计已提交人数（status >= 2: 已提交 / 已批改）
+     */
+    @Select("<script>" +
+            "SELECT exam_id AS examId, COUNT(*) AS submittedCount FROM student_exam " +
+            "WHERE status &gt;= 2 AND exam_id IN " +
+            "<foreach collection='examIds' item='id' open='(' separator=',' close=')'>" +
+            "#{id}" +
+            "</foreach>" +
+            " GROUP BY exam_id" +
+            "</script>")
+    List<Map<String, Object>> countSubmittedByExamIds(@Param("examIds") Collection<Long> examIds);
+
+    /**
+     * 游标读取考试成绩（用于导出，需在事务内遍历）
+     */
+    @Select(STUDENT_STATUS_SQL)
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+    Cursor<StudentExamStatusDTO> cursorStudentStatus(@Param("examId") Long examId, @Param("courseId") String courseId);
+
+    /**
+     * 游标读取课程成绩册：每个选课学生在本课程各考试中的记录，同一学生的行连续
+     */
+    @Select("SELECT ce.id AS enrollment_id, ce.student_id, " +
+            "COALESCE(su.students_username, '未知学生') AS student_name, " +
+            "se.exam_id, se.status, se.obtained_score " +
+            "FROM course_enrollment ce " +
+            "LEFT JOIN student_user su ON su.students_id = ce.student_id " +
+            "LEFT JOIN student_exam se ON se.student_id = ce.student_id " +
+            "AND se.exam_id IN (SELECT exam_id FROM exam WHERE course_id = #{courseId}) " +
+            "WHERE ce.course_id = #{courseId} AND ce.status = 'approved' " +
+            "ORDER BY ce.id")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+    Cursor<GradebookEntryRow> cursorGradebook(@Param("courseId") String courseId);
+
+    /**
+     * 同一考试中下一份待批改（已提交未批改）的试卷，按提交时间排序
+     */
+    @Select("SELECT student_exam_id FROM student_exam " +
+            "WHERE exam_id = #{examId} AND status = 2 AND student_exam_id <> #{excludeId} " +
+            "ORDER BY submit_time, student_exam_id LIMIT 1")
+    Long selectNextUngraded(@Param("examId") Long examId, @Param("excludeId") Long excludeId);
+
+    /**
+     * 锁定仍在作答中（未提交）的试卷，返回其ID
+     * 与提交试卷时的行锁配合，保证草稿写入不会覆盖已提交的答案
+     */
+    @Select("<script>" +
+            "SELECT student_exam_id FROM student_exam WHERE status &lt; 2 AND student_exam_id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>" +
+            "#{id}" +
+            "</foreach>" +
+            " FOR UPDATE" +
+            "</script>")
+    List<Long> lockInProgress(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 按答题记录重新汇总试卷得分
+     */
+    @Update("<script>" +
+            "UPDATE student_exam se JOIN (" +
+            "SELECT student_exam_id, COALESCE(SUM(score), 0) AS total FROM student_answer WHERE student_exam_id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>" +
+            "#{id}" +
+            "</foreach>" +
+            " GROUP BY student_exam_id" +
+            ") t ON se.student_exam_id = t.student_exam_id " +
+            "SET se.obtained_score = t.total" +
+            "</script>")
+    int refreshObtainedScores(@Param("ids") Collection<Long> ids);
 }
@@ -3,7 +3,18 @@ package com.example.project.mapper.homework;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.example.project.entity.homework.StudentLabReport;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
 
 @Mapper
 public interface StudentLabReportMapper extends BaseMapper<StudentLabReport> {
+
+    /**
+     * 统计教师已启用课程下已提交待批改的作业数
+     */
+    @Select("SELECT COUNT(*) FROM student_lab_report slr " +
+            "INNER JOIN lab_report lr ON slr.report_id = lr.report_id " +
+            "INNER JOIN course c ON lr.course_id = c.id " +
+            "WHERE c.teacher_id = #{teacherId} AND c.state = 1 AND slr.status = 1")
+    int countPendingByTeacher(@Param("teacherId") String teacherId);
 }
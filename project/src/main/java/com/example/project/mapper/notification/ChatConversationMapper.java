@@ -0,0 +1,101 @@
+package com.example.project.mapper.notification;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.example.project.entity.notification.ChatConversation;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.List;
+import java.util.Map;
+
+@Mapper
+public interface ChatConversationMapper extends BaseMapper<ChatConversation> {
+
+    /**
+     * 新消息写入双方的会话行：不存在则插入，存在则更新最后一条消息并累加未读数
+     * 只接受比现有更新的消息，避免乱序提交把最后一条消息改回旧值
+     */
+    @Insert("<script>" +
+            "INSERT INTO chat_conversation (owner_id, owner_role, peer_id, peer_role, conversation_key, " +
+            "last_message_id, last_message, last_time, unread_count, update_time) VALUES " +
+            "<foreach collection='rows' item='r' separator=','>" +
+            "(#{r.ownerId}, #{r.ownerRole}, #{r.peerId}, #{r.peerRole}, #{r.conversationKey}, " +
+            "#{r.lastMessageId}, #{r.lastMessage}, #{r.lastTime}, #{r.unreadCount}, NOW())" +
+            "</foreach>" +
+            " ON DUPLICATE KEY UPDATE " +
+            "last_message = IF(VALUES(last_message_id) &gt; last_message_id, VALUES(last_message), last_message), " +
+            "last_time = IF(VALUES(last_message_id) &gt; last_message_id, VALUES(last_time), last_time), " +
+            "last_message_id = GREATEST(last_message_id, VALUES(last_message_id)), " +
+            "unread_count = unread_count + VALUES(unread_count), " +
+            "update_time = NOW()" +
+            "</script>")
+    int upsertOnMessage(@Param("rows") List<ChatConversation> rows);
+
+    /**
+     * 标记已读：扣减实际置为已读的消息数
+     */
+    @Update("UPDATE chat_conversation SET unread_count = GREATEST(unread_count - #{count}, 0), update_time = NOW() " +
+            "WHERE owner_role = #{ownerRole} AND owner_id = #{ownerId} AND peer_role = #{peerRole} AND peer_id = #{peerId}")
+    int decreaseUnread(@Param("ownerId") String ownerId, @Param("ownerRole") String ownerRole,
+            @Param("peerId") String peerId, @Param("peerRole") String peerRole, @Param("count") int count);
+
+    /**
+     * 联系人列表：按 (owner_role, owner_id, last_time) 索引倒序读取
+     */
+    @Select("<script>" +
+            "SELECT peer_id AS contactId, peer_role AS contactType, last_message AS lastMessage, " +
+            "last_time AS lastTime, unread_count AS unreadCount " +
+            "FROM chat_conversation " +
+            "WHERE owner_role = #{userType} AND owner_id = #{userId} " +
+            "<if test=\"userType != 'ADMIN'\">" +
+            "AND peer_role != 'ADMIN' " +
+            "</if>" +
+            "ORDER BY last_time DESC" +
+            "</script>")
+    List<Map<String, Object>> selectContactList(@Param("userId") String userId, @Param("userType") String userType);
+
+    /**
+     * 回填：从 chat_message 重新统计一批会话（双方各一行）
+     * 仅覆盖最后一条消息不比统计结果更新的行，统计期间写入的新消息不会被回退
+     */
+    @Insert("<script>" +
+            "INSERT INTO chat_conversation (owner_id, owner_role, peer_id, peer_role, conversation_key, " +
+            "last_message_id, last_message, last_time, unread_count, update_time) " +
+            "SELECT t.owner_id, t.owner_role, t.peer_id, t.peer_role, t.conversation_key, " +
+            "t.last_id, LEFT(m.content, 200), m.create_time, t.unread, NOW() " +
+            "FROM (" +
+            "SELECT x.owner_id, x.owner_role, x.peer_id, x.peer_role, x.conversation_key, " +
+            "MAX(x.id) AS last_id, SUM(x.unread) AS unread FROM (" +
+            "SELECT receiver_id AS owner_id, UPPER(receiver_role) AS owner_role, sender_id AS peer_id, " +
+            "UPPER(sender_role) AS peer_role, conversation_key, id, IF(is_read = 0, 1, 0) AS unread " +
+            "FROM chat_message WHERE conversation_key IN " +
+            "<foreach collection='keys' item='k' open='(' separator=',' close=')'>#{k}</foreach> " +
+            "UNION ALL " +
+            "SELECT sender_id, UPPER(sender_role), receiver_id, UPPER(receiver_role), conversation_key, id, 0 " +
+            "FROM chat_message WHERE conversation_key IN " +
+            "<foreach collection='keys' item='k' open='(' separator=',' close=')'>#{k}</foreach>" +
+            ") x GROUP BY x.owner_id, x.owner_role, x.peer_id, x.peer_role, x.conversation_key" +
+            ") t JOIN chat_message m ON m.id = t.last_id " +
+            "ON DUPLICATE KEY UPDATE " +
+            "unread_count = IF(VALUES(last_message_id) &gt;= last_message_id, VALUES(unread_count), unread_count), " +
+            "last_message = IF(VALUES(last_message_id) &gt;= last_message_id, VALUES(last_message), last_message), " +
+            "last_time = IF(VALUES(last_message_id) &gt;= last_message_id, VALUES(last_time), last_time), " +
+            "last_message_id = GREATEST(last_message_id, VALUES(last_message_id)), " +
+            "update_time = NOW()" +
+            "</script>")
+    int rebuildConversations(@Param("keys") List<String> keys);
+
+    /**
+     * 回填：按 conversation_key 顺序分批读取 chat_message 中的会话标识
+     */
+    @Select("<script>" +
+            "SELECT DISTINCT conversation_key FROM chat_message " +
+            "WHERE conversation_key IS NOT NULL " +
+            "<if test='afterKey != null'>AND conversation_key &gt; #{afterKey} </if>" +
+            "ORDER BY conversation_key LIMIT #{limit}" +
+            "</script>")
+    List<String> selectMessageConversationKeys(@Param("afterKey") String afterKey, @Param("limit") int limit);
+}
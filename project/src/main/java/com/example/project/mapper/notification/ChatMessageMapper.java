@@ -12,42 +12,6 @@ import java.util.Map;
 @Mapper
 public interface ChatMessageMapper extends BaseMapper<ChatMessage> {
 
-        /**
-         * 获取聊天联系人列表
-         * 
-         * @param userId   当前用户ID
-         * @param userType 当前用户类型
-         */
-        @Select("<script>" +
-                        "SELECT " +
-                        "    u.other_id as contactId, " +
-                        "    u.other_type as contactType, " +
-                        "    m.content as lastMessage, " +
-                        "    m.create_time as lastTime, " +
-                        "    (SELECT COUNT(*) FROM chat_message WHERE receiver_id = #{userId} AND receiver_role = #{userType} AND sender_id = u.other_id AND is_read = 0) as unreadCount "
-                        +
-                        "FROM (" +
-                        "    SELECT sender_id as other_id, sender_role as other_type FROM chat_message WHERE receiver_id = #{userId} AND receiver_role = #{userType} "
-                        +
-                        "    UNION " +
-                        "    SELECT receiver_id as other_id, receiver_role as other_type FROM chat_message WHERE sender_id = #{userId} AND sender_role = #{userType} "
-                        +
-                        ") u " +
-                        "LEFT JOIN chat_message m ON m.id = (" +
-                        "    SELECT id FROM chat_message " +
-                        "    WHERE (sender_id = #{userId} AND sender_role = #{userType} AND receiver_id = u.other_id AND receiver_role = u.other_type) "
-                        +
-                        "       OR (sender_id = u.other_id AND sender_role = u.other_type AND receiver_id = #{userId} AND receiver_role = #{userType}) "
-                        +
-                        "    ORDER BY create_time DESC LIMIT 1" +
-                        ") " +
-                        "WHERE 1=1 " +
-                        "<if test=\"userType != 'ADMIN'\">" +
-                        "    AND u.other_type != 'ADMIN' " +
-                        "</if>" +
-                        "</script>")
-        List<Map<String, Object>> getContactList(@Param("userId") String userId, @Param("userType") String userType);
-
         /**
          * 教师获取有活跃课程关联的学生列表作为联系人
          */
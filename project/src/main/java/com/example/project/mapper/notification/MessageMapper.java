@@ -3,38 +3,54 @@ package com.example.project.mapper.notification;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.example.project.entity.notification.Message;
 import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 
+import java.util.Date;
 import java.util.List;
 
 @Mapper
 public interface MessageMapper extends BaseMapper<Message> {
 
     /**
-     * 查询消息列表（包含发送者动态关联信息）
-     * 逻辑：
-     * 1. 优先从 message 表关联 sender_id
-     * 2. 如果是互动消息(INTERACTION)，则从 course_comment 表穿透关联评论作者
+     * 分页查询消息列表，已读状态、消息类型在 SQL 中过滤
+     * 传入 cursorTime/cursorId 时按 (create_time, message_id) 游标翻页，否则按 offset 翻页
      */
-    @Select("SELECT m.*, " +
-            "COALESCE(s1.students_username, t1.teacher_username, s2.students_username, t2.teacher_username, '系统') as senderName, "
-            +
-            "COALESCE(s1.students_head, t1.teacher_head, s2.students_head, t2.teacher_head, '/uploads/avatar/default.png') as senderAvatar, "
-            +
-            "cc.course_id as courseId " +
-            "FROM message m " +
-            "LEFT JOIN student_user s1 ON m.sender_type = 'STUDENT' AND m.sender_id = s1.students_id " +
-            "LEFT JOIN teacher_user t1 ON m.sender_type = 'TEACHER' AND m.sender_id = t1.teacher_id " +
-            "LEFT JOIN course_comment cc ON m.message_type = 'INTERACTION' AND m.related_id = CAST(cc.comment_id AS CHAR) "
-            +
-            "LEFT JOIN student_user s2 ON cc.user_type = 'STUDENT' AND cc.user_id = s2.students_id " +
-            "LEFT JOIN teacher_user t2 ON cc.user_type = 'TEACHER' AND cc.user_id = t2.teacher_id " +
-            "WHERE m.receiver_id = #{receiverId} AND m.receiver_type = #{receiverType} " +
-            "ORDER BY m.create_time DESC")
-    List<Message> selectMessagesWithSenderInfo(@Param("receiverId") String receiverId,
-            @Param("receiverType") String receiverType);
+    @Select("<script>" +
+            "SELECT * FROM message " +
+            "WHERE receiver_id = #{receiverId} AND receiver_type = #{receiverType} " +
+            "<if test='isRead != null'>AND is_read = #{isRead} </if>" +
+            "<if test='messageType != null'>AND message_type = #{messageType} </if>" +
+            "<if test='cursorTime != null'>" +
+            "AND (create_time &lt; #{cursorTime} OR (create_time = #{cursorTime} AND message_id &lt; #{cursorId})) " +
+            "</if>" +
+            "ORDER BY create_time DESC, message_id DESC " +
+            "LIMIT #{offset}, #{limit}" +
+            "</script>")
+    List<Message> selectMessagePage(@Param("receiverId") String receiverId,
+            @Param("receiverType") String receiverType,
+            @Param("isRead") Integer isRead,
+            @Param("messageType") String messageType,
+            @Param("cursorTime") Date cursorTime,
+            @Param("cursorId") Long cursorId,
+            @Param("offset") int offset,
+            @Param("limit") int limit);
+
+    /**
+     * 统计消息数（与 selectMessagePage 相同的过滤条件）
+     */
+    @Select("<script>" +
+            "SELECT COUNT(*) FROM message " +
+            "WHERE receiver_id = #{receiverId} AND receiver_type = #{receiverType} " +
+            "<if test='isRead != null'>AND is_read = #{isRead} </if>" +
+            "<if test='messageType != null'>AND message_type = #{messageType} </if>" +
+            "</script>")
+    long countMessages(@Param("receiverId") String receiverId,
+            @Param("receiverType") String receiverType,
+            @Param("isRead") Integer isRead,
+            @Param("messageType") String messageType);
 
     /**
      * 根据 related_id 删除消息（用于删除评论时同步删除通知）
@@ -52,4 +68,46 @@ public interface MessageMapper extends BaseMapper<Message> {
             "</foreach>" +
             "</script>")
     int deleteByRelatedIds(@Param("relatedIds") List<String> relatedIds);
-}
\ No newline at end of file
+
+    /**
+     * 群发：一次查询解析接收人，返回的消息只填充 receiverId、receiverType
+     */
+    @Select("<script>" +
+            "<choose>" +
+            "<when test=\"targetType == 'COURSE'\">" +
+            "SELECT DISTINCT student_id AS receiver_id, 'STUDENT' AS receiver_type FROM student_course " +
+            "WHERE course_id = #{targetId} AND status = 1" +
+            "</when>" +
+            "<when test=\"targetType == 'CLASS'\">" +
+            "SELECT DISTINCT student_id AS receiver_id, 'STUDENT' AS receiver_type FROM class_student " +
+            "WHERE class_id = #{targetId} AND status = 1" +
+            "</when>" +
+            "<when test=\"targetId == 'STUDENT'\">" +
+            "SELECT CAST(students_id AS CHAR) AS receiver_id, 'STUDENT' AS receiver_type FROM student_user" +
+            "</when>" +
+            "<when test=\"targetId == 'TEACHER'\">" +
+            "SELECT CAST(teacher_id AS CHAR) AS receiver_id, 'TEACHER' AS receiver_type FROM teacher_user" +
+            "</when>" +
+            "<otherwise>" +
+            "SELECT CAST(students_id AS CHAR) AS receiver_id, 'STUDENT' AS receiver_type FROM student_user " +
+            "UNION ALL " +
+            "SELECT CAST(teacher_id AS CHAR), 'TEACHER' FROM teacher_user" +
+            "</otherwise>" +
+            "</choose>" +
+            "</script>")
+    List<Message> selectBroadcastRecipients(@Param("targetType") String targetType,
+            @Param("targetId") String targetId);
+
+    /**
+     * 多行插入消息，每批一条语句
+     */
+    @Insert("<script>" +
+            "INSERT INTO message (receiver_id, receiver_type, message_type, title, content, related_id, is_read, " +
+            "sender_id, sender_type, create_time) VALUES " +
+            "<foreach collection='messages' item='m' separator=','>" +
+            "(#{m.receiverId}, #{m.receiverType}, #{m.messageType}, #{m.title}, #{m.content}, #{m.relatedId}, " +
+            "#{m.isRead}, #{m.senderId}, #{m.senderType}, #{m.createTime})" +
+            "</foreach>" +
+            "</script>")
+    int insertBatch(@Param("messages") List<Message> messages);
+}
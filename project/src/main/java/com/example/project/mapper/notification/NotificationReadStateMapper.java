@@ -0,0 +1,26 @@
+package com.example.project.mapper.notification;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.example.project.entity.notification.NotificationReadState;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+@Mapper
+public interface NotificationReadStateMapper extends BaseMapper<NotificationReadState> {
+
+    /**
+     * 批量写回阅读状态（按 user_role + user_id 覆盖）
+     */
+    @Insert("<script>" +
+            "INSERT INTO notification_read_state (user_id, user_role, high_water, read_ids, update_time) VALUES " +
+            "<foreach collection='states' item='s' separator=','>" +
+            "(#{s.userId}, #{s.userRole}, #{s.highWater}, #{s.readIds}, #{s.updateTime})" +
+            "</foreach>" +
+            " ON DUPLICATE KEY UPDATE high_water = VALUES(high_water), read_ids = VALUES(read_ids), " +
+            "update_time = VALUES(update_time)" +
+            "</script>")
+    int upsertBatch(@Param("states") List<NotificationReadState> states);
+}
@@ -1,5 +1,6 @@
 package com.example.project.service;
 
+import com.example.project.dto.ActivityFeedItemDTO;
 import com.example.project.dto.DashboardStatisticsDTO;
 import com.example.project.dto.TodoItemDTO;
 import com.example.project.entity.course.Course;
@@ -11,6 +12,12 @@ import java.util.Map;
  * Dashboard服务接口
  */
 public interface DashboardService {
+
+    /**
+     * 获取主页全部数据：教师课程只加载一次，各板块并行加载，
+     * 单个板块失败或超时不影响其他板块（该板块为 null，原因见 errors，耗时见 timings）
+     */
+    Map<String, Object> getDashboard(String teacherId, Integer recentLimit, Integer messageLimit);
     
     /**
      * 获取统计数据
@@ -30,7 +37,15 @@ public interface DashboardService {
     /**
      * 获取最近留言
      */
-    List<Map<String, Object>> getRecentMessages(String teacherId, Integer limit);
+    List<ActivityFeedItemDTO> getRecentMessages(String teacherId, Integer limit);
+
+    /**
+     * 获取教师动态（作业提交、考试提交、选课申请、学生评论），按时间倒序游标分页
+     *
+     * @param cursor 上一页返回的 nextCursor，首页传 null
+     * @return list、hasMore、nextCursor（仍有下一页时）
+     */
+    Map<String, Object> getActivityFeed(String teacherId, Integer limit, String cursor);
     
     /**
      * 获取本周课程表
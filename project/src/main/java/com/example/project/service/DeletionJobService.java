@@ -0,0 +1,25 @@
+package com.example.project.service;
+
+import com.example.project.entity.DeletionJob;
+
+import java.util.List;
+
+public interface DeletionJobService {
+
+    /**
+     * 登记级联删除任务（主记录需由调用方在同一事务中删除），事务提交后开始后台清理
+     *
+     * @return 任务ID
+     */
+    Long enqueue(String targetType, String targetId);
+
+    /**
+     * 查询任务进度
+     */
+    DeletionJob getJob(Long jobId);
+
+    /**
+     * 查询某个删除对象的任务
+     */
+    List<DeletionJob> getJobsByTarget(String targetType, String targetId);
+}
@@ -5,6 +5,7 @@ import com.baomidou.mybatisplus.extension.service.IService;
 import com.example.project.entity.SensitiveWord;
 
 import java.util.List;
+import java.util.Map;
 
 public interface SensitiveWordService extends IService<SensitiveWord> {
 
@@ -24,6 +25,17 @@ public interface SensitiveWordService extends IService<SensitiveWord> {
      */
     String filterText(String text);
 
+    /**
+     * Check text in one pass: matched words grouped by action (REPLACE/BLOCK/REVIEW), highest level and
+     * filtered text (only REPLACE words are masked; callers reject on "blocked" and flag on "needsReview")
+     */
+    Map<String, Object> checkText(String text);
+
+    /**
+     * Rebuild the in-memory matcher from active words (call after any change to the word list)
+     */
+    void reload();
+
     /**
      * Import multiple words
      */
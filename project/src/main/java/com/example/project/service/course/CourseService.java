@@ -36,9 +36,11 @@ public interface CourseService {
                      MultipartFile image);
     
     /**
-     * 删除课程
+     * 删除课程（关联数据由后台任务清理）
+     *
+     * @return 清理任务ID
      */
-    void deleteCourse(String courseId, String teacherId);
+    Long deleteCourse(String courseId, String teacherId);
     
     /**
      * 切换课程状态（公开/私密）
@@ -17,6 +17,7 @@ import com.example.project.service.course.CourseCommentService;
 import com.example.project.service.notification.MessageService;
 import com.example.project.service.SensitiveWordService;
 import com.example.project.mapper.notification.MessageMapper;
+import com.example.project.service.notification.impl.UnreadCounters;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -52,16 +53,17 @@ public class CourseCommentServiceImpl implements CourseCommentService {
     @Autowired
     private MessageMapper messageMapper;
 
+    @Autowired
+    private UnreadCounters unreadCounters;
+
     @Autowired
     private SensitiveWordService sensitiveWordService;
 
     @Override
     @Transactional
     public CourseComment addComment(CourseComment comment) {
-        // 敏感词拦截检查
-        if (sensitiveWordService != null && sensitiveWordService.hasSensitiveWords(comment.getContent())) {
-            throw new RuntimeException("建议内容经过合规性检查：检测到不当言论，请修改后发布");
-        }
+        // 敏感词检查：BLOCK 拒绝发布，REPLACE 替换后保存，REVIEW 标记待复核
+        checkSensitiveWords(comment, "建议内容经过合规性检查：检测到不当言论，请修改后发布");
 
         comment.setCreateTime(new Date());
         courseCommentMapper.insert(comment);
@@ -108,10 +110,8 @@ public class CourseCommentServiceImpl implements CourseCommentService {
     @Override
     @Transactional
     public CourseComment replyComment(CourseComment comment) {
-        // 敏感词拦截检查
-        if (sensitiveWordService != null && sensitiveWordService.hasSensitiveWords(comment.getContent())) {
-            throw new RuntimeException("回复内容包含受限词汇，请文明用语");
-        }
+        // 敏感词检查：BLOCK 拒绝发布，REPLACE 替换后保存，REVIEW 标记待复核
+        checkSensitiveWords(comment, "回复内容包含受限词汇，请文明用语");
 
         // 逻辑：parent_id 的 course_id 就是新回复消息的 course_id
         if (comment.getParentId() != null && comment.getParentId() != 0) {
@@ -255,6 +255,7 @@ public class CourseCommentServiceImpl implements CourseCommentService {
             // 3. 批量删除关联的消息通知
             if (!relatedIds.isEmpty()) {
                 messageMapper.deleteByRelatedIds(relatedIds);
+                unreadCounters.invalidateMessages();
             }
 
             // 4. 删除子评论
@@ -272,6 +273,7 @@ public class CourseCommentServiceImpl implements CourseCommentService {
         if (comments != null) {
             for (CourseComment c : comments)
                 deleteCommentRecursively(c.getCommentId());
+            unreadCounters.invalidateMessages();
         }
     }
 
@@ -310,4 +312,16 @@ public class CourseCommentServiceImpl implements CourseCommentService {
         }
         return rootComments;
     }
+
+    private void checkSensitiveWords(CourseComment comment, String blockedMessage) {
+        if (sensitiveWordService == null) {
+            return;
+        }
+        Map<String, Object> check = sensitiveWordService.checkText(comment.getContent());
+        if (Boolean.TRUE.equals(check.get("blocked"))) {
+            throw new RuntimeException(blockedMessage);
+        }
+        comment.setContent((String) check.get("filteredText"));
+        comment.setNeedReview(Boolean.TRUE.equals(check.get("needsReview")) ? 1 : 0);
+    }
 }
@@ -1,9 +1,7 @@
 package com.example.project.service.course.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
-import com.example.project.entity.course.Course;
 import com.example.project.entity.course.CourseSchedule;
-import com.example.project.mapper.course.CourseMapper;
 import com.example.project.mapper.course.CourseScheduleMapper;
 import com.example.project.service.course.CourseScheduleService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -20,7 +18,7 @@ public class CourseScheduleServiceImpl implements CourseScheduleService {
     private CourseScheduleMapper scheduleMapper;
 
     @Autowired
-    private CourseMapper courseMapper;
+    private TimetableCache timetableCache;
 
     @Override
     @Transactional
@@ -46,6 +44,7 @@ public class CourseScheduleServiceImpl implements CourseScheduleService {
 
         // 保存
         scheduleMapper.insert(schedule);
+        timetableCache.invalidateCourse(schedule.getCourseId());
         return schedule;
     }
 
@@ -81,8 +80,15 @@ public class CourseScheduleServiceImpl implements CourseScheduleService {
             throw new IllegalArgumentException("该时间段已有其他课程安排，存在冲突");
         }
 
+        // 课程时间可能被移到其他课程，新旧课程都需失效
+        CourseSchedule before = scheduleMapper.selectById(schedule.getScheduleId());
+
         schedule.setUpdateTime(LocalDateTime.now());
         scheduleMapper.updateById(schedule);
+        timetableCache.invalidateCourse(schedule.getCourseId());
+        if (before != null && !schedule.getCourseId().equals(before.getCourseId())) {
+            timetableCache.invalidateCourse(before.getCourseId());
+        }
         return schedule;
     }
 
@@ -98,45 +104,13 @@ public class CourseScheduleServiceImpl implements CourseScheduleService {
         schedule.setStatus(0);
         schedule.setUpdateTime(LocalDateTime.now());
         scheduleMapper.updateById(schedule);
+        timetableCache.invalidateCourse(schedule.getCourseId());
     }
 
     @Override
     public Map<Integer, Map<Integer, Map<String, Object>>> getStudentSchedule(String studentId, Integer week) {
-        System.out.println("Service: 查询学生课程表");
-        System.out.println("  学生ID: " + studentId);
-        System.out.println("  周数: " + week);
-        
-        // 获取学生的课程表
-        List<CourseSchedule> schedules = scheduleMapper.findStudentSchedule(studentId, week);
-        System.out.println("  查询到 " + schedules.size() + " 条课程时间记录");
-
-        // 组织数据结构：{dayOfWeek: {section: {courseInfo}}}
-        Map<Integer, Map<Integer, Map<String, Object>>> scheduleMap = new HashMap<>();
-
-        for (CourseSchedule schedule : schedules) {
-            System.out.println("  处理课程: " + schedule.getCourseId() + 
-                             ", 星期" + schedule.getDayOfWeek() + 
-                             ", 第" + schedule.getStartSection() + "-" + schedule.getEndSection() + "节");
-            
-            // 获取课程信息
-            Course course = courseMapper.selectById(schedule.getCourseId());
-            if (course == null) {
-                System.out.println("    警告: 课程不存在，跳过");
-                continue;
-            }
-            
-            System.out.println("    课程名称: " + course.getCourseName());
-
-            // 为每个节次创建课程信息
-            for (int section = schedule.getStartSection(); section <= schedule.getEndSection(); section++) {
-                scheduleMap
-                        .computeIfAbsent(schedule.getDayOfWeek(), k -> new HashMap<>())
-                        .put(section, createCourseInfo(schedule, course));
-            }
-        }
-
-        System.out.println("Service: 课程表组织完成，共 " + scheduleMap.size() + " 天有课");
-        return scheduleMap;
+        // 组织数据结构：{dayOfWeek: {section: {courseInfo}}}，由缓存的课程表网格生成
+        return timetableCache.getStudentWeek(studentId, week != null ? week : timetableCache.currentWeek());
     }
 
     @Override
@@ -188,19 +162,4 @@ public class CourseScheduleServiceImpl implements CourseScheduleService {
             throw new IllegalArgumentException("开始周数不能大于结束周数");
         }
     }
-
-    /**
-     * 创建课程信息对象
-     */
-    private Map<String, Object> createCourseInfo(CourseSchedule schedule, Course course) {
-        Map<String, Object> info = new HashMap<>();
-        info.put("courseId", course.getId());
-        info.put("courseName", course.getCourseName());
-        info.put("teacherName", course.getTeacherName());
-        info.put("location", schedule.getLocation());
-        info.put("scheduleId", schedule.getScheduleId());
-        info.put("startSection", schedule.getStartSection());
-        info.put("endSection", schedule.getEndSection());
-        return info;
-    }
 }
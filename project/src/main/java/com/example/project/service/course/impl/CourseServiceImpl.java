@@ -3,24 +3,19 @@ package com.example.project.service.course.impl;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.example.project.entity.DeletionJob;
 import com.example.project.entity.course.*;
 import com.example.project.entity.exam.Exam;
-import com.example.project.entity.exam.ExamQuestion;
-import com.example.project.entity.exam.StudentExam;
-import com.example.project.entity.exam.StudentAnswer;
-import com.example.project.entity.classmanage.ClassInfo;
-import com.example.project.entity.classmanage.ClassStudent;
 import com.example.project.mapper.course.*;
 import com.example.project.mapper.TeacherUserMapper;
 import com.example.project.entity.Teacher;
 import com.example.project.mapper.exam.ExamMapper;
-import com.example.project.mapper.exam.ExamQuestionMapper;
-import com.example.project.mapper.exam.StudentExamMapper;
-import com.example.project.mapper.exam.StudentAnswerMapper;
-import com.example.project.mapper.classmanage.ClassInfoMapper;
-import com.example.project.mapper.classmanage.ClassStudentMapper;
 import com.example.project.service.course.CoursePermissionService;
+import com.example.project.service.DeletionJobService;
 import com.example.project.service.course.CourseService;
+import com.example.project.service.exam.ExamService;
+import com.example.project.service.impl.TeacherDashboardCounters;
+import com.example.project.util.TransactionUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
@@ -31,6 +26,7 @@ import java.io.File;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Random;
@@ -48,38 +44,23 @@ public class CourseServiceImpl implements CourseService {
     @Autowired
     private CourseChapterMapper chapterMapper;
 
-    @Autowired
-    private CourseCommentMapper commentMapper;
-
-    @Autowired
-    private CourseProgressMapper progressMapper;
-
-    @Autowired
-    private CourseScheduleMapper scheduleMapper;
-
-    @Autowired
-    private StudentCourseMapper studentCourseMapper;
-
     @Autowired
     private ExamMapper examMapper;
 
     @Autowired
-    private ExamQuestionMapper examQuestionMapper;
+    private TeacherUserMapper teacherUserMapper;
 
     @Autowired
-    private StudentExamMapper studentExamMapper;
+    private ExamService examService;
 
     @Autowired
-    private StudentAnswerMapper studentAnswerMapper;
+    private DeletionJobService deletionJobService;
 
-    @Autowired(required = false)
-    private ClassInfoMapper classInfoMapper;
-
-    @Autowired(required = false)
-    private ClassStudentMapper classStudentMapper;
+    @Autowired
+    private TeacherDashboardCounters teacherDashboardCounters;
 
     @Autowired
-    private TeacherUserMapper teacherUserMapper;
+    private TimetableCache timetableCache;
 
     @Value("${file.upload-dir:./upload}")
     private String uploadDir;
@@ -123,6 +104,7 @@ public class CourseServiceImpl implements CourseService {
         }
 
         courseMapper.insert(course);
+        teacherDashboardCounters.adjust(teacherId, TeacherDashboardCounters.Counter.COURSES, 1);
         return course;
     }
 
@@ -248,7 +230,7 @@ public class CourseServiceImpl implements CourseService {
 
     @Override
     @Transactional
-    public void deleteCourse(String courseId, String teacherId) {
+    public Long deleteCourse(String courseId, String teacherId) {
         // 验证权限
         permissionService.validateDeletePermission(courseId, teacherId);
 
@@ -258,148 +240,40 @@ public class CourseServiceImpl implements CourseService {
             throw new RuntimeException("课程不存在");
         }
 
-        System.out.println("开始删除课程: " + courseId);
-
-        // 1. 删除课程章节及相关文件
-        deleteChaptersAndFiles(courseId);
-
-        // 2. 删除课程评论
-        QueryWrapper<CourseComment> commentWrapper = new QueryWrapper<>();
-        commentWrapper.eq("course_id", courseId);
-        commentMapper.delete(commentWrapper);
-        System.out.println("已删除课程评论");
-
-        // 3. 删除学生课程进度
-        QueryWrapper<CourseProgress> progressWrapper = new QueryWrapper<>();
-        progressWrapper.eq("course_id", courseId);
-        progressMapper.delete(progressWrapper);
-        System.out.println("已删除学生课程进度");
-
-        // 4. 删除课程时间表
-        QueryWrapper<CourseSchedule> scheduleWrapper = new QueryWrapper<>();
-        scheduleWrapper.eq("course_id", courseId);
-        scheduleMapper.delete(scheduleWrapper);
-        System.out.println("已删除课程时间表");
-
-        // 5. 删除学生选课记录
-        QueryWrapper<StudentCourse> studentCourseWrapper = new QueryWrapper<>();
-        studentCourseWrapper.eq("course_id", courseId);
-        studentCourseMapper.delete(studentCourseWrapper);
-        System.out.println("已删除学生选课记录");
-
-        // 6. 删除考试相关数据
-        deleteExamsAndRelatedData(courseId);
-
-        // 7. 删除班级相关数据（如果存在）
-        if (classInfoMapper != null && classStudentMapper != null) {
-            deleteClassAndRelatedData(courseId);
-        }
-
-        // 8. 删除课程封面图片文件
-        if (course.getImage() != null && !course.getImage().isEmpty()) {
-            deleteFile(course.getImage());
+        // 1. 考试逐个删除，各自登记后台清理任务
+        QueryWrapper<Exam> examWrapper = new QueryWrapper<>();
+        examWrapper.select("exam_id");
+        examWrapper.eq("course_id", courseId);
+        for (Exam exam : examMapper.selectList(examWrapper)) {
+            examService.deleteExam(exam.getExamId());
         }
 
-        // 9. 最后删除课程记录
-        courseMapper.deleteById(courseId);
-        System.out.println("课程删除完成: " + courseId);
-    }
-
-    /**
-     * 删除课程章节及相关文件
-     */
-    private void deleteChaptersAndFiles(String courseId) {
+        // 2. 章节视频、PDF 及课程封面文件在事务提交后删除
         QueryWrapper<CourseChapter> chapterWrapper = new QueryWrapper<>();
+        chapterWrapper.select("video_url", "pdf_url");
         chapterWrapper.eq("course_id", courseId);
-        List<CourseChapter> chapters = chapterMapper.selectList(chapterWrapper);
-
-        for (CourseChapter chapter : chapters) {
-            // 删除视频文件
+        List<String> files = new ArrayList<>();
+        for (CourseChapter chapter : chapterMapper.selectList(chapterWrapper)) {
             if (chapter.getVideoUrl() != null && !chapter.getVideoUrl().isEmpty()) {
-                deleteFile(chapter.getVideoUrl());
+                files.add(chapter.getVideoUrl());
             }
-            // 删除PDF文件
             if (chapter.getPdfUrl() != null && !chapter.getPdfUrl().isEmpty()) {
-                deleteFile(chapter.getPdfUrl());
+                files.add(chapter.getPdfUrl());
             }
         }
-
-        // 删除章节记录
-        chapterMapper.delete(chapterWrapper);
-        System.out.println("已删除课程章节及文件，共 " + chapters.size() + " 个章节");
-    }
-
-    /**
-     * 删除考试及相关数据
-     */
-    private void deleteExamsAndRelatedData(String courseId) {
-        // 查询课程的所有考试
-        QueryWrapper<Exam> examWrapper = new QueryWrapper<>();
-        examWrapper.eq("course_id", courseId);
-        List<Exam> exams = examMapper.selectList(examWrapper);
-
-        for (Exam exam : exams) {
-            try {
-                Long examId = exam.getExamId();
-
-                // 查询该考试的所有学生考试记录
-                QueryWrapper<StudentExam> studentExamQuery = new QueryWrapper<>();
-                studentExamQuery.eq("exam_id", examId);
-                List<StudentExam> studentExams = studentExamMapper.selectList(studentExamQuery);
-
-                // 删除学生答案
-                for (StudentExam studentExam : studentExams) {
-                    QueryWrapper<StudentAnswer> answerWrapper = new QueryWrapper<>();
-                    answerWrapper.eq("student_exam_id", studentExam.getStudentExamId());
-                    studentAnswerMapper.delete(answerWrapper);
-                }
-
-                // 删除学生考试记录
-                studentExamMapper.delete(studentExamQuery);
-
-                // 删除考试题目
-                QueryWrapper<ExamQuestion> questionWrapper = new QueryWrapper<>();
-                questionWrapper.eq("exam_id", examId);
-                examQuestionMapper.delete(questionWrapper);
-            } catch (Exception e) {
-                System.err.println("删除考试相关数据失败: " + e.getMessage());
-            }
+        if (course.getImage() != null && !course.getImage().isEmpty()) {
+            files.add(course.getImage());
         }
+        TransactionUtil.afterCommit(() -> files.forEach(this::deleteFile));
 
-        // 删除考试记录
-        examMapper.delete(examWrapper);
-        System.out.println("已删除考试及相关数据，共 " + exams.size() + " 个考试");
-    }
-
-    /**
-     * 删除班级及相关数据
-     */
-    private void deleteClassAndRelatedData(String courseId) {
-        try {
-            // 查询课程的所有班级
-            QueryWrapper<ClassInfo> classWrapper = new QueryWrapper<>();
-            classWrapper.eq("course_id", courseId);
-            List<ClassInfo> classes = classInfoMapper.selectList(classWrapper);
-
-            for (ClassInfo classInfo : classes) {
-                try {
-                    Long classId = classInfo.getClassId();
-
-                    // 删除班级学生关系
-                    QueryWrapper<ClassStudent> classStudentWrapper = new QueryWrapper<>();
-                    classStudentWrapper.eq("class_id", classId);
-                    classStudentMapper.delete(classStudentWrapper);
-                } catch (Exception e) {
-                    System.err.println("删除班级学生关系失败: " + e.getMessage());
-                }
-            }
-
-            // 删除班级记录
-            classInfoMapper.delete(classWrapper);
-            System.out.println("已删除班级及相关数据，共 " + classes.size() + " 个班级");
-        } catch (Exception e) {
-            System.err.println("删除班级数据失败: " + e.getMessage());
-        }
+        // 3. 立即删除课程记录，章节、评论、进度、时间表、选课、班级由后台任务按批清理；
+        //    课程表查询关联 course，删除后重新构建即不含该课程，这里失效已缓存的课程表
+        timetableCache.invalidateCourse(courseId, course.getTeacherId());
+        courseMapper.deleteById(courseId);
+        teacherDashboardCounters.invalidate(course.getTeacherId(), courseId);
+        Long jobId = deletionJobService.enqueue(DeletionJob.TYPE_COURSE, courseId);
+        System.out.println("课程已删除，关联数据后台清理中: " + courseId + ", jobId=" + jobId);
+        return jobId;
     }
 
     /**
@@ -464,6 +338,7 @@ public class CourseServiceImpl implements CourseService {
         course.setUpdateTime(new Date());
 
         courseMapper.updateById(course);
+        teacherDashboardCounters.invalidate(course.getTeacherId(), courseId);
     }
 
     /**
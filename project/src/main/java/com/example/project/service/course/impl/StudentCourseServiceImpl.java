@@ -8,6 +8,7 @@ import com.example.project.mapper.course.CourseMapper;
 import com.example.project.mapper.course.StudentCourseMapper;
 import com.example.project.mapper.StudentUserMapper;
 import com.example.project.service.course.StudentCourseService;
+import com.example.project.service.impl.TeacherDashboardCounters;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -28,6 +29,9 @@ public class StudentCourseServiceImpl implements StudentCourseService {
     @Autowired
     private StudentUserMapper studentUserMapper;
 
+    @Autowired
+    private TeacherDashboardCounters teacherDashboardCounters;
+
     @Override
     public Map<String, Object> getTeacherStudentStats(String teacherId) {
         return studentCourseMapper.getTeacherStudentStats(teacherId);
@@ -95,6 +99,7 @@ public class StudentCourseServiceImpl implements StudentCourseService {
             studentCourse.setUpdateTime(new Date());
 
             studentCourseMapper.insert(studentCourse);
+            teacherDashboardCounters.onStudentJoined(courseId, String.valueOf(studentIdInt));
             return true;
 
         } catch (Exception e) {
@@ -123,11 +128,15 @@ public class StudentCourseServiceImpl implements StudentCourseService {
             studentCourse.setUpdateTime(new Date());
 
             // 如果进度达到100%，标记为已完成
+            boolean completed = progress >= 100 && Integer.valueOf(1).equals(studentCourse.getStatus());
             if (progress >= 100) {
                 studentCourse.setStatus(2);
             }
 
             studentCourseMapper.updateById(studentCourse);
+            if (completed) {
+                teacherDashboardCounters.onStudentLeft(courseId, String.valueOf(studentIdInt));
+            }
             return true;
 
         } catch (Exception e) {
@@ -0,0 +1,360 @@
+package com.example.project.service.course.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.example.project.dto.TimetableEntryDTO;
+import com.example.project.entity.course.Course;
+import com.example.project.entity.course.StudentCourse;
+import com.example.project.mapper.course.CourseMapper;
+import com.example.project.mapper.course.CourseScheduleMapper;
+import com.example.project.mapper.course.StudentCourseMapper;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 课程表缓存
+ * 教师、学生的课程表各自从 course_schedule 一次查询构建，按教学周预先展开为 7×12 的节次网格
+ * （格子存放条目下标），读取某一周只需遍历该周网格。
+ * 课程时间增删改时按课程失效相关的教师和学生；选课变化由过期时间兜底
+ */
+@Component
+public class TimetableCache {
+
+    public static final int DAYS = 7;
+
+    public static final int SECTIONS = 12;
+
+    /**
+     * 展开网格的最大教学周，超出的课程时间视为无效数据
+     */
+    private static final int MAX_WEEK = 60;
+
+    @Autowired
+    private CourseScheduleMapper scheduleMapper;
+
+    @Autowired
+    private CourseMapper courseMapper;
+
+    @Autowired
+    private StudentCourseMapper studentCourseMapper;
+
+    @Value("${timetable.cache-size:2048}")
+    private int maxSize;
+
+    @Value("${timetable.cache-ttl-ms:600000}")
+    private long ttlMs;
+
+    /**
+     * 第一教学周的周一，未配置时当前周按第 1 周处理
+     */
+    @Value("${timetable.semester-start:}")
+    private String semesterStart;
+
+    /**
+     * 启动时解析的 semesterStart，未配置时为 null
+     */
+    private LocalDate semesterStartDate;
+
+    private final Map<String, Timetable> cache = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Timetable> eldest) {
+            if (size() > maxSize) {
+                unlinkOwners(eldest.getKey(), eldest.getValue());
+                return true;
+            }
+            return false;
+        }
+    };
+
+    /**
+     * courseId -> 已缓存的包含该课程的课程表 key（与 cache 同步维护，均在 cache 锁内读写）
+     */
+    private final Map<String, Set<String>> courseOwners = new HashMap<>();
+
+    @PostConstruct
+    public void init() {
+        if (semesterStart == null || semesterStart.isBlank()) {
+            return;
+        }
+        try {
+            semesterStartDate = LocalDate.parse(semesterStart.trim());
+        } catch (DateTimeParseException e) {
+            throw new IllegalStateException("timetable.semester-start 格式错误，应为 yyyy-MM-dd: " + semesterStart, e);
+        }
+    }
+
+    /**
+     * 失效代数，构建期间发生失效则不写回缓存
+     */
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * 学生某一周的课程表：{星期: {节次: 课程信息}}
+     */
+    public Map<Integer, Map<Integer, Map<String, Object>>> getStudentWeek(String studentId, int week) {
+        Timetable timetable = load("S:" + studentId, () -> buildStudent(studentId));
+        Map<Integer, Map<Integer, Map<String, Object>>> scheduleMap = new HashMap<>();
+        int[] grid = timetable.gridOf(week);
+        if (grid == null) {
+            return scheduleMap;
+        }
+        for (int day = 1; day <= DAYS; day++) {
+            for (int section = 1; section <= SECTIONS; section++) {
+                int index = grid[cell(day, section)];
+                if (index >= 0) {
+                    scheduleMap.computeIfAbsent(day, k -> new HashMap<>())
+                            .put(section, timetable.infos.get(index));
+                }
+            }
+        }
+        return scheduleMap;
+    }
+
+    /**
+     * 教师某一周的课程表，按星期、节次排序，每段连续节次一条
+     */
+    public List<Map<String, Object>> getTeacherWeek(String teacherId, int week) {
+        Timetable timetable = load("T:" + teacherId, () -> buildTeacher(teacherId));
+        List<Map<String, Object>> schedule = new ArrayList<>();
+        int[] grid = timetable.gridOf(week);
+        if (grid == null) {
+            return schedule;
+        }
+        for (int day = 1; day <= DAYS; day++) {
+            int previous = -1;
+            for (int section = 1; section <= SECTIONS; section++) {
+                int index = grid[cell(day, section)];
+                if (index >= 0 && index != previous) {
+                    Map<String, Object> item = new LinkedHashMap<>(timetable.infos.get(index));
+                    item.put("dayOfWeek", day);
+                    schedule.add(item);
+                }
+                previous = index;
+            }
+        }
+        return schedule;
+    }
+
+    /**
+     * 当前教学周
+     */
+    public int currentWeek() {
+        if (semesterStartDate == null) {
+            return 1;
+        }
+        long days = ChronoUnit.DAYS.between(semesterStartDate, LocalDate.now());
+        return days < 0 ? 1 : (int) (days / 7) + 1;
+    }
+
+    /**
+     * 课程时间变化：失效该课程的教师及已缓存的学生课程表
+     * 若处于事务中，提交后会再失效一次，避免并发请求在提交前把旧数据重新载入缓存
+     */
+    public void invalidateCourse(String courseId) {
+        Course course = courseMapper.selectById(courseId);
+        invalidateCourse(courseId, course != null ? course.getTeacherId() : null);
+    }
+
+    /**
+     * 同 invalidateCourse(courseId)，由调用方给出课程的教师（删除课程时课程记录在提交后已不存在）
+     */
+    public void invalidateCourse(String courseId, String teacherId) {
+        evictCourse(courseId, teacherId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictCourse(courseId, teacherId);
+                }
+            });
+        }
+    }
+
+    private void evictCourse(String courseId, String teacherId) {
+        synchronized (cache) {
+            version.incrementAndGet();
+            Set<String> owners = courseOwners.remove(courseId);
+            if (owners != null) {
+                owners.forEach(this::remove);
+            }
+            if (teacherId != null) {
+                remove("T:" + teacherId);
+            }
+        }
+    }
+
+    private Timetable load(String key, Supplier<Timetable> builder) {
+        synchronized (cache) {
+            Timetable cached = cache.get(key);
+            if (cached != null && cached.expiresAt > System.currentTimeMillis()) {
+                return cached;
+            }
+        }
+
+        long currentVersion = version.get();
+        Timetable timetable = builder.get();
+        synchronized (cache) {
+            if (version.get() == currentVersion) {
+                Timetable previous = cache.put(key, timetable);
+                if (previous != null) {
+                    unlinkOwners(key, previous);
+                }
+                for (String courseId : timetable.courseIds) {
+                    courseOwners.computeIfAbsent(courseId, id -> new HashSet<>()).add(key);
+                }
+            }
+        }
+        return timetable;
+    }
+
+    /**
+     * 移除一份课程表及其课程索引（调用方持有 cache 锁）
+     */
+    private void remove(String key) {
+        Timetable removed = cache.remove(key);
+        if (removed != null) {
+            unlinkOwners(key, removed);
+        }
+    }
+
+    /**
+     * 从课程索引中去掉一份已移出缓存的课程表（调用方持有 cache 锁）
+     */
+    private void unlinkOwners(String key, Timetable timetable) {
+        for (String courseId : timetable.courseIds) {
+            Set<String> owners = courseOwners.get(courseId);
+            if (owners != null) {
+                owners.remove(key);
+                if (owners.isEmpty()) {
+                    courseOwners.remove(courseId);
+                }
+            }
+        }
+    }
+
+    private Timetable buildTeacher(String teacherId) {
+        QueryWrapper<Course> wrapper = new QueryWrapper<>();
+        wrapper.select("id");
+        wrapper.eq("teacher_id", teacherId);
+        Set<String> courseIds = new HashSet<>();
+        for (Object id : courseMapper.selectObjs(wrapper)) {
+            courseIds.add(String.valueOf(id));
+        }
+        return new Timetable(scheduleMapper.selectTeacherTimetable(teacherId), courseIds,
+                System.currentTimeMillis() + ttlMs);
+    }
+
+    private Timetable buildStudent(String studentId) {
+        QueryWrapper<StudentCourse> wrapper = new QueryWrapper<>();
+        wrapper.select("course_id");
+        wrapper.eq("student_id", studentId);
+        Set<String> courseIds = new HashSet<>();
+        for (Object id : studentCourseMapper.selectObjs(wrapper)) {
+            courseIds.add(String.valueOf(id));
+        }
+        return new Timetable(scheduleMapper.selectStudentTimetable(studentId), courseIds,
+                System.currentTimeMillis() + ttlMs);
+    }
+
+    private static int cell(int day, int section) {
+        return (day - 1) * SECTIONS + (section - 1);
+    }
+
+    /**
+     * 一位教师或学生的课程表：条目信息 + 每个教学周的节次网格
+     */
+    private static final class Timetable {
+        private final List<Map<String, Object>> infos = new ArrayList<>();
+        private final Set<String> courseIds;
+        private final long expiresAt;
+        private final int firstWeek;
+        private final int[][] grids;
+
+        private Timetable(List<TimetableEntryDTO> entries, Set<String> courseIds, long expiresAt) {
+            this.courseIds = courseIds;
+            this.expiresAt = expiresAt;
+
+            int minWeek = Integer.MAX_VALUE;
+            int maxWeek = Integer.MIN_VALUE;
+            List<TimetableEntryDTO> valid = new ArrayList<>();
+            for (TimetableEntryDTO entry : entries) {
+                if (isValid(entry)) {
+                    valid.add(entry);
+                    minWeek = Math.min(minWeek, entry.getStartWeek());
+                    maxWeek = Math.max(maxWeek, entry.getEndWeek());
+                }
+            }
+            if (valid.isEmpty()) {
+                this.firstWeek = 1;
+                this.grids = new int[0][];
+                return;
+            }
+
+            // 与原课程表一致：同一格子有多条时后者覆盖前者
+            valid.sort((a, b) -> Long.compare(a.getScheduleId(), b.getScheduleId()));
+            this.firstWeek = minWeek;
+            this.grids = new int[maxWeek - minWeek + 1][];
+            for (int i = 0; i < valid.size(); i++) {
+                TimetableEntryDTO entry = valid.get(i);
+                infos.add(Collections.unmodifiableMap(toInfo(entry)));
+                for (int week = entry.getStartWeek(); week <= entry.getEndWeek(); week++) {
+                    int[] grid = grids[week - minWeek];
+                    if (grid == null) {
+                        grid = new int[DAYS * SECTIONS];
+                        Arrays.fill(grid, -1);
+                        grids[week - minWeek] = grid;
+                    }
+                    for (int section = entry.getStartSection(); section <= entry.getEndSection(); section++) {
+                        grid[cell(entry.getDayOfWeek(), section)] = i;
+                    }
+                }
+            }
+        }
+
+        private int[] gridOf(int week) {
+            int offset = week - firstWeek;
+            return offset >= 0 && offset < grids.length ? grids[offset] : null;
+        }
+
+        private static boolean isValid(TimetableEntryDTO entry) {
+            return entry.getScheduleId() != null
+                    && entry.getDayOfWeek() != null && entry.getDayOfWeek() >= 1 && entry.getDayOfWeek() <= DAYS
+                    && entry.getStartSection() != null && entry.getEndSection() != null
+                    && entry.getStartSection() >= 1 && entry.getEndSection() <= SECTIONS
+                    && entry.getStartSection() <= entry.getEndSection()
+                    && entry.getStartWeek() != null && entry.getEndWeek() != null
+                    && entry.getStartWeek() >= 1 && entry.getStartWeek() <= entry.getEndWeek()
+                    && entry.getEndWeek() <= MAX_WEEK;
+        }
+
+        private static Map<String, Object> toInfo(TimetableEntryDTO entry) {
+            Map<String, Object> info = new HashMap<>();
+            info.put("courseId", entry.getCourseId());
+            info.put("courseName", entry.getCourseName());
+            info.put("teacherName", entry.getTeacherName());
+            info.put("location", entry.getLocation());
+            info.put("scheduleId", entry.getScheduleId());
+            info.put("startSection", entry.getStartSection());
+            info.put("endSection", entry.getEndSection());
+            return info;
+        }
+    }
+}
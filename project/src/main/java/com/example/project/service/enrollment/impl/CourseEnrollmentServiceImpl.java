@@ -9,6 +9,8 @@ import com.example.project.mapper.enrollment.CourseEnrollmentMapper;
 import com.example.project.mapper.course.StudentCourseMapper;
 import com.example.project.mapper.course.CourseMapper;
 import com.example.project.service.enrollment.CourseEnrollmentService;
+import com.example.project.service.impl.TeacherDashboardCounters;
+import com.example.project.service.impl.TeacherDashboardCounters.Counter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -36,6 +38,9 @@ public class CourseEnrollmentServiceImpl implements CourseEnrollmentService {
     @Autowired
     private com.example.project.service.notification.MessageService messageService;
 
+    @Autowired
+    private TeacherDashboardCounters teacherDashboardCounters;
+
     @Override
     @Transactional
     public CourseEnrollment applyEnrollment(EnrollmentApplyDTO applyDTO) {
@@ -57,6 +62,7 @@ public class CourseEnrollmentServiceImpl implements CourseEnrollmentService {
                 existing.setReviewTime(null);
                 existing.setRejectReason(null);
                 enrollmentMapper.updateById(existing);
+                teacherDashboardCounters.adjustByCourse(existing.getCourseId(), Counter.PENDING_ENROLLMENTS, 1);
                 return existing;
             }
         }
@@ -76,6 +82,7 @@ public class CourseEnrollmentServiceImpl implements CourseEnrollmentService {
         enrollment.setApplyTime(new Date());
 
         enrollmentMapper.insert(enrollment);
+        teacherDashboardCounters.adjustByCourse(enrollment.getCourseId(), Counter.PENDING_ENROLLMENTS, 1);
 
         return enrollment;
     }
@@ -241,10 +248,12 @@ public class CourseEnrollmentServiceImpl implements CourseEnrollmentService {
             query.eq("course_id", sc.getCourseId());
             if (studentCourseMapper.selectCount(query) == 0) {
                 studentCourseMapper.insert(sc);
+                teacherDashboardCounters.onStudentJoined(sc.getCourseId(), String.valueOf(sc.getStudentId()));
             }
         }
 
         enrollmentMapper.updateById(enrollment);
+        teacherDashboardCounters.adjustByCourse(enrollment.getCourseId(), Counter.PENDING_ENROLLMENTS, -1);
     }
 
     @Override
@@ -261,13 +270,20 @@ public class CourseEnrollmentServiceImpl implements CourseEnrollmentService {
             try {
                 query.eq("student_id", Integer.parseInt(enrollment.getStudentId()));
                 query.eq("course_id", enrollment.getCourseId());
+                com.example.project.entity.course.StudentCourse joined = studentCourseMapper.selectOne(query);
                 studentCourseMapper.delete(query);
+                if (joined != null && Integer.valueOf(1).equals(joined.getStatus())) {
+                    teacherDashboardCounters.onStudentLeft(joined.getCourseId(), String.valueOf(joined.getStudentId()));
+                }
             } catch (Exception e) {
                 System.err.println("删除学生课程关联失败: " + e.getMessage());
             }
         }
 
         enrollmentMapper.deleteById(enrollmentId);
+        if ("pending".equals(enrollment.getStatus())) {
+            teacherDashboardCounters.adjustByCourse(enrollment.getCourseId(), Counter.PENDING_ENROLLMENTS, -1);
+        }
     }
 
     @Override
@@ -315,6 +331,7 @@ public class CourseEnrollmentServiceImpl implements CourseEnrollmentService {
         } else {
             enrollmentMapper.insert(enrollment);
         }
+        teacherDashboardCounters.adjustByCourse(courseId, Counter.PENDING_ENROLLMENTS, 1);
 
         // 发送课程邀请通知给学生
         try {
@@ -0,0 +1,38 @@
+package com.example.project.service.exam;
+
+import com.example.project.dto.exam.StudentExamSubmitDTO;
+
+import java.util.List;
+import java.util.Map;
+
+public interface ExamAutosaveService {
+
+    /**
+     * 暂存作答中的答案（写入内存缓冲，定期批量落库）
+     *
+     * @return 学生考试记录ID
+     */
+    Long autosave(StudentExamSubmitDTO draftDTO);
+
+    /**
+     * 获取已暂存的答案（断线重连后恢复作答）
+     */
+    List<Map<String, Object>> getDraft(Long examId, String studentId);
+
+    /**
+     * 取出并移除试卷在内存中尚未落库的答案（提交试卷时调用），包括正在落库、所在批次尚未提交的答案
+     */
+    Map<Long, String> takeBuffered(Long studentExamId);
+
+    /**
+     * 考试结束、撤回、修改时间或删除后调用，丢弃缓存的考试状态与试卷ID
+     */
+    void evictExam(Long examId);
+
+    /**
+     * 将缓冲中的答案批量写入数据库
+     *
+     * @return 写入的答案数
+     */
+    int flush();
+}
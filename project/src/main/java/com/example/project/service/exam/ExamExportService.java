@@ -0,0 +1,18 @@
+package com.example.project.service.exam;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public interface ExamExportService {
+
+    /**
+     * 导出考试成绩与答题明细
+     * XLSX 包含“成绩”和“答题明细”两个工作表；CSV 按 content 导出其一（results / answers）
+     */
+    void exportExamResults(Long examId, String format, String content, OutputStream out) throws IOException;
+
+    /**
+     * 导出课程成绩册（每个选课学生一行，每场考试一列）
+     */
+    void exportCourseGradebook(String courseId, String format, OutputStream out) throws IOException;
+}
@@ -27,4 +27,14 @@ public interface ExamGradingService {
      * 自动批改客观题
      */
     void autoGradeObjectiveQuestions(Long studentExamId);
+
+    /**
+     * 丢弃预加载的试卷详情（试卷被退回、重新判分等修改后调用）
+     */
+    void evictPrefetched(Long studentExamId);
+
+    /**
+     * 丢弃某场考试全部预加载的试卷详情
+     */
+    void evictPrefetchedByExam(Long examId);
 }
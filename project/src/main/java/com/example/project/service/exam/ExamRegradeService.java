@@ -0,0 +1,18 @@
+package com.example.project.service.exam;
+
+import java.util.Map;
+
+public interface ExamRegradeService {
+
+    /**
+     * 启动重新判分任务（按最新标准答案重判所有已提交试卷的客观题）
+     *
+     * @return 任务状态
+     */
+    Map<String, Object> startRegrade(Long examId);
+
+    /**
+     * 查询重新判分任务进度
+     */
+    Map<String, Object> getRegradeStatus(String jobId);
+}
@@ -1,13 +1,18 @@
 package com.example.project.service.exam;
 
+import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.example.project.dto.exam.ExamCreateDTO;
 import com.example.project.dto.exam.ExamQuestionDTO;
 import com.example.project.dto.exam.ExamStatisticsDTO;
+import com.example.project.dto.exam.StudentExamListItemDTO;
+import com.example.project.dto.exam.StudentExamStatusDTO;
 import com.example.project.entity.exam.Exam;
 import com.example.project.entity.exam.ExamQuestion;
 
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 public interface ExamService {
 
@@ -57,15 +62,22 @@ public interface ExamService {
     void publishExam(Long examId);
 
     /**
-     * 删除考试
+     * 删除考试（关联数据由后台任务清理）
+     *
+     * @return 清理任务ID
      */
-    void deleteExam(Long examId);
+    Long deleteExam(Long examId);
 
     /**
      * 获取考试统计
      */
     ExamStatisticsDTO getExamStatistics(Long examId);
 
+    /**
+     * 从考试记录重建考试统计
+     */
+    ExamStatisticsDTO rebuildExamStatistics(Long examId);
+
     /**
      * 验证学生是否有资格参加考试
      */
@@ -74,7 +86,17 @@ public interface ExamService {
     /**
      * 获取考试的所有学生答题记录
      */
-    List<Map<String, Object>> getStudentExamStatus(Long examId);
+    List<StudentExamStatusDTO> getStudentExamStatus(Long examId);
+
+    /**
+     * 分页获取考试的学生答题状态
+     */
+    IPage<StudentExamStatusDTO> getStudentExamStatusPage(Long examId, Integer pageNumber, Integer pageSize);
+
+    /**
+     * 逐行输出考试的学生答题状态（大班级导出/流式响应）
+     */
+    void streamStudentExamStatus(Long examId, Consumer<StudentExamStatusDTO> consumer);
 
     /**
      * 取消发布考试
@@ -96,13 +118,29 @@ public interface ExamService {
      */
     void submitExam(com.example.project.dto.exam.StudentExamSubmitDTO submitDTO);
 
+    /**
+     * 提交试卷，交卷时间取受理时间（异步判分时与实际处理时间不同）
+     */
+    void submitExam(com.example.project.dto.exam.StudentExamSubmitDTO submitDTO, Date submitTime);
+
     /**
      * 获取学生的所有考试（仅限已选课程且已发布的考试）
      */
-    List<Map<String, Object>> getStudentExams(String studentId, String status, String courseId);
+    List<StudentExamListItemDTO> getStudentExams(String studentId, String status, String courseId);
+
+    /**
+     * 分页获取学生的考试
+     */
+    IPage<StudentExamListItemDTO> getStudentExamPage(String studentId, String status, String courseId,
+                                                     Integer pageNumber, Integer pageSize);
 
     /**
      * 获取学生考试成绩详情（包含答题记录和正确答案）
      */
     Map<String, Object> getStudentExamResult(Long examId, String studentId);
+
+    /**
+     * 获取考试列表汇总查询的统计指标（查询次数等）
+     */
+    Map<String, Object> getExamSummaryMetrics();
 }
@@ -0,0 +1,19 @@
+package com.example.project.service.exam;
+
+import com.example.project.dto.exam.StudentExamSubmitDTO;
+
+import java.util.Map;
+
+public interface ExamSubmissionService {
+
+    /**
+     * 受理试卷提交（按考试+学生幂等）
+     * 异步模式下立即返回受理状态，同步模式下判分完成后返回
+     */
+    Map<String, Object> submit(StudentExamSubmitDTO submitDTO);
+
+    /**
+     * 查询试卷提交的受理/判分状态
+     */
+    Map<String, Object> getSubmissionStatus(Long examId, String studentId);
+}
@@ -0,0 +1,149 @@
+package com.example.project.service.exam.impl;
+
+import com.example.project.entity.exam.ExamQuestion;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 试卷标准答案（不可变）
+ * 每场考试只构建一次：题型预先解析为枚举，正确答案预先标准化，分值保存为基本类型，
+ * 判分时不再访问数据库，也不再逐题比较题型字符串
+ */
+public final class AnswerKey {
+
+    /**
+     * 题型分类
+     */
+    public enum Kind {
+        SINGLE, MULTIPLE, JUDGE, SUBJECTIVE;
+
+        public boolean isObjective() {
+            return this != SUBJECTIVE;
+        }
+
+        public static Kind of(String questionType) {
+            if (questionType == null) {
+                return SUBJECTIVE;
+            }
+            switch (questionType) {
+                case "SINGLE":
+                case "SINGLE_CHOICE":
+                    return SINGLE;
+                case "MULTIPLE":
+                case "MULTIPLE_CHOICE":
+                    return MULTIPLE;
+                case "JUDGE":
+                case "TRUE_FALSE":
+                    return JUDGE;
+                default:
+                    return SUBJECTIVE;
+            }
+        }
+    }
+
+    /**
+     * 单题标准答案
+     */
+    public static final class Entry {
+        private final Kind kind;
+        private final String normalizedAnswer;
+        private final int score;
+        private final BigDecimal scoreValue;
+
+        private Entry(Kind kind, String normalizedAnswer, int score) {
+            this.kind = kind;
+            this.normalizedAnswer = normalizedAnswer;
+            this.score = score;
+            this.scoreValue = BigDecimal.valueOf(score);
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        public int getScore() {
+            return score;
+        }
+
+        /**
+         * 题目分值（构建时生成一次，判分时直接复用）
+         */
+        public BigDecimal getScoreValue() {
+            return scoreValue;
+        }
+
+        /**
+         * 判断学生答案是否正确（仅客观题）
+         */
+        public boolean matches(String studentAnswer) {
+            if (!kind.isObjective() || normalizedAnswer == null || studentAnswer == null) {
+                return false;
+            }
+            return normalizedAnswer.equals(normalize(kind, studentAnswer));
+        }
+    }
+
+    private final Long examId;
+    private final long version;
+    private final Map<Long, Entry> entries;
+
+    private AnswerKey(Long examId, long version, Map<Long, Entry> entries) {
+        this.examId = examId;
+        this.version = version;
+        this.entries = entries;
+    }
+
+    /**
+     * 根据试题列表构建标准答案
+     */
+    public static AnswerKey build(Long examId, long version, List<ExamQuestion> questions) {
+        Map<Long, Entry> entries = new HashMap<>(Math.max(16, questions.size() * 2));
+        for (ExamQuestion question : questions) {
+            if (question.getQuestionId() == null) {
+                continue;
+            }
+            Kind kind = Kind.of(question.getQuestionType());
+            String correct = question.getAnswer() != null ? normalize(kind, question.getAnswer()) : null;
+            int score = question.getScore() != null ? question.getScore() : 0;
+            entries.put(question.getQuestionId(), new Entry(kind, correct, score));
+        }
+        return new AnswerKey(examId, version, Collections.unmodifiableMap(entries));
+    }
+
+    public Long getExamId() {
+        return examId;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * 获取题目的标准答案，题目不属于该试卷时返回 null
+     */
+    public Entry get(Long questionId) {
+        return entries.get(questionId);
+    }
+
+    /**
+     * 标准化答案：去除首尾空格并转大写，多选题再按字符排序
+     */
+    static String normalize(Kind kind, String answer) {
+        String value = answer.trim().toUpperCase();
+        if (kind == Kind.MULTIPLE) {
+            char[] chars = value.toCharArray();
+            Arrays.sort(chars);
+            return new String(chars);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.project.service.exam.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.example.project.entity.exam.ExamQuestion;
+import com.example.project.mapper.exam.ExamQuestionMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 试卷标准答案缓存
+ * 按考试缓存 AnswerKey 及试题（LRU 淘汰），试题或考试被修改时失效。
+ * 版本号只为正在构建的考试保留：构建期间发生失效会换一个新版本号，失效前开始构建的旧答案不会被写回缓存；
+ * 版本号取自全局递增序列，构建结束后即可删除，不会随考试数量无限增长
+ */
+@Component
+public class AnswerKeyCache {
+
+    @Autowired
+    private ExamQuestionMapper examQuestionMapper;
+
+    @Value("${exam.answer-key.cache-size:256}")
+    private int maxSize;
+
+    private final Map<Long, Cached> cache = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Cached> eldest) {
+            return size() > maxSize;
+        }
+    };
+
+    /**
+     * 正在构建的考试（examId -> 版本号及构建中的请求数），由 cache 锁保护
+     */
+    private final Map<Long, Loading> loading = new HashMap<>();
+
+    private final AtomicLong versionSeq = new AtomicLong();
+
+    private static final class Loading {
+        private long version;
+        private int count;
+    }
+
+    /**
+     * 单场考试的缓存内容
+     */
+    private static final class Cached {
+        private final AnswerKey answerKey;
+        private final Map<Long, ExamQuestion> questions;
+
+        private Cached(AnswerKey answerKey, Map<Long, ExamQuestion> questions) {
+            this.answerKey = answerKey;
+            this.questions = questions;
+        }
+    }
+
+    /**
+     * 获取考试的标准答案，未命中时从数据库构建
+     */
+    public AnswerKey get(Long examId) {
+        return load(examId).answerKey;
+    }
+
+    /**
+     * 获取考试的试题（questionId -> 试题，按题目顺序），调用方不得修改返回的试题
+     */
+    public Map<Long, ExamQuestion> getQuestions(Long examId) {
+        return load(examId).questions;
+    }
+
+    private Cached load(Long examId) {
+        long version;
+        synchronized (cache) {
+            Cached cached = cache.get(examId);
+            if (cached != null) {
+                return cached;
+            }
+            Loading state = loading.computeIfAbsent(examId, id -> {
+                Loading created = new Loading();
+                created.version = versionSeq.incrementAndGet();
+                return created;
+            });
+            state.count++;
+            version = state.version;
+        }
+
+        try {
+            return build(examId, version);
+        } finally {
+            synchronized (cache) {
+                Loading state = loading.get(examId);
+                if (--state.count == 0) {
+                    loading.remove(examId);
+                }
+            }
+        }
+    }
+
+    private Cached build(Long examId, long version) {
+        QueryWrapper<ExamQuestion> wrapper = new QueryWrapper<>();
+        wrapper.eq("exam_id", examId);
+        wrapper.orderByAsc("question_order");
+        List<ExamQuestion> questions = examQuestionMapper.selectList(wrapper);
+        Map<Long, ExamQuestion> questionMap = new LinkedHashMap<>();
+        for (ExamQuestion question : questions) {
+            questionMap.put(question.getQuestionId(), question);
+        }
+        Cached cached = new Cached(AnswerKey.build(examId, version, questions),
+                Collections.unmodifiableMap(questionMap));
+
+        synchronized (cache) {
+            // 构建期间发生过失效，则不写回缓存
+            if (loading.get(examId).version == version) {
+                cache.put(examId, cached);
+            }
+        }
+        return cached;
+    }
+
+    /**
+     * 使考试的标准答案失效
+     * 若处于事务中，提交后会再失效一次，避免并发请求在提交前把旧数据重新载入缓存
+     */
+    public void invalidate(Long examId) {
+        evict(examId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(examId);
+                }
+            });
+        }
+    }
+
+    private void evict(Long examId) {
+        synchronized (cache) {
+            cache.remove(examId);
+            Loading state = loading.get(examId);
+            if (state != null) {
+                state.version = versionSeq.incrementAndGet();
+            }
+        }
+    }
+}
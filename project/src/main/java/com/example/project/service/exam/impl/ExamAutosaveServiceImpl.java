@@ -0,0 +1,376 @@
+package com.example.project.service.exam.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.example.project.dto.exam.StudentAnswerDTO;
+import com.example.project.dto.exam.StudentExamSubmitDTO;
+import com.example.project.entity.exam.Exam;
+import com.example.project.entity.exam.StudentAnswer;
+import com.example.project.entity.exam.StudentExam;
+import com.example.project.mapper.exam.ExamMapper;
+import com.example.project.mapper.exam.StudentAnswerMapper;
+import com.example.project.mapper.exam.StudentExamMapper;
+import com.example.project.service.exam.ExamAutosaveService;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * 考试答案自动暂存（write-behind）
+ * 暂存请求只写内存缓冲，同一 (studentExamId, questionId) 的多次写入合并为最后一次，
+ * 定时按批写入 student_answer（每批一条 DELETE + 一条多行 INSERT），提交试卷时剩余缓冲并入提交内容。
+ * 只接受已发布且在作答时间内的考试；考试的发布状态、时间缓存一小段时间，结束、撤回、删除时主动失效
+ */
+@Service
+public class ExamAutosaveServiceImpl implements ExamAutosaveService {
+
+    private static final int PAPER_LOCKS = 64;
+
+    @Autowired
+    private ExamMapper examMapper;
+
+    @Autowired
+    private StudentExamMapper studentExamMapper;
+
+    @Autowired
+    private StudentAnswerMapper studentAnswerMapper;
+
+    @Autowired
+    private ExamStatisticsAggregator examStatisticsAggregator;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${exam.answer.batch-size:500}")
+    private int batchSize;
+
+    @Value("${exam.autosave.max-buffered:100000}")
+    private int maxBuffered;
+
+    @Value("${exam.autosave.exam-cache-ttl-ms:30000}")
+    private long examCacheTtlMs;
+
+    /**
+     * studentExamId -> (questionId -> 最新答案)
+     */
+    private final Map<Long, Map<Long, String>> buffer = new ConcurrentHashMap<>();
+
+    private final AtomicInteger bufferedCount = new AtomicInteger();
+
+    /**
+     * 已从缓冲取出、所在批次尚未提交的答案（结构同 buffer），
+     * 批次提交前提交试卷仍能通过 takeBuffered 取到，不会因落库被提交试卷拦下而丢失
+     */
+    private final Map<Long, Map<Long, String>> draining = new ConcurrentHashMap<>();
+
+    /**
+     * "examId:studentId" -> studentExamId，避免每次暂存都查询考试记录
+     */
+    private final Map<String, Long> paperIds = new ConcurrentHashMap<>();
+
+    /**
+     * 查询/创建考试记录时按 "examId:studentId" 分段加锁，同一学生不会重复创建，也不占用 paperIds 的桶锁
+     */
+    private final Object[] paperLocks = new Object[PAPER_LOCKS];
+
+    /**
+     * examId -> 考试的发布状态与作答时间
+     */
+    private final Map<Long, ExamWindow> examWindows = new ConcurrentHashMap<>();
+
+    public ExamAutosaveServiceImpl() {
+        for (int i = 0; i < PAPER_LOCKS; i++) {
+            paperLocks[i] = new Object();
+        }
+    }
+
+    @Override
+    public Long autosave(StudentExamSubmitDTO draftDTO) {
+        if (draftDTO.getExamId() == null || draftDTO.getStudentId() == null) {
+            throw new RuntimeException("缺少考试或学生信息");
+        }
+        checkOpen(draftDTO.getExamId());
+        Long studentExamId = resolvePaper(draftDTO.getExamId(), String.valueOf(draftDTO.getStudentId()));
+
+        if (draftDTO.getAnswers() != null) {
+            for (StudentAnswerDTO answer : draftDTO.getAnswers()) {
+                if (answer.getQuestionId() == null) {
+                    continue;
+                }
+                buffer.compute(studentExamId, (id, answers) -> {
+                    if (answers == null) {
+                        answers = new ConcurrentHashMap<>();
+                    }
+                    if (answers.put(answer.getQuestionId(), answer.getAnswer() != null ? answer.getAnswer() : "") == null) {
+                        bufferedCount.incrementAndGet();
+                    }
+                    return answers;
+                });
+            }
+        }
+
+        // 缓冲过大时立即落库，限制内存占用
+        if (bufferedCount.get() > maxBuffered) {
+            flush();
+        }
+        return studentExamId;
+    }
+
+    @Override
+    public List<Map<String, Object>> getDraft(Long examId, String studentId) {
+        QueryWrapper<StudentExam> seWrapper = new QueryWrapper<>();
+        seWrapper.eq("exam_id", examId);
+        seWrapper.eq("student_id", studentId);
+        StudentExam studentExam = studentExamMapper.selectOne(seWrapper);
+        if (studentExam == null) {
+            return new ArrayList<>();
+        }
+
+        // 已落库的答案 + 正在落库的答案 + 内存中更新的答案
+        Map<Long, String> answers = new LinkedHashMap<>();
+        QueryWrapper<StudentAnswer> saWrapper = new QueryWrapper<>();
+        saWrapper.eq("student_exam_id", studentExam.getStudentExamId());
+        for (StudentAnswer answer : studentAnswerMapper.selectList(saWrapper)) {
+            answers.put(answer.getQuestionId(), answer.getStudentAnswer());
+        }
+        Map<Long, String> inFlight = draining.get(studentExam.getStudentExamId());
+        if (inFlight != null) {
+            answers.putAll(inFlight);
+        }
+        Map<Long, String> buffered = buffer.get(studentExam.getStudentExamId());
+        if (buffered != null) {
+            answers.putAll(buffered);
+        }
+
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (Map.Entry<Long, String> entry : answers.entrySet()) {
+            Map<String, Object> map = new HashMap<>();
+            map.put("questionId", entry.getKey());
+            map.put("answer", entry.getValue());
+            result.add(map);
+        }
+        return result;
+    }
+
+    @Override
+    public Map<Long, String> takeBuffered(Long studentExamId) {
+        paperIds.values().remove(studentExamId);
+        Map<Long, String> answers = buffer.remove(studentExamId);
+        if (answers != null) {
+            bufferedCount.addAndGet(-answers.size());
+        }
+        // 正在落库的答案留给所在批次清理，这里只读取；缓冲中的答案更新，优先
+        Map<Long, String> inFlight = draining.get(studentExamId);
+        if (inFlight == null || inFlight.isEmpty()) {
+            return answers != null ? answers : Collections.emptyMap();
+        }
+        Map<Long, String> merged = new HashMap<>(inFlight);
+        if (answers != null) {
+            merged.putAll(answers);
+        }
+        return merged;
+    }
+
+    @Override
+    public void evictExam(Long examId) {
+        examWindows.remove(examId);
+        String prefix = examId + ":";
+        paperIds.keySet().removeIf(key -> key.startsWith(prefix));
+    }
+
+    /**
+     * 定时批量落库
+     */
+    @Scheduled(fixedDelayString = "${exam.autosave.flush-interval-ms:5000}")
+    public void scheduledFlush() {
+        flush();
+        long now = System.currentTimeMillis();
+        examWindows.values().removeIf(window -> window.expiresAt <= now);
+    }
+
+    @Override
+    public int flush() {
+        // 1. 逐条取出缓冲（取出后新的写入会进入下一轮，不会丢失）；
+        //    先登记到 draining 再从缓冲移除，任何时刻答案都对 takeBuffered 可见
+        List<StudentAnswer> drained = new ArrayList<>();
+        for (Long studentExamId : buffer.keySet()) {
+            Map<Long, String> answers = buffer.get(studentExamId);
+            if (answers == null) {
+                continue;
+            }
+            for (Long questionId : answers.keySet()) {
+                String value = answers.get(questionId);
+                if (value == null) {
+                    continue;
+                }
+                draining.computeIfAbsent(studentExamId, id -> new ConcurrentHashMap<>()).put(questionId, value);
+                if (!answers.remove(questionId, value)) {
+                    // 期间有更新的答案写入，留到下一轮
+                    releaseDrained(studentExamId, questionId, value);
+                    continue;
+                }
+                bufferedCount.decrementAndGet();
+                StudentAnswer answer = new StudentAnswer();
+                answer.setStudentExamId(studentExamId);
+                answer.setQuestionId(questionId);
+                answer.setStudentAnswer(value);
+                drained.add(answer);
+            }
+            buffer.computeIfPresent(studentExamId, (id, map) -> map.isEmpty() ? null : map);
+        }
+
+        // 2. 分批写入
+        int written = 0;
+        for (int from = 0; from < drained.size(); from += batchSize) {
+            List<StudentAnswer> batch = drained.subList(from, Math.min(from + batchSize, drained.size()));
+            try {
+                written += writeBatch(batch);
+            } catch (Exception e) {
+                System.err.println("暂存答案落库失败: " + e.getMessage());
+                requeue(batch);
+            } finally {
+                for (StudentAnswer answer : batch) {
+                    releaseDrained(answer.getStudentExamId(), answer.getQuestionId(), answer.getStudentAnswer());
+                }
+            }
+        }
+        return written;
+    }
+
+    /**
+     * 批次结束（已提交、被丢弃或已放回缓冲）后移除 draining 中的对应答案
+     */
+    private void releaseDrained(Long studentExamId, Long questionId, String value) {
+        draining.computeIfPresent(studentExamId, (id, answers) -> {
+            answers.remove(questionId, value);
+            return answers.isEmpty() ? null : answers;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    /**
+     * 单个短事务：锁定仍在作答的试卷，覆盖对应题目的答案
+     */
+    private int writeBatch(List<StudentAnswer> batch) {
+        Integer rows = transactionTemplate.execute(status -> {
+            Set<Long> ids = batch.stream().map(StudentAnswer::getStudentExamId).collect(Collectors.toSet());
+            Set<Long> inProgress = new HashSet<>(studentExamMapper.lockInProgress(ids));
+            List<StudentAnswer> writable = batch.stream()
+                    .filter(answer -> inProgress.contains(answer.getStudentExamId()))
+                    .collect(Collectors.toList());
+            if (writable.isEmpty()) {
+                return 0;
+            }
+            studentAnswerMapper.deleteByPaperAndQuestion(writable);
+            return studentAnswerMapper.insertBatch(writable);
+        });
+        return rows != null ? rows : 0;
+    }
+
+    /**
+     * 写入失败时放回缓冲，已有更新的答案优先
+     */
+    private void requeue(List<StudentAnswer> batch) {
+        for (StudentAnswer answer : batch) {
+            buffer.compute(answer.getStudentExamId(), (id, answers) -> {
+                if (answers == null) {
+                    answers = new ConcurrentHashMap<>();
+                }
+                if (answers.putIfAbsent(answer.getQuestionId(), answer.getStudentAnswer()) == null) {
+                    bufferedCount.incrementAndGet();
+                }
+                return answers;
+            });
+        }
+    }
+
+    /**
+     * 考试必须存在、已发布且在作答时间内
+     */
+    private void checkOpen(Long examId) {
+        long now = System.currentTimeMillis();
+        ExamWindow window = examWindows.get(examId);
+        if (window == null || window.expiresAt <= now) {
+            window = new ExamWindow(examMapper.selectById(examId), now + examCacheTtlMs);
+            examWindows.put(examId, window);
+        }
+        if (!window.exists) {
+            throw new RuntimeException("考试不存在");
+        }
+        if (!window.published) {
+            throw new RuntimeException("考试未发布");
+        }
+        if (window.startTime != null && window.startTime > now) {
+            throw new RuntimeException("考试尚未开始");
+        }
+        if (window.ended || (window.endTime != null && window.endTime <= now)) {
+            throw new RuntimeException("考试已结束");
+        }
+    }
+
+    /**
+     * 获取或创建作答中的学生考试记录
+     */
+    private Long resolvePaper(Long examId, String studentId) {
+        String key = examId + ":" + studentId;
+        Long cached = paperIds.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        synchronized (paperLocks[(key.hashCode() & 0x7fffffff) % PAPER_LOCKS]) {
+            cached = paperIds.get(key);
+            if (cached != null) {
+                return cached;
+            }
+            QueryWrapper<StudentExam> wrapper = new QueryWrapper<>();
+            wrapper.eq("exam_id", examId);
+            wrapper.eq("student_id", studentId);
+            StudentExam studentExam = studentExamMapper.selectOne(wrapper);
+            if (studentExam == null) {
+                studentExam = new StudentExam();
+                studentExam.setExamId(examId);
+                studentExam.setStudentId(studentId);
+                studentExam.setStartTime(new Date());
+                studentExam.setStatus(1); // 进行中
+                studentExamMapper.insert(studentExam);
+                examStatisticsAggregator.onChange(examId, null, ExamStatisticsAggregator.stateOf(studentExam));
+            } else if (studentExam.getStatus() != null && studentExam.getStatus() >= 2) {
+                throw new RuntimeException("您已提交过该试卷");
+            }
+            paperIds.put(key, studentExam.getStudentExamId());
+            return studentExam.getStudentExamId();
+        }
+    }
+
+    /**
+     * 考试的发布状态与作答时间（缓存项）
+     */
+    private static final class ExamWindow {
+        private final boolean exists;
+        private final boolean published;
+        private final boolean ended;
+        private final Long startTime;
+        private final Long endTime;
+        private final long expiresAt;
+
+        private ExamWindow(Exam exam, long expiresAt) {
+            this.exists = exam != null;
+            this.published = exam != null && Integer.valueOf(1).equals(exam.getStatus());
+            this.ended = exam != null && "ENDED".equals(exam.getLifecycleStatus());
+            this.startTime = exam != null && exam.getStartTime() != null ? exam.getStartTime().getTime() : null;
+            this.endTime = exam != null && exam.getEndTime() != null ? exam.getEndTime().getTime() : null;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.project.service.exam.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.example.project.entity.course.StudentCourse;
+import com.example.project.mapper.course.StudentCourseMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+/**
+ * 考试事件推送（SSE）
+ * 学生端订阅后由服务端推送开考/结束等事件，无需轮询考试列表；事件只发给选修该课程的在线学生
+ */
+@Component
+public class ExamEventBroadcaster {
+
+    @Autowired
+    private StudentCourseMapper studentCourseMapper;
+
+    @Value("${exam.events.sse-timeout-ms:1800000}")
+    private long sseTimeoutMs;
+
+    /**
+     * studentId -> 该学生的连接（可能多个标签页）
+     */
+    private final Map<String, Set<SseEmitter>> emitters = new ConcurrentHashMap<>();
+
+    /**
+     * 订阅考试事件，连接超时后浏览器 EventSource 会自动重连
+     */
+    public SseEmitter subscribe(String studentId) {
+        SseEmitter emitter = new SseEmitter(sseTimeoutMs);
+        Set<SseEmitter> connections = emitters.computeIfAbsent(studentId, id -> new CopyOnWriteArraySet<>());
+        connections.add(emitter);
+        Runnable remove = () -> removeEmitter(studentId, emitter);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(e -> remove.run());
+
+        try {
+            emitter.send(SseEmitter.event().name("connected").data("ok"));
+        } catch (IOException e) {
+            remove.run();
+        }
+        return emitter;
+    }
+
+    /**
+     * 向选修该课程的在线学生推送事件
+     */
+    public void publish(String courseId, String eventName, Object payload) {
+        if (emitters.isEmpty() || courseId == null) {
+            return;
+        }
+        QueryWrapper<StudentCourse> wrapper = new QueryWrapper<>();
+        wrapper.select("student_id");
+        wrapper.eq("course_id", courseId);
+        wrapper.eq("status", 1);
+        for (StudentCourse enrollment : studentCourseMapper.selectList(wrapper)) {
+            String studentId = String.valueOf(enrollment.getStudentId());
+            Set<SseEmitter> connections = emitters.get(studentId);
+            if (connections == null) {
+                continue;
+            }
+            for (SseEmitter emitter : connections) {
+                try {
+                    emitter.send(SseEmitter.event().name(eventName).data(payload));
+                } catch (Exception e) {
+                    removeEmitter(studentId, emitter);
+                }
+            }
+        }
+    }
+
+    /**
+     * 心跳，防止代理断开空闲连接
+     */
+    @Scheduled(fixedDelayString = "${exam.events.heartbeat-ms:25000}")
+    public void heartbeat() {
+        for (Map.Entry<String, Set<SseEmitter>> entry : emitters.entrySet()) {
+            for (SseEmitter emitter : entry.getValue()) {
+                try {
+                    emitter.send(SseEmitter.event().comment("ping"));
+                } catch (Exception e) {
+                    removeEmitter(entry.getKey(), emitter);
+                }
+            }
+        }
+    }
+
+    public int getConnectionCount() {
+        return emitters.values().stream().mapToInt(Set::size).sum();
+    }
+
+    private void removeEmitter(String studentId, SseEmitter emitter) {
+        emitters.computeIfPresent(studentId, (id, connections) -> {
+            connections.remove(emitter);
+            return connections.isEmpty() ? null : connections;
+        });
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.project.service.exam.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.example.project.dto.exam.ExamAnswerExportRow;
+import com.example.project.dto.exam.GradebookEntryRow;
+import com.example.project.dto.exam.StudentExamStatusDTO;
+import com.example.project.entity.exam.Exam;
+import com.example.project.mapper.exam.ExamMapper;
+import com.example.project.mapper.exam.StudentAnswerMapper;
+import com.example.project.mapper.exam.StudentExamMapper;
+import com.example.project.service.exam.ExamExportService;
+import com.example.project.util.TabularWriter;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 考试成绩导出
+ * 通过 MyBatis 游标（MySQL 流式结果集）逐行读取并立即写出，内存占用与提交数量无关。
+ * 游标需要在打开的会话中遍历，因此读取过程包在只读事务中
+ */
+@Service
+public class ExamExportServiceImpl implements ExamExportService {
+
+    private static final String[] STATUS_TEXT = { "未参加", "进行中", "已提交", "已批改" };
+
+    @Autowired
+    private ExamMapper examMapper;
+
+    @Autowired
+    private StudentExamMapper studentExamMapper;
+
+    @Autowired
+    private StudentAnswerMapper studentAnswerMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Override
+    public void exportExamResults(Long examId, String format, String content, OutputStream out) throws IOException {
+        Exam exam = examMapper.selectById(examId);
+        if (exam == null) {
+            throw new RuntimeException("考试不存在");
+        }
+
+        try (TabularWriter writer = TabularWriter.create(format, out)) {
+            boolean answersOnly = !writer.supportsSheets() && "answers".equals(content);
+            boolean resultsOnly = !writer.supportsSheets() && !answersOnly;
+            transactionTemplate.executeWithoutResult(status -> {
+                try {
+                    if (!answersOnly) {
+                        writeResults(writer, exam);
+                    }
+                    if (!resultsOnly) {
+                        writeAnswers(writer, examId);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    @Override
+    public void exportCourseGradebook(String courseId, String format, OutputStream out) throws IOException {
+        // 考试数量有限，作为表头一次查出
+        QueryWrapper<Exam> examWrapper = new QueryWrapper<>();
+        examWrapper.select("exam_id", "exam_title");
+        examWrapper.eq("course_id", courseId);
+        examWrapper.orderByAsc("start_time", "exam_id");
+        List<Exam> exams = examMapper.selectList(examWrapper);
+
+        Map<Long, Integer> columnOf = new HashMap<>();
+        String[] headers = new String[exams.size() + 3];
+        headers[0] = "学号";
+        headers[1] = "姓名";
+        for (int i = 0; i < exams.size(); i++) {
+            columnOf.put(exams.get(i).getExamId(), i + 2);
+            headers[i + 2] = exams.get(i).getExamTitle();
+        }
+        headers[headers.length - 1] = "已批改总分";
+
+        try (TabularWriter writer = TabularWriter.create(format, out)) {
+            writer.startSheet("成绩册", headers);
+            transactionTemplate.executeWithoutResult(status -> {
+                // 同一学生的行连续出现，只保留当前学生的一行
+                Long currentEnrollment = null;
+                Object[] cells = null;
+                BigDecimal total = BigDecimal.ZERO;
+                try (Cursor<GradebookEntryRow> cursor = studentExamMapper.cursorGradebook(courseId)) {
+                    for (GradebookEntryRow row : cursor) {
+                        if (!row.getEnrollmentId().equals(currentEnrollment)) {
+                            if (cells != null) {
+                                cells[cells.length - 1] = total;
+                                writer.writeRow(cells);
+                            }
+                            currentEnrollment = row.getEnrollmentId();
+                            cells = new Object[headers.length];
+                            cells[0] = row.getStudentId();
+                            cells[1] = row.getStudentName();
+                            total = BigDecimal.ZERO;
+                        }
+                        Integer column = row.getExamId() != null ? columnOf.get(row.getExamId()) : null;
+                        if (column == null) {
+                            continue;
+                        }
+                        if (row.getStatus() != null && row.getStatus() == 3 && row.getObtainedScore() != null) {
+                            cells[column] = row.getObtainedScore();
+                            total = total.add(row.getObtainedScore());
+                        } else {
+                            cells[column] = statusText(row.getStatus());
+                        }
+                    }
+                    if (cells != null) {
+                        cells[cells.length - 1] = total;
+                        writer.writeRow(cells);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    private void writeResults(TabularWriter writer, Exam exam) throws IOException {
+        writer.startSheet("成绩", "学号", "姓名", "状态", "得分", "提交时间");
+        try (Cursor<StudentExamStatusDTO> cursor = studentExamMapper.cursorStudentStatus(exam.getExamId(),
+                exam.getCourseId())) {
+            for (StudentExamStatusDTO row : cursor) {
+                writer.writeRow(row.getStudentId(), row.getStudentName(), statusText(row.getStatus()),
+                        row.getObtainedScore(), row.getSubmitTime());
+            }
+        }
+    }
+
+    private void writeAnswers(TabularWriter writer, Long examId) throws IOException {
+        writer.startSheet("答题明细", "学号", "姓名", "题号", "题型", "题目", "学生答案", "正确答案",
+                "是否正确", "得分", "满分", "评语");
+        try (Cursor<ExamAnswerExportRow> cursor = studentAnswerMapper.cursorAnswersForExport(examId)) {
+            for (ExamAnswerExportRow row : cursor) {
+                String correct = row.getIsCorrect() == null ? "" : (row.getIsCorrect() == 1 ? "是" : "否");
+                writer.writeRow(row.getStudentId(), row.getStudentName(), row.getQuestionOrder(),
+                        row.getQuestionType(), row.getQuestionContent(), row.getStudentAnswer(),
+                        row.getCorrectAnswer(), correct, row.getScore(), row.getQuestionScore(),
+                        row.getTeacherComment());
+            }
+        }
+    }
+
+    private String statusText(Integer status) {
+        if (status == null || status < 0 || status >= STATUS_TEXT.length) {
+            return STATUS_TEXT[0];
+        }
+        return STATUS_TEXT[status];
+    }
+}
@@ -9,11 +9,14 @@ import com.example.project.entity.exam.ExamQuestion;
 import com.example.project.entity.exam.StudentAnswer;
 import com.example.project.entity.exam.StudentExam;
 import com.example.project.mapper.StudentUserMapper;
-import com.example.project.mapper.exam.ExamQuestionMapper;
 import com.example.project.mapper.exam.StudentAnswerMapper;
 import com.example.project.mapper.exam.StudentExamMapper;
 import com.example.project.service.exam.ExamGradingService;
+import com.example.project.util.TransactionUtil;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -21,6 +24,12 @@ import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 public class ExamGradingServiceImpl implements ExamGradingService {
@@ -32,10 +41,58 @@ public class ExamGradingServiceImpl implements ExamGradingService {
     private StudentAnswerMapper studentAnswerMapper;
 
     @Autowired
-    private ExamQuestionMapper examQuestionMapper;
+    private StudentUserMapper studentUserMapper;
 
     @Autowired
-    private StudentUserMapper studentUserMapper;
+    private AnswerKeyCache answerKeyCache;
+
+    @Autowired
+    private ExamStatisticsAggregator examStatisticsAggregator;
+
+    @Value("${exam.answer.batch-size:500}")
+    private int answerBatchSize;
+
+    @Value("${exam.grading.prefetch-threads:2}")
+    private int prefetchThreads;
+
+    @Value("${exam.grading.prefetch-ttl-ms:60000}")
+    private long prefetchTtlMs;
+
+    @Value("${exam.grading.prefetch-max:128}")
+    private int prefetchMax;
+
+    private ExecutorService prefetchExecutor;
+
+    /**
+     * 预加载的试卷详情，取用一次后移除；批改或过期后失效
+     */
+    private final Map<Long, Prefetched> prefetched = new ConcurrentHashMap<>();
+
+    private static final class Prefetched {
+        private final Long examId;
+        private final CompletableFuture<StudentExamDetailDTO> future;
+        private final long createdAt = System.currentTimeMillis();
+
+        private Prefetched(Long examId, CompletableFuture<StudentExamDetailDTO> future) {
+            this.examId = examId;
+            this.future = future;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        prefetchExecutor = Executors.newFixedThreadPool(prefetchThreads, r -> {
+            Thread thread = new Thread(r, "exam-grading-prefetch-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        prefetchExecutor.shutdownNow();
+    }
 
     @Override
     public List<StudentExam> getPendingExams(Long examId) {
@@ -48,6 +105,24 @@ public class ExamGradingServiceImpl implements ExamGradingService {
 
     @Override
     public StudentExamDetailDTO getStudentExamDetail(Long studentExamId) {
+        StudentExamDetailDTO detailDTO = takePrefetched(studentExamId);
+        if (detailDTO == null) {
+            detailDTO = buildDetail(studentExamId);
+        }
+
+        // 后台预加载下一份待批改试卷，教师批改当前试卷时即可准备好
+        Long nextId = studentExamMapper.selectNextUngraded(detailDTO.getExamId(), studentExamId);
+        detailDTO.setNextStudentExamId(nextId);
+        if (nextId != null) {
+            prefetch(detailDTO.getExamId(), nextId);
+        }
+        return detailDTO;
+    }
+
+    /**
+     * 组装试卷详情：答题记录一次查询，试题取自按考试共享的缓存
+     */
+    private StudentExamDetailDTO buildDetail(Long studentExamId) {
         // 获取学生考试记录
         StudentExam studentExam = studentExamMapper.selectById(studentExamId);
         if (studentExam == null) {
@@ -73,12 +148,12 @@ public class ExamGradingServiceImpl implements ExamGradingService {
         QueryWrapper<StudentAnswer> answerWrapper = new QueryWrapper<>();
         answerWrapper.eq("student_exam_id", studentExamId);
         List<StudentAnswer> studentAnswers = studentAnswerMapper.selectList(answerWrapper);
+        Map<Long, ExamQuestion> questions = answerKeyCache.getQuestions(studentExam.getExamId());
 
         // 构建答题详情列表
         List<StudentAnswerDTO> answerDTOs = new ArrayList<>();
         for (StudentAnswer answer : studentAnswers) {
-            // 获取试题信息
-            ExamQuestion question = examQuestionMapper.selectById(answer.getQuestionId());
+            ExamQuestion question = questions.get(answer.getQuestionId());
 
             StudentAnswerDTO answerDTO = new StudentAnswerDTO();
             answerDTO.setAnswerId(answer.getAnswerId());
@@ -104,42 +179,85 @@ public class ExamGradingServiceImpl implements ExamGradingService {
         return detailDTO;
     }
 
+    private void prefetch(Long examId, Long studentExamId) {
+        evictExpired();
+        if (prefetched.size() >= prefetchMax) {
+            return;
+        }
+        prefetched.computeIfAbsent(studentExamId, id ->
+                new Prefetched(examId, CompletableFuture.supplyAsync(() -> buildDetail(id), prefetchExecutor)));
+    }
+
+    @Override
+    public void evictPrefetched(Long studentExamId) {
+        prefetched.remove(studentExamId);
+        TransactionUtil.afterCommit(() -> prefetched.remove(studentExamId));
+    }
+
+    @Override
+    public void evictPrefetchedByExam(Long examId) {
+        prefetched.values().removeIf(entry -> examId.equals(entry.examId));
+        TransactionUtil.afterCommit(() -> prefetched.values().removeIf(entry -> examId.equals(entry.examId)));
+    }
+
+    /**
+     * 取出预加载结果，未命中、已过期或加载失败时返回 null
+     */
+    private StudentExamDetailDTO takePrefetched(Long studentExamId) {
+        Prefetched entry = prefetched.remove(studentExamId);
+        if (entry == null || System.currentTimeMillis() - entry.createdAt > prefetchTtlMs) {
+            return null;
+        }
+        try {
+            return entry.future.join();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private void evictExpired() {
+        long now = System.currentTimeMillis();
+        prefetched.values().removeIf(entry -> now - entry.createdAt > prefetchTtlMs);
+    }
+
     @Override
     @Transactional
     public void gradeExam(Long studentExamId, ExamGradingDTO gradingDTO) {
-        // 获取学生考试记录
-        StudentExam studentExam = studentExamMapper.selectById(studentExamId);
+        // 获取并锁定学生考试记录，与重新判分、自动交卷按试卷串行
+        QueryWrapper<StudentExam> seWrapper = new QueryWrapper<>();
+        seWrapper.eq("student_exam_id", studentExamId);
+        seWrapper.last("FOR UPDATE");
+        StudentExam studentExam = studentExamMapper.selectOne(seWrapper);
         if (studentExam == null) {
             throw new RuntimeException("学生考试记录不存在");
         }
+        ExamStatisticsAggregator.ScoreState before = ExamStatisticsAggregator.stateOf(studentExam);
+        evictPrefetched(studentExamId);
 
         // 先自动批改客观题
-        autoGradeObjectiveQuestions(studentExamId);
+        gradeObjectiveQuestions(studentExam);
 
         // 批改主观题
-        BigDecimal totalObtainedScore = BigDecimal.ZERO;
-
-        if (gradingDTO.getAnswers() != null) {
+        if (gradingDTO.getAnswers() != null && !gradingDTO.getAnswers().isEmpty()) {
+            List<StudentAnswer> graded = new ArrayList<>();
             for (ExamGradingDTO.AnswerGradeDTO answerGrade : gradingDTO.getAnswers()) {
-                StudentAnswer answer = studentAnswerMapper.selectById(answerGrade.getAnswerId());
-                if (answer != null) {
-                    answer.setScore(answerGrade.getScore());
-                    answer.setTeacherComment(answerGrade.getTeacherComment());
-                    studentAnswerMapper.updateById(answer);
+                if (answerGrade.getAnswerId() == null) {
+                    continue;
                 }
+                StudentAnswer answer = new StudentAnswer();
+                answer.setAnswerId(answerGrade.getAnswerId());
+                answer.setScore(answerGrade.getScore());
+                answer.setTeacherComment(answerGrade.getTeacherComment());
+                graded.add(answer);
+            }
+            // 单条 CASE 语句批量更新，只作用于本试卷的答题记录
+            if (!graded.isEmpty()) {
+                studentAnswerMapper.updateGradesInChunks(studentExamId, graded, answerBatchSize);
             }
         }
 
         // 计算总分
-        QueryWrapper<StudentAnswer> wrapper = new QueryWrapper<>();
-        wrapper.eq("student_exam_id", studentExamId);
-        List<StudentAnswer> allAnswers = studentAnswerMapper.selectList(wrapper);
-
-        for (StudentAnswer answer : allAnswers) {
-            if (answer.getScore() != null) {
-                totalObtainedScore = totalObtainedScore.add(answer.getScore());
-            }
-        }
+        BigDecimal totalObtainedScore = studentAnswerMapper.sumScore(studentExamId);
 
         // 更新学生考试记录
         studentExam.setObtainedScore(totalObtainedScore);
@@ -147,58 +265,47 @@ public class ExamGradingServiceImpl implements ExamGradingService {
         studentExam.setGradedBy(gradingDTO.getTeacherId());
         studentExam.setGradedTime(new Date());
         studentExamMapper.updateById(studentExam);
+        examStatisticsAggregator.onChange(studentExam.getExamId(), before,
+                ExamStatisticsAggregator.stateOf(studentExam));
     }
 
     @Override
     @Transactional
     public void autoGradeObjectiveQuestions(Long studentExamId) {
+        StudentExam studentExam = studentExamMapper.selectById(studentExamId);
+        if (studentExam != null) {
+            evictPrefetched(studentExamId);
+            gradeObjectiveQuestions(studentExam);
+        }
+    }
+
+    private void gradeObjectiveQuestions(StudentExam studentExam) {
+        Long studentExamId = studentExam.getStudentExamId();
+        AnswerKey answerKey = answerKeyCache.get(studentExam.getExamId());
+
         // 获取所有答题记录
         QueryWrapper<StudentAnswer> wrapper = new QueryWrapper<>();
         wrapper.eq("student_exam_id", studentExamId);
         List<StudentAnswer> studentAnswers = studentAnswerMapper.selectList(wrapper);
 
+        List<StudentAnswer> graded = new ArrayList<>();
         for (StudentAnswer answer : studentAnswers) {
-            // 获取试题信息
-            ExamQuestion question = examQuestionMapper.selectById(answer.getQuestionId());
-            if (question == null) {
+            // 只批改客观题：单选、多选、判断
+            AnswerKey.Entry key = answerKey.get(answer.getQuestionId());
+            if (key == null || !key.getKind().isObjective()) {
                 continue;
             }
 
-            // 只批改客观题：单选(SINGLE)、多选(MULTIPLE)、判断(JUDGE)
-            String questionType = question.getQuestionType();
-            if ("SINGLE".equals(questionType) || "MULTIPLE".equals(questionType) || "JUDGE".equals(questionType)) {
-                String correctAnswer = question.getAnswer();
-                String studentAnswer = answer.getStudentAnswer();
-
-                // 判断答案是否正确
-                boolean isCorrect = false;
-                if (studentAnswer != null && correctAnswer != null) {
-                    // 对于多选题，需要比较排序后的答案
-                    if ("MULTIPLE".equals(questionType)) {
-                        isCorrect = normalizeAnswer(studentAnswer).equals(normalizeAnswer(correctAnswer));
-                    } else {
-                        isCorrect = studentAnswer.trim().equalsIgnoreCase(correctAnswer.trim());
-                    }
-                }
-
-                // 更新答题记录
-                answer.setIsCorrect(isCorrect ? 1 : 0);
-                answer.setScore(isCorrect ? new BigDecimal(question.getScore()) : BigDecimal.ZERO);
-                studentAnswerMapper.updateById(answer);
-            }
+            // 更新答题记录
+            boolean isCorrect = key.matches(answer.getStudentAnswer());
+            answer.setIsCorrect(isCorrect ? 1 : 0);
+            answer.setScore(isCorrect ? key.getScoreValue() : BigDecimal.ZERO);
+            graded.add(answer);
         }
-    }
 
-    /**
-     * 标准化答案（用于多选题比较）
-     * 将答案字符串按字母排序
-     */
-    private String normalizeAnswer(String answer) {
-        if (answer == null) {
-            return "";
+        // 批量写回判分结果
+        if (!graded.isEmpty()) {
+            studentAnswerMapper.updateGradesInChunks(studentExamId, graded, answerBatchSize);
         }
-        char[] chars = answer.trim().toUpperCase().toCharArray();
-        java.util.Arrays.sort(chars);
-        return new String(chars);
     }
 }
@@ -0,0 +1,349 @@
+package com.example.project.service.exam.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.example.project.entity.exam.Exam;
+import com.example.project.entity.exam.StudentAnswer;
+import com.example.project.entity.exam.StudentExam;
+import com.example.project.mapper.exam.ExamMapper;
+import com.example.project.mapper.exam.ExamSubmissionMapper;
+import com.example.project.mapper.exam.StudentAnswerMapper;
+import com.example.project.mapper.exam.StudentExamMapper;
+import com.example.project.service.exam.ExamAutosaveService;
+import com.example.project.util.TransactionUtil;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 考试生命周期调度
+ * 为即将开始/结束的考试在 start_time、end_time 精确注册定时任务：开考时写入 ONGOING，
+ * 结束时将仍在作答的试卷批量交卷并写入 ENDED，状态变化通过 SSE 推送给学生端。
+ * 定时扫描只加载 horizon 时间窗口内的考试，同时补偿重启或多实例下错过的转换（转换条件写在 UPDATE 中，只生效一次）
+ */
+@Component
+public class ExamLifecycleScheduler {
+
+    public static final String EVENT_OPENED = "EXAM_OPENED";
+    public static final String EVENT_CLOSED = "EXAM_CLOSED";
+
+    @Autowired
+    private ExamMapper examMapper;
+
+    @Autowired
+    private StudentExamMapper studentExamMapper;
+
+    @Autowired
+    private StudentAnswerMapper studentAnswerMapper;
+
+    @Autowired
+    private AnswerKeyCache answerKeyCache;
+
+    @Autowired
+    private ExamStatisticsAggregator examStatisticsAggregator;
+
+    @Autowired
+    private ExamAutosaveService examAutosaveService;
+
+    @Autowired
+    private ExamEventBroadcaster examEventBroadcaster;
+
+    @Autowired
+    private ExamSubmissionMapper examSubmissionMapper;
+
+    /**
+     * 延迟注入：判分处理依赖 ExamService，而 ExamService 依赖本类
+     */
+    @Lazy
+    @Autowired
+    private ExamSubmissionWorker examSubmissionWorker;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${exam.lifecycle.horizon-ms:3600000}")
+    private long horizonMs;
+
+    @Value("${exam.lifecycle.auto-submit-chunk-size:200}")
+    private int chunkSize;
+
+    @Value("${exam.answer.batch-size:500}")
+    private int answerBatchSize;
+
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "exam-lifecycle");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * examId -> 已注册的定时任务
+     */
+    private final Map<Long, Timers> scheduled = new ConcurrentHashMap<>();
+
+    private static final class Timers {
+        private final Date startTime;
+        private final Date endTime;
+        private final List<ScheduledFuture<?>> futures = new ArrayList<>();
+
+        private Timers(Date startTime, Date endTime) {
+            this.startTime = startTime;
+            this.endTime = endTime;
+        }
+
+        private boolean sameTimes(Exam exam) {
+            return Objects.equals(startTime, exam.getStartTime()) && Objects.equals(endTime, exam.getEndTime());
+        }
+
+        private void cancel() {
+            futures.forEach(future -> future.cancel(false));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdownNow();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        sweep();
+    }
+
+    /**
+     * 定时扫描时间窗口内的考试并注册定时任务
+     */
+    @Scheduled(fixedDelayString = "${exam.lifecycle.sweep-interval-ms:60000}", initialDelayString = "${exam.lifecycle.sweep-interval-ms:60000}")
+    public void sweep() {
+        try {
+            List<Exam> exams = examMapper.selectLifecycleCandidates(new Date(System.currentTimeMillis() + horizonMs));
+            for (Exam exam : exams) {
+                schedule(exam);
+            }
+        } catch (Exception e) {
+            System.err.println("考试调度扫描失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 考试发布、撤回、修改时间后调用（事务提交后重新注册）
+     */
+    public void reschedule(Long examId) {
+        TransactionUtil.afterCommit(() -> {
+            cancel(examId);
+            Exam exam = examMapper.selectById(examId);
+            if (exam != null && exam.getStatus() != null && exam.getStatus() == 1
+                    && !"ENDED".equals(exam.getLifecycleStatus()) && withinHorizon(exam)) {
+                schedule(exam);
+            }
+        });
+    }
+
+    /**
+     * 考试被删除时调用
+     */
+    public void cancel(Long examId) {
+        examAutosaveService.evictExam(examId);
+        Timers timers = scheduled.remove(examId);
+        if (timers != null) {
+            timers.cancel();
+        }
+    }
+
+    private boolean withinHorizon(Exam exam) {
+        long until = System.currentTimeMillis() + horizonMs;
+        return (exam.getStartTime() != null && exam.getStartTime().getTime() <= until)
+                || (exam.getEndTime() != null && exam.getEndTime().getTime() <= until);
+    }
+
+    private void schedule(Exam exam) {
+        Long examId = exam.getExamId();
+        Timers existing = scheduled.get(examId);
+        if (existing != null && existing.sameTimes(exam)) {
+            return;
+        }
+
+        Timers timers = new Timers(exam.getStartTime(), exam.getEndTime());
+        long now = System.currentTimeMillis();
+        if (exam.getStartTime() != null
+                && (exam.getLifecycleStatus() == null || "PUBLISHED".equals(exam.getLifecycleStatus()))) {
+            long delay = Math.max(0, exam.getStartTime().getTime() - now);
+            timers.futures.add(timer.schedule(() -> open(examId), delay, TimeUnit.MILLISECONDS));
+        }
+        if (exam.getEndTime() != null) {
+            long delay = Math.max(0, exam.getEndTime().getTime() - now);
+            timers.futures.add(timer.schedule(() -> close(examId), delay, TimeUnit.MILLISECONDS));
+        }
+
+        Timers previous = scheduled.put(examId, timers);
+        if (previous != null) {
+            previous.cancel();
+        }
+    }
+
+    private void open(Long examId) {
+        try {
+            Exam exam = examMapper.selectById(examId);
+            // 结束时间已过时直接由结束任务处理
+            if (exam == null || (exam.getEndTime() != null && exam.getEndTime().before(new Date()))) {
+                return;
+            }
+            if (examMapper.markOngoing(examId) > 0) {
+                examEventBroadcaster.publish(exam.getCourseId(), EVENT_OPENED, eventPayload(exam, "ONGOING"));
+            }
+        } catch (Exception e) {
+            System.err.println("考试开考处理失败 examId=" + examId + ": " + e.getMessage());
+        }
+    }
+
+    private void close(Long examId) {
+        try {
+            Exam exam = examMapper.selectById(examId);
+            if (exam == null) {
+                scheduled.remove(examId);
+                return;
+            }
+            // 先交卷再写入 ENDED：中途失败时下次扫描会重新执行（交卷只处理仍在作答的试卷，可重复执行）
+            drainSubmissions(examId);
+            int submitted = autoSubmit(exam);
+            if (examSubmissionMapper.countLiveByExam(examId) > 0) {
+                // 仍有其他线程正在判分的提交：暂不结束，由下次扫描重试
+                scheduled.remove(examId);
+                return;
+            }
+            examAutosaveService.evictExam(examId);
+            if (examMapper.markEnded(examId) > 0) {
+                Map<String, Object> payload = eventPayload(exam, "ENDED");
+                payload.put("autoSubmitted", submitted);
+                examEventBroadcaster.publish(exam.getCourseId(), EVENT_CLOSED, payload);
+            }
+            scheduled.remove(examId);
+        } catch (Exception e) {
+            System.err.println("考试结束处理失败 examId=" + examId + ": " + e.getMessage());
+            scheduled.remove(examId); // 由下次扫描重新注册
+        }
+    }
+
+    /**
+     * 截止前已受理、尚未判分的提交先按学生提交的答案判分，避免被自动交卷覆盖
+     */
+    private void drainSubmissions(Long examId) {
+        for (Long submissionId : examSubmissionMapper.selectPendingIdsByExam(examId)) {
+            try {
+                examSubmissionWorker.processNow(submissionId);
+            } catch (Exception e) {
+                System.err.println("考试结束前处理提交失败 submissionId=" + submissionId + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 将仍在作答中（status=1）的试卷批量交卷：判客观题、汇总得分、写入交卷时间，每批一个短事务；
+     * 已受理但仍在判分中的试卷跳过
+     *
+     * @return 交卷数量
+     */
+    private int autoSubmit(Exam exam) {
+        Long examId = exam.getExamId();
+        Date submitTime = exam.getEndTime() != null ? exam.getEndTime() : new Date();
+
+        // 暂存答案先落库
+        examAutosaveService.flush();
+        AnswerKey answerKey = answerKeyCache.get(examId);
+
+        int total = 0;
+        while (true) {
+            Integer count = transactionTemplate.execute(status -> {
+                QueryWrapper<StudentExam> wrapper = new QueryWrapper<>();
+                wrapper.eq("exam_id", examId);
+                wrapper.eq("status", 1);
+                // 有未完成受理记录的试卷由判分线程按学生的提交处理
+                wrapper.notExists("SELECT 1 FROM exam_submission s WHERE s.exam_id = student_exam.exam_id "
+                        + "AND s.student_id = student_exam.student_id AND s.status IN ('PENDING', 'PROCESSING')");
+                wrapper.orderByAsc("student_exam_id");
+                wrapper.last("LIMIT " + chunkSize + " FOR UPDATE");
+                List<StudentExam> papers = studentExamMapper.selectList(wrapper);
+                if (papers.isEmpty()) {
+                    return 0;
+                }
+                List<Long> paperIds = papers.stream().map(StudentExam::getStudentExamId).collect(Collectors.toList());
+
+                QueryWrapper<StudentAnswer> answerWrapper = new QueryWrapper<>();
+                answerWrapper.in("student_exam_id", paperIds);
+                List<StudentAnswer> answers = studentAnswerMapper.selectList(answerWrapper);
+
+                // 与 submitExam 相同的判分规则：客观题自动判分，主观题记 0 分待批改
+                Map<Long, BigDecimal> scores = new HashMap<>();
+                Set<Long> hasSubjective = new HashSet<>();
+                for (StudentAnswer answer : answers) {
+                    AnswerKey.Entry key = answerKey.get(answer.getQuestionId());
+                    boolean correct = key != null && key.getKind().isObjective() && key.matches(answer.getStudentAnswer());
+                    if (key != null && !key.getKind().isObjective()) {
+                        hasSubjective.add(answer.getStudentExamId());
+                    }
+                    answer.setIsCorrect(correct ? 1 : 0);
+                    answer.setScore(correct ? key.getScoreValue() : BigDecimal.ZERO);
+                    scores.merge(answer.getStudentExamId(), answer.getScore(), BigDecimal::add);
+                }
+                for (int from = 0; from < answers.size(); from += answerBatchSize) {
+                    studentAnswerMapper.batchUpdateObjectiveGrades(
+                            answers.subList(from, Math.min(from + answerBatchSize, answers.size())));
+                }
+
+                List<ExamStatisticsAggregator.ScoreState> before = new ArrayList<>();
+                for (StudentExam paper : papers) {
+                    before.add(ExamStatisticsAggregator.stateOf(paper));
+                    paper.setStatus(hasSubjective.contains(paper.getStudentExamId()) ? 2 : 3);
+                    paper.setObtainedScore(scores.getOrDefault(paper.getStudentExamId(), BigDecimal.ZERO));
+                    paper.setSubmitTime(submitTime);
+                }
+                studentExamMapper.autoSubmitPapers(papers, submitTime);
+                for (int i = 0; i < papers.size(); i++) {
+                    examStatisticsAggregator.onChange(examId, before.get(i),
+                            ExamStatisticsAggregator.stateOf(papers.get(i)));
+                }
+                return papers.size();
+            });
+            if (count == null || count == 0) {
+                break;
+            }
+            total += count;
+        }
+        if (total > 0) {
+            System.out.println("考试结束自动交卷 examId=" + examId + ", 共 " + total + " 份");
+        }
+        return total;
+    }
+
+    private Map<String, Object> eventPayload(Exam exam, String statusText) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("examId", exam.getExamId());
+        payload.put("courseId", exam.getCourseId());
+        payload.put("examTitle", exam.getExamTitle());
+        payload.put("statusText", statusText);
+        payload.put("startTime", exam.getStartTime());
+        payload.put("endTime", exam.getEndTime());
+        return payload;
+    }
+}
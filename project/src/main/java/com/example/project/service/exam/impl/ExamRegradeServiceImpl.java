@@ -0,0 +1,270 @@
+package com.example.project.service.exam.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.example.project.entity.exam.StudentAnswer;
+import com.example.project.entity.exam.StudentExam;
+import com.example.project.mapper.exam.StudentAnswerMapper;
+import com.example.project.mapper.exam.StudentExamMapper;
+import com.example.project.service.exam.ExamGradingService;
+import com.example.project.service.exam.ExamRegradeService;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * 考试重新判分
+ * 按 student_exam_id 分块读取已提交试卷，在 ForkJoinPool 中并行按最新标准答案重判客观题，
+ * 每块用一条 CASE 语句批量写回并重新汇总试卷得分。主观题（教师批改）的得分保持不变。
+ * 每块在一个事务中先锁定试卷（与提交、批改相同的行锁），重判期间的批改会等待本块提交后再读取
+ */
+@Service
+public class ExamRegradeServiceImpl implements ExamRegradeService {
+
+    private static final int MAX_RETAINED_JOBS = 100;
+
+    @Autowired
+    private StudentExamMapper studentExamMapper;
+
+    @Autowired
+    private StudentAnswerMapper studentAnswerMapper;
+
+    @Autowired
+    private AnswerKeyCache answerKeyCache;
+
+    @Autowired
+    private ExamStatisticsAggregator examStatisticsAggregator;
+
+    @Autowired
+    private ExamGradingService examGradingService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${exam.regrade.chunk-size:200}")
+    private int chunkSize;
+
+    @Value("${exam.answer.batch-size:500}")
+    private int answerBatchSize;
+
+    private final ForkJoinPool gradingPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    private final ExecutorService jobExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "exam-regrade");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<String, RegradeJob> jobs = Collections.synchronizedMap(new LinkedHashMap<>());
+
+    private final Set<Long> runningExams = ConcurrentHashMap.newKeySet();
+
+    @PreDestroy
+    public void shutdown() {
+        jobExecutor.shutdownNow();
+        gradingPool.shutdownNow();
+    }
+
+    @Override
+    public Map<String, Object> startRegrade(Long examId) {
+        if (!runningExams.add(examId)) {
+            throw new RuntimeException("该考试正在重新判分，请稍后再试");
+        }
+
+        try {
+            QueryWrapper<StudentExam> countWrapper = new QueryWrapper<>();
+            countWrapper.eq("exam_id", examId);
+            countWrapper.ge("status", 2);
+            long total = studentExamMapper.selectCount(countWrapper);
+
+            RegradeJob job = new RegradeJob(UUID.randomUUID().toString(), examId, total);
+            registerJob(job);
+            jobExecutor.execute(() -> {
+                try {
+                    runJob(job);
+                    job.finish("COMPLETED", null);
+                } catch (Exception e) {
+                    job.finish("FAILED", e.getMessage());
+                } finally {
+                    runningExams.remove(examId);
+                    // 得分已变化，重建考试统计
+                    try {
+                        examStatisticsAggregator.rebuild(examId);
+                    } catch (Exception e) {
+                        System.err.println("重建考试统计失败 examId=" + examId + ": " + e.getMessage());
+                    }
+                }
+            });
+            return job.toStatus();
+        } catch (RuntimeException e) {
+            runningExams.remove(examId);
+            throw e;
+        }
+    }
+
+    @Override
+    public Map<String, Object> getRegradeStatus(String jobId) {
+        RegradeJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new RuntimeException("重新判分任务不存在");
+        }
+        return job.toStatus();
+    }
+
+    private void runJob(RegradeJob job) {
+        Long examId = job.examId;
+        AnswerKey answerKey = answerKeyCache.get(examId);
+
+        long[] lastId = {0};
+        while (true) {
+            // 每块一个短事务：锁定本块试卷后再读取答题记录，避免与同时进行的批改、提交互相覆盖
+            Integer count = transactionTemplate.execute(status -> {
+                // 1. 按主键分块读取并锁定已提交试卷（状态在锁内重新判断）
+                QueryWrapper<StudentExam> wrapper = new QueryWrapper<>();
+                wrapper.select("student_exam_id");
+                wrapper.eq("exam_id", examId);
+                wrapper.ge("status", 2);
+                wrapper.gt("student_exam_id", lastId[0]);
+                wrapper.orderByAsc("student_exam_id");
+                wrapper.last("LIMIT " + chunkSize + " FOR UPDATE");
+                List<StudentExam> papers = studentExamMapper.selectList(wrapper);
+                if (papers.isEmpty()) {
+                    return 0;
+                }
+                List<Long> paperIds = papers.stream().map(StudentExam::getStudentExamId).collect(Collectors.toList());
+                lastId[0] = paperIds.get(paperIds.size() - 1);
+
+                // 2. 一次读取本块全部答题记录
+                QueryWrapper<StudentAnswer> answerWrapper = new QueryWrapper<>();
+                answerWrapper.in("student_exam_id", paperIds);
+                List<StudentAnswer> answers = studentAnswerMapper.selectList(answerWrapper);
+
+                // 3. 并行重判客观题，只保留结果有变化的记录
+                List<StudentAnswer> changed;
+                try {
+                    changed = gradingPool.submit(() -> answers.parallelStream()
+                            .filter(answer -> regrade(answerKey, answer))
+                            .collect(Collectors.toList())).get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("重新判分被中断", e);
+                } catch (ExecutionException e) {
+                    throw new RuntimeException("重新判分失败: " + e.getCause().getMessage(), e.getCause());
+                }
+
+                // 4. 批量写回并重新汇总得分
+                if (!changed.isEmpty()) {
+                    Set<Long> changedPapers = changed.stream().map(StudentAnswer::getStudentExamId)
+                            .collect(Collectors.toSet());
+                    for (int from = 0; from < changed.size(); from += answerBatchSize) {
+                        studentAnswerMapper.batchUpdateObjectiveGrades(
+                                changed.subList(from, Math.min(from + answerBatchSize, changed.size())));
+                    }
+                    studentExamMapper.refreshObtainedScores(changedPapers);
+                    examGradingService.evictPrefetchedByExam(examId);
+                    job.changedPapers.addAndGet(changedPapers.size());
+                }
+
+                job.processedPapers.addAndGet(papers.size());
+                job.processedAnswers.addAndGet(answers.size());
+                job.changedAnswers.addAndGet(changed.size());
+                return papers.size();
+            });
+            if (count == null || count == 0) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * 按标准答案重判单条答题记录，结果变化时修改记录并返回 true；主观题不处理
+     */
+    private boolean regrade(AnswerKey answerKey, StudentAnswer answer) {
+        AnswerKey.Entry key = answerKey.get(answer.getQuestionId());
+        if (key == null || !key.getKind().isObjective()) {
+            return false;
+        }
+        boolean correct = key.matches(answer.getStudentAnswer());
+        Integer isCorrect = correct ? 1 : 0;
+        BigDecimal score = correct ? key.getScoreValue() : BigDecimal.ZERO;
+        if (isCorrect.equals(answer.getIsCorrect()) && answer.getScore() != null
+                && answer.getScore().compareTo(score) == 0) {
+            return false;
+        }
+        answer.setIsCorrect(isCorrect);
+        answer.setScore(score);
+        return true;
+    }
+
+    private void registerJob(RegradeJob job) {
+        synchronized (jobs) {
+            jobs.put(job.jobId, job);
+            // 只保留最近的任务记录
+            Iterator<RegradeJob> iterator = jobs.values().iterator();
+            while (jobs.size() > MAX_RETAINED_JOBS && iterator.hasNext()) {
+                if (iterator.next().endTime > 0) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * 重新判分任务进度
+     */
+    private static final class RegradeJob {
+        private final String jobId;
+        private final Long examId;
+        private final long totalPapers;
+        private final long startTime = System.currentTimeMillis();
+        private final AtomicInteger processedPapers = new AtomicInteger();
+        private final AtomicInteger processedAnswers = new AtomicInteger();
+        private final AtomicInteger changedAnswers = new AtomicInteger();
+        private final AtomicInteger changedPapers = new AtomicInteger();
+        private volatile String status = "RUNNING";
+        private volatile String errorMessage;
+        private volatile long endTime;
+
+        private RegradeJob(String jobId, Long examId, long totalPapers) {
+            this.jobId = jobId;
+            this.examId = examId;
+            this.totalPapers = totalPapers;
+        }
+
+        private void finish(String status, String errorMessage) {
+            this.errorMessage = errorMessage;
+            this.endTime = System.currentTimeMillis();
+            this.status = status;
+        }
+
+        private Map<String, Object> toStatus() {
+            long elapsed = (endTime > 0 ? endTime : System.currentTimeMillis()) - startTime;
+            int processed = processedPapers.get();
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("jobId", jobId);
+            result.put("examId", examId);
+            result.put("status", status);
+            result.put("totalPapers", totalPapers);
+            result.put("processedPapers", processed);
+            result.put("processedAnswers", processedAnswers.get());
+            result.put("changedAnswers", changedAnswers.get());
+            result.put("changedPapers", changedPapers.get());
+            result.put("progress", totalPapers > 0 ? Math.min(100.0, processed * 100.0 / totalPapers) : 100.0);
+            result.put("elapsedMs", elapsed);
+            result.put("papersPerSecond", elapsed > 0 ? processed * 1000.0 / elapsed : 0.0);
+            result.put("errorMessage", errorMessage);
+            return result;
+        }
+    }
+}
@@ -1,9 +1,14 @@
 package com.example.project.service.exam.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.example.project.dto.exam.ExamCreateDTO;
 import com.example.project.dto.exam.ExamQuestionDTO;
 import com.example.project.dto.exam.ExamStatisticsDTO;
+import com.example.project.dto.exam.StudentExamListItemDTO;
+import com.example.project.dto.exam.StudentExamStatusDTO;
+import com.example.project.entity.DeletionJob;
 import com.example.project.entity.Student;
 import com.example.project.entity.exam.Exam;
 import com.example.project.entity.exam.ExamQuestion;
@@ -15,13 +20,16 @@ import com.example.project.mapper.exam.ExamQuestionMapper;
 import com.example.project.mapper.exam.StudentExamMapper;
 import com.example.project.mapper.exam.StudentAnswerMapper;
 import com.example.project.mapper.course.StudentCourseMapper;
+import com.example.project.service.DeletionJobService;
 import com.example.project.service.exam.ExamService;
+import com.example.project.service.impl.TeacherDashboardCounters;
+import com.example.project.service.impl.TeacherDashboardCounters.Counter;
+import com.example.project.util.TransactionUtil;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -43,9 +51,6 @@ public class ExamServiceImpl implements ExamService {
     @Autowired
     private StudentAnswerMapper studentAnswerMapper;
 
-    @Autowired
-    private com.example.project.mapper.StudentUserMapper studentUserMapper;
-
     @Override
     @Transactional
     public Long createExam(ExamCreateDTO examDTO) {
@@ -75,10 +80,8 @@ public class ExamServiceImpl implements ExamService {
         wrapper.orderByDesc("create_time");
         List<Exam> exams = examMapper.selectList(wrapper);
 
-        // 为每个考试添加额外信息
-        for (Exam exam : exams) {
-            enrichExamInfo(exam);
-        }
+        // 批量添加额外信息
+        enrichExamInfo(exams);
 
         return exams;
     }
@@ -89,45 +92,58 @@ public class ExamServiceImpl implements ExamService {
         wrapper.eq("teacher_id", teacherId);
         wrapper.orderByDesc("create_time");
         List<Exam> exams = examMapper.selectList(wrapper);
-
-        for (Exam exam : exams) {
-            enrichExamInfo(exam);
-        }
+        enrichExamInfo(exams);
 
         return exams;
     }
 
     @Autowired
-    private com.example.project.mapper.enrollment.CourseEnrollmentMapper courseEnrollmentMapper;
+    private ExamSummaryAggregator examSummaryAggregator;
+
+    @Autowired
+    private AnswerKeyCache answerKeyCache;
+
+    @Autowired
+    private com.example.project.mapper.exam.ExamSubmissionMapper examSubmissionMapper;
+
+    @Autowired
+    private ExamStatisticsAggregator examStatisticsAggregator;
+
+    @Autowired
+    private com.example.project.service.exam.ExamAutosaveService examAutosaveService;
+
+    @Autowired
+    private com.example.project.service.exam.ExamGradingService examGradingService;
+
+    @Autowired
+    private DeletionJobService deletionJobService;
+
+    @Autowired
+    private ExamLifecycleScheduler examLifecycleScheduler;
+
+    @Autowired
+    private TeacherDashboardCounters teacherDashboardCounters;
+
+    @org.springframework.beans.factory.annotation.Value("${exam.answer.batch-size:500}")
+    private int answerBatchSize;
 
     /**
      * 丰富考试信息（添加课程名称、参考人数等）
      */
     private void enrichExamInfo(Exam exam) {
-        // 获取课程名称
-        if (exam.getCourseId() != null) {
-            com.example.project.entity.course.Course course = examMapper.selectCourseById(exam.getCourseId());
-            if (course != null) {
-                exam.setCourseName(course.getCourseName());
-            }
-
-            // 获取参与人数（本次课程的参与人数）
-            QueryWrapper<com.example.project.entity.enrollment.CourseEnrollment> enrollmentWrapper = new QueryWrapper<>();
-            enrollmentWrapper.eq("course_id", exam.getCourseId());
-            enrollmentWrapper.eq("status", "approved");
-            Long enrollmentCount = courseEnrollmentMapper.selectCount(enrollmentWrapper);
-            exam.setTotalStudents(enrollmentCount.intValue());
-        }
+        enrichExamInfo(Collections.singletonList(exam));
+    }
 
-        // 获取提交人数统计
-        QueryWrapper<StudentExam> wrapper = new QueryWrapper<>();
-        wrapper.eq("exam_id", exam.getExamId());
-        wrapper.ge("status", 2); // 2-已提交, 3-已批改
-        Long submittedCount = studentExamMapper.selectCount(wrapper);
-        exam.setSubmittedCount(submittedCount.intValue());
+    /**
+     * 批量丰富考试信息，查询次数与列表长度无关
+     */
+    private void enrichExamInfo(List<Exam> exams) {
+        examSummaryAggregator.enrich(exams);
 
         // 设置考试状态文本
-        updateExamStatus(exam);
+        for (Exam exam : exams) {
+            updateExamStatus(exam);
+        }
     }
 
     /**
@@ -230,28 +246,48 @@ public class ExamServiceImpl implements ExamService {
     }
 
     @Override
+    @Transactional
     public void updateExam(Long examId, Exam exam) {
         exam.setExamId(examId);
+        exam.setLifecycleStatus(null);
         examMapper.updateById(exam);
+        answerKeyCache.invalidate(examId);
+
+        // 修改了考试时间：重新计算阶段并注册定时任务
+        if (exam.getStartTime() != null || exam.getEndTime() != null) {
+            Exam current = examMapper.selectById(examId);
+            if (current != null && current.getStatus() != null && current.getStatus() == 1) {
+                examMapper.updateLifecycleStatus(examId, "PUBLISHED");
+            }
+            examLifecycleScheduler.reschedule(examId);
+        }
     }
 
     @Override
+    @Transactional
     public void publishExam(Long examId) {
+        Exam before = examMapper.selectById(examId);
         Exam exam = new Exam();
         exam.setExamId(examId);
         exam.setStatus(1); // 已发布
+        exam.setLifecycleStatus("PUBLISHED"); // 开考、结束由调度器按时间写入
         examMapper.updateById(exam);
+        examLifecycleScheduler.reschedule(examId);
+        if (before != null && !Integer.valueOf(1).equals(before.getStatus())) {
+            teacherDashboardCounters.adjustByCourse(before.getCourseId(), Counter.PUBLISHED_EXAMS, 1);
+        }
     }
 
     @Override
     @Transactional
     public void saveExamQuestions(Long examId, List<ExamQuestionDTO> questions) {
-        // 1. 删除现有试题
-        QueryWrapper<ExamQuestion> qWrapper = new QueryWrapper<>();
-        qWrapper.eq("exam_id", examId);
-        examQuestionMapper.delete(qWrapper);
+        // 1. 现有试题（按ID原地更新，保持学生答题记录与试题的关联，便于重新判分）
+        Set<Long> existingIds = getExamQuestions(examId).stream()
+                .map(ExamQuestion::getQuestionId)
+                .collect(Collectors.toSet());
+        Set<Long> keptIds = new HashSet<>();
 
-        // 2. 插入新试题并计算总分
+        // 2. 更新/插入试题并计算总分
         int totalScore = 0;
         if (questions != null && !questions.isEmpty()) {
             for (int i = 0; i < questions.size(); i++) {
@@ -262,176 +298,88 @@ public class ExamServiceImpl implements ExamService {
                 if (question.getQuestionOrder() == null) {
                     question.setQuestionOrder(i + 1);
                 }
-                examQuestionMapper.insert(question);
+                if (question.getQuestionId() != null && existingIds.contains(question.getQuestionId())
+                        && keptIds.add(question.getQuestionId())) {
+                    examQuestionMapper.updateById(question);
+                } else {
+                    question.setQuestionId(null);
+                    examQuestionMapper.insert(question);
+                }
                 totalScore += (dto.getScore() != null ? dto.getScore() : 0);
             }
         }
 
+        // 删除已移除的试题
+        existingIds.removeAll(keptIds);
+        if (!existingIds.isEmpty()) {
+            examQuestionMapper.deleteByIds(existingIds);
+        }
+
         // 3. 更新考试记录的总分
         Exam exam = examMapper.selectById(examId);
         if (exam != null) {
             exam.setTotalScore(totalScore);
             examMapper.updateById(exam);
         }
+
+        // 4. 使标准答案缓存失效
+        answerKeyCache.invalidate(examId);
     }
 
     @Override
     @Transactional
-    public void deleteExam(Long examId) {
-        // 1. 获取所有相关的 student_exam_id
-        QueryWrapper<StudentExam> seWrapper = new QueryWrapper<>();
-        seWrapper.eq("exam_id", examId);
-        List<StudentExam> studentExams = studentExamMapper.selectList(seWrapper);
-        List<Long> seIds = studentExams.stream().map(StudentExam::getStudentExamId).collect(Collectors.toList());
-
-        // 2. 删除相关的学生作答记录
-        if (!seIds.isEmpty()) {
-            QueryWrapper<StudentAnswer> saWrapper = new QueryWrapper<>();
-            saWrapper.in("student_exam_id", seIds);
-            studentAnswerMapper.delete(saWrapper);
-        }
-
-        // 3. 删除相关的学生考试记录
-        studentExamMapper.delete(seWrapper);
-
-        // 4. 删除试卷试题
-        QueryWrapper<ExamQuestion> qWrapper = new QueryWrapper<>();
-        qWrapper.eq("exam_id", examId);
-        examQuestionMapper.delete(qWrapper);
-
-        // 5. 最后删除考试本身
+    public Long deleteExam(Long examId) {
+        // 立即删除考试本身，作答记录、提交受理记录及试题由后台任务按批清理
+        Exam before = examMapper.selectById(examId);
         examMapper.deleteById(examId);
+        if (before != null && Integer.valueOf(1).equals(before.getStatus())) {
+            teacherDashboardCounters.adjustByCourse(before.getCourseId(), Counter.PUBLISHED_EXAMS, -1);
+        }
+        answerKeyCache.invalidate(examId);
+        examStatisticsAggregator.evict(examId);
+        TransactionUtil.afterCommit(() -> examLifecycleScheduler.cancel(examId));
+        return deletionJobService.enqueue(DeletionJob.TYPE_EXAM, String.valueOf(examId));
     }
 
     @Override
     public ExamStatisticsDTO getExamStatistics(Long examId) {
-        ExamStatisticsDTO statistics = new ExamStatisticsDTO();
-        statistics.setExamId(examId);
-
-        // 查询所有学生考试记录
-        QueryWrapper<StudentExam> wrapper = new QueryWrapper<>();
-        wrapper.eq("exam_id", examId);
-        List<StudentExam> studentExams = studentExamMapper.selectList(wrapper);
-
-        statistics.setTotalStudents(studentExams.size());
-
-        int submittedCount = 0;
-        int gradedCount = 0;
-        BigDecimal totalScore = BigDecimal.ZERO;
-        BigDecimal maxScore = BigDecimal.ZERO;
-        BigDecimal minScore = new BigDecimal("100");
-        int passCount = 0;
-
-        Map<String, Integer> scoreDistribution = new HashMap<>();
-        scoreDistribution.put("0-59", 0);
-        scoreDistribution.put("60-69", 0);
-        scoreDistribution.put("70-79", 0);
-        scoreDistribution.put("80-89", 0);
-        scoreDistribution.put("90-100", 0);
-
-        for (StudentExam studentExam : studentExams) {
-            if (studentExam.getStatus() >= 2) { // 已提交
-                submittedCount++;
-            }
-            if (studentExam.getStatus() == 3) { // 已批改
-                gradedCount++;
-                BigDecimal score = studentExam.getObtainedScore();
-                if (score != null) {
-                    totalScore = totalScore.add(score);
-                    if (score.compareTo(maxScore) > 0) {
-                        maxScore = score;
-                    }
-                    if (score.compareTo(minScore) < 0) {
-                        minScore = score;
-                    }
+        // 统计由提交、批改、退回增量维护，读取无需扫描全部考试记录
+        return examStatisticsAggregator.getStatistics(examId);
+    }
 
-                    // 统计分数分布
-                    int scoreInt = score.intValue();
-                    if (scoreInt < 60) {
-                        scoreDistribution.put("0-59", scoreDistribution.get("0-59") + 1);
-                    } else if (scoreInt < 70) {
-                        scoreDistribution.put("60-69", scoreDistribution.get("60-69") + 1);
-                    } else if (scoreInt < 80) {
-                        scoreDistribution.put("70-79", scoreDistribution.get("70-79") + 1);
-                    } else if (scoreInt < 90) {
-                        scoreDistribution.put("80-89", scoreDistribution.get("80-89") + 1);
-                    } else {
-                        scoreDistribution.put("90-100", scoreDistribution.get("90-100") + 1);
-                    }
+    @Override
+    public ExamStatisticsDTO rebuildExamStatistics(Long examId) {
+        return examStatisticsAggregator.rebuild(examId);
+    }
 
-                    if (scoreInt >= 60) {
-                        passCount++;
-                    }
-                }
-            }
+    @Override
+    public List<StudentExamStatusDTO> getStudentExamStatus(Long examId) {
+        Exam exam = examMapper.selectById(examId);
+        if (exam == null) {
+            return new ArrayList<>();
         }
+        // 选课学生、姓名与作答记录一次关联查询
+        return studentExamMapper.selectStudentStatus(examId, exam.getCourseId());
+    }
 
-        statistics.setSubmittedCount(submittedCount);
-        statistics.setGradedCount(gradedCount);
-
-        if (gradedCount > 0) {
-            statistics.setAverageScore(totalScore.divide(new BigDecimal(gradedCount), 2, RoundingMode.HALF_UP));
-            statistics.setMaxScore(maxScore);
-            statistics.setMinScore(minScore);
-            statistics.setPassRate(new BigDecimal(passCount)
-                    .divide(new BigDecimal(gradedCount), 4, RoundingMode.HALF_UP).multiply(new BigDecimal("100")));
+    @Override
+    public IPage<StudentExamStatusDTO> getStudentExamStatusPage(Long examId, Integer pageNumber, Integer pageSize) {
+        Page<StudentExamStatusDTO> page = new Page<>(pageNumber, pageSize);
+        Exam exam = examMapper.selectById(examId);
+        if (exam == null) {
+            return page;
         }
-
-        statistics.setScoreDistribution(scoreDistribution);
-
-        return statistics;
+        return studentExamMapper.selectStudentStatusPage(page, examId, exam.getCourseId());
     }
 
     @Override
-    public List<Map<String, Object>> getStudentExamStatus(Long examId) {
+    public void streamStudentExamStatus(Long examId, java.util.function.Consumer<StudentExamStatusDTO> consumer) {
         Exam exam = examMapper.selectById(examId);
         if (exam == null) {
-            return new ArrayList<>();
+            throw new RuntimeException("考试不存在");
         }
-
-        // 1. 获取所有已选该课程并审核通过的学生
-        QueryWrapper<com.example.project.entity.enrollment.CourseEnrollment> enrollmentWrapper = new QueryWrapper<>();
-        enrollmentWrapper.eq("course_id", exam.getCourseId());
-        enrollmentWrapper.eq("status", "approved");
-        List<com.example.project.entity.enrollment.CourseEnrollment> enrollments = courseEnrollmentMapper
-                .selectList(enrollmentWrapper);
-
-        // 2. 获取现有的考试记录
-        QueryWrapper<StudentExam> wrapper = new QueryWrapper<>();
-        wrapper.eq("exam_id", examId);
-        List<StudentExam> studentExams = studentExamMapper.selectList(wrapper);
-        Map<String, StudentExam> examMap = studentExams.stream()
-                .collect(Collectors.toMap(StudentExam::getStudentId, se -> se, (v1, v2) -> v1));
-
-        // 3. 合并信息
-        return enrollments.stream().map(enrollment -> {
-            String studentId = enrollment.getStudentId();
-            Map<String, Object> map = new HashMap<>();
-            map.put("studentId", studentId);
-
-            // 获取学生姓名
-            try {
-                com.example.project.entity.Student student = studentUserMapper.selectById(Integer.parseInt(studentId));
-                map.put("studentName", student != null ? student.getStudentsUsername() : "未知学生");
-            } catch (Exception e) {
-                map.put("studentName", "学生" + studentId);
-            }
-
-            StudentExam se = examMap.get(studentId);
-            if (se != null) {
-                map.put("studentExamId", se.getStudentExamId());
-                map.put("status", se.getStatus()); // 1-进行中, 2-已提交, 3-已批改
-                map.put("obtainedScore", se.getObtainedScore());
-                map.put("submitTime", se.getSubmitTime());
-            } else {
-                map.put("studentExamId", null);
-                map.put("status", 0); // 0-未参加
-                map.put("obtainedScore", null);
-                map.put("submitTime", null);
-            }
-
-            return map;
-        }).collect(Collectors.toList());
+        studentExamMapper.streamStudentStatus(examId, exam.getCourseId(),
+                context -> consumer.accept(context.getResultObject()));
     }
 
     @Override
@@ -468,23 +416,30 @@ public class ExamServiceImpl implements ExamService {
         wrapper.orderByDesc("create_time");
 
         List<Exam> exams = examMapper.selectList(wrapper);
-        for (Exam exam : exams) {
-            enrichExamInfo(exam);
-        }
+        enrichExamInfo(exams);
         return exams;
     }
 
+    @Override
     @Transactional
     public void unpublishExam(Long examId) {
+        Exam before = examMapper.selectById(examId);
         Exam exam = new Exam();
         exam.setExamId(examId);
         exam.setStatus(0); // 设置回草稿状态
         examMapper.updateById(exam);
+        examMapper.updateLifecycleStatus(examId, null);
+        examLifecycleScheduler.reschedule(examId);
+        if (before != null && Integer.valueOf(1).equals(before.getStatus())) {
+            teacherDashboardCounters.adjustByCourse(before.getCourseId(), Counter.PUBLISHED_EXAMS, -1);
+        }
     }
 
     @Override
     @Transactional
     public void returnStudentExam(Long studentExamId) {
+        StudentExam studentExam = studentExamMapper.selectById(studentExamId);
+
         // 删除该学生的答题记录
         QueryWrapper<StudentAnswer> answerWrapper = new QueryWrapper<>();
         answerWrapper.eq("student_exam_id", studentExamId);
@@ -492,11 +447,26 @@ public class ExamServiceImpl implements ExamService {
 
         // 删除该学生的考试记录（或者将其状态重置，这里选择直接删除记录让学生重考）
         studentExamMapper.deleteById(studentExamId);
+        examAutosaveService.takeBuffered(studentExamId); // 丢弃旧试卷的暂存答案与缓存的试卷ID
+        examGradingService.evictPrefetched(studentExamId);
+
+        // 删除提交受理记录，允许重新提交
+        if (studentExam != null) {
+            examSubmissionMapper.deleteByKey(studentExam.getExamId(), studentExam.getStudentId());
+            examStatisticsAggregator.onChange(studentExam.getExamId(),
+                    ExamStatisticsAggregator.stateOf(studentExam), null);
+        }
     }
 
     @Override
     @Transactional
     public void submitExam(com.example.project.dto.exam.StudentExamSubmitDTO submitDTO) {
+        submitExam(submitDTO, new Date());
+    }
+
+    @Override
+    @Transactional
+    public void submitExam(com.example.project.dto.exam.StudentExamSubmitDTO submitDTO, Date submitTime) {
         Long examId = submitDTO.getExamId();
         Long studentId = submitDTO.getStudentId();
 
@@ -510,7 +480,9 @@ public class ExamServiceImpl implements ExamService {
         QueryWrapper<StudentExam> seWrapper = new QueryWrapper<>();
         seWrapper.eq("exam_id", examId);
         seWrapper.eq("student_id", String.valueOf(studentId));
+        seWrapper.last("FOR UPDATE"); // 锁定试卷，避免与暂存答案落库交错
         StudentExam studentExam = studentExamMapper.selectOne(seWrapper);
+        ExamStatisticsAggregator.ScoreState before = ExamStatisticsAggregator.stateOf(studentExam);
 
         if (studentExam == null) {
             // 如果之前没有记录（比如没点过任何保存），创建一个
@@ -524,54 +496,57 @@ public class ExamServiceImpl implements ExamService {
             throw new RuntimeException("您已提交过该试卷，请勿重复提交");
         }
 
-        // 3. 获取试卷题目用于判分
-        List<ExamQuestion> questions = getExamQuestions(examId);
-        Map<Long, ExamQuestion> questionMap = questions.stream()
-                .collect(Collectors.toMap(ExamQuestion::getQuestionId, q -> q));
+        // 3. 获取试卷标准答案用于判分（缓存，题目修改时失效）
+        AnswerKey answerKey = answerKeyCache.get(examId);
 
         // 4. 保存答案并自动判分
-        BigDecimal totalScore = BigDecimal.ZERO;
+        int totalScore = 0;
         boolean hasSubjective = false;
 
-        Date now = new Date();
-
-        // 先删除旧答案 (如果有保存功能的话，这里是为了覆盖)
+        // 提交内容优先，其次是内存中尚未落库的暂存答案，最后是已落库的暂存答案（如刷新页面后未重新提交的题目）
+        List<com.example.project.dto.exam.StudentAnswerDTO> submitted = new ArrayList<>();
+        Set<Long> submittedQuestionIds = new HashSet<>();
+        if (submitDTO.getAnswers() != null) {
+            for (com.example.project.dto.exam.StudentAnswerDTO ansDTO : submitDTO.getAnswers()) {
+                submitted.add(ansDTO);
+                submittedQuestionIds.add(ansDTO.getQuestionId());
+            }
+        }
+        Map<Long, String> drafts = new LinkedHashMap<>();
         QueryWrapper<StudentAnswer> saWrapper = new QueryWrapper<>();
         saWrapper.eq("student_exam_id", studentExam.getStudentExamId());
+        for (StudentAnswer saved : studentAnswerMapper.selectList(saWrapper)) {
+            drafts.put(saved.getQuestionId(), saved.getStudentAnswer());
+        }
+        drafts.putAll(examAutosaveService.takeBuffered(studentExam.getStudentExamId()));
+        for (Map.Entry<Long, String> draft : drafts.entrySet()) {
+            if (submittedQuestionIds.add(draft.getKey())) {
+                com.example.project.dto.exam.StudentAnswerDTO ansDTO = new com.example.project.dto.exam.StudentAnswerDTO();
+                ansDTO.setQuestionId(draft.getKey());
+                ansDTO.setAnswer(draft.getValue());
+                submitted.add(ansDTO);
+            }
+        }
+
+        // 删除旧答案，下面按合并后的内容重新写入
         studentAnswerMapper.delete(saWrapper);
 
-        if (submitDTO.getAnswers() != null) {
-            for (com.example.project.dto.exam.StudentAnswerDTO ansDTO : submitDTO.getAnswers()) {
+        List<StudentAnswer> answers = new ArrayList<>();
+        if (!submitted.isEmpty()) {
+            for (com.example.project.dto.exam.StudentAnswerDTO ansDTO : submitted) {
                 StudentAnswer answer = new StudentAnswer();
                 answer.setStudentExamId(studentExam.getStudentExamId());
                 answer.setQuestionId(ansDTO.getQuestionId());
                 answer.setStudentAnswer(ansDTO.getAnswer()); // 使用 answer 字段
 
-                ExamQuestion question = questionMap.get(ansDTO.getQuestionId());
-                if (question != null) {
+                AnswerKey.Entry key = answerKey.get(ansDTO.getQuestionId());
+                if (key != null) {
                     // 自动判分逻辑
-                    String type = question.getQuestionType();
-                    boolean isObjective = "SINGLE".equals(type) || "SINGLE_CHOICE".equals(type) ||
-                            "MULTIPLE".equals(type) || "MULTIPLE_CHOICE".equals(type) ||
-                            "JUDGE".equals(type) || "TRUE_FALSE".equals(type);
-
-                    if (isObjective) {
-                        // 简单比对答案 (假设答案已标准化)
-                        // 对于多选，假设前端和服务端都排序过
-                        String correct = question.getAnswer();
-                        String studentAns = ansDTO.getAnswer();
-
-                        // 移除空格和无关字符进行比较
-                        boolean correctMatch = false;
-                        if (correct != null && studentAns != null) {
-                            correctMatch = correct.trim().equalsIgnoreCase(studentAns.trim());
-                        }
-
-                        if (correctMatch) {
+                    if (key.getKind().isObjective()) {
+                        if (key.matches(ansDTO.getAnswer())) {
                             answer.setIsCorrect(1);
-                            BigDecimal qScore = new BigDecimal(question.getScore());
-                            answer.setScore(qScore);
-                            totalScore = totalScore.add(qScore);
+                            answer.setScore(key.getScoreValue());
+                            totalScore += key.getScore();
                         } else {
                             answer.setIsCorrect(0);
                             answer.setScore(BigDecimal.ZERO);
@@ -584,13 +559,18 @@ public class ExamServiceImpl implements ExamService {
                     }
                 }
 
-                studentAnswerMapper.insert(answer);
+                answers.add(answer);
             }
         }
 
+        // 批量写入答题记录（多行 INSERT，每批一条语句）
+        if (!answers.isEmpty()) {
+            studentAnswerMapper.insertInChunks(answers, answerBatchSize);
+        }
+
         // 5. 更新学生考试记录
-        studentExam.setSubmitTime(now);
-        studentExam.setObtainedScore(totalScore);
+        studentExam.setSubmitTime(submitTime != null ? submitTime : new Date());
+        studentExam.setObtainedScore(BigDecimal.valueOf(totalScore));
 
         if (hasSubjective) {
             studentExam.setStatus(2);
@@ -599,135 +579,33 @@ public class ExamServiceImpl implements ExamService {
         }
 
         studentExamMapper.updateById(studentExam);
-
+        examStatisticsAggregator.onChange(examId, before, ExamStatisticsAggregator.stateOf(studentExam));
     }
 
     @Override
-    public List<Map<String, Object>> getStudentExams(String studentId, String status, String courseId) {
-        // 1. 获取学生选修的所有有效课程ID
-        QueryWrapper<com.example.project.entity.course.StudentCourse> courseWrapper = new QueryWrapper<>();
-        try {
-            courseWrapper.eq("student_id", Integer.parseInt(studentId));
-        } catch (Exception e) {
-            courseWrapper.eq("student_id", studentId); // 降级处理
-        }
-        courseWrapper.eq("status", 1); // 仅限学习中的课程
-
-        List<com.example.project.entity.course.StudentCourse> enrolledCourses = studentCourseMapper
-                .selectList(courseWrapper);
-        if (enrolledCourses.isEmpty()) {
-            return new ArrayList<>(); // 没有选课，自然没有考试
-        }
-
-        Map<String, Date> courseJoinTimeMap = enrolledCourses.stream()
-                .filter(sc -> sc.getCourseId() != null)
-                .collect(Collectors.toMap(
-                        com.example.project.entity.course.StudentCourse::getCourseId,
-                        sc -> sc.getJoinTime() != null ? sc.getJoinTime()
-                                : (sc.getCreateTime() != null ? sc.getCreateTime() : new Date(0)),
-                        (existing, replacement) -> existing));
-
-        List<String> enrolledCourseIds = new ArrayList<>(courseJoinTimeMap.keySet());
-
-        // 如果指定了 courseId，检查是否已选修且为学习状态
-        if (courseId != null && !courseId.isEmpty() && !"null".equals(courseId)) {
-            if (!courseJoinTimeMap.containsKey(courseId)) {
-                return new ArrayList<>(); // 未选修此课或非在听课状态，无权查看
-            }
-            enrolledCourseIds = Collections.singletonList(courseId);
-        }
+    public List<StudentExamListItemDTO> getStudentExams(String studentId, String status, String courseId) {
+        // 不分页：size 为 -1 时不追加 LIMIT，也不执行 count
+        Page<StudentExamListItemDTO> page = new Page<>(1, -1, false);
+        return getStudentExamPage(studentId, status, courseId, page).getRecords();
+    }
 
-        // 2. 查询这些课程的考试
-        QueryWrapper<Exam> examWrapper = new QueryWrapper<>();
-        examWrapper.in("course_id", enrolledCourseIds);
+    @Override
+    public IPage<StudentExamListItemDTO> getStudentExamPage(String studentId, String status, String courseId,
+                                                            Integer pageNumber, Integer pageSize) {
+        return getStudentExamPage(studentId, status, courseId, new Page<>(pageNumber, pageSize));
+    }
 
-        // 3. 处理状态过滤 (默认为非草稿)
+    private IPage<StudentExamListItemDTO> getStudentExamPage(String studentId, String status, String courseId,
+                                                             Page<StudentExamListItemDTO> page) {
+        // 草稿考试对学生不可见
         if ("DRAFT".equals(status)) {
-            return new ArrayList<>();
-        }
-        examWrapper.eq("status", 1); // 只显示已发布的
-
-        // 4. 获取学生的答题记录 (先查出来用于合并过滤逻辑)
-        QueryWrapper<StudentExam> seWrapper = new QueryWrapper<>();
-        seWrapper.eq("student_id", studentId);
-        List<StudentExam> studentExams = studentExamMapper.selectList(seWrapper);
-        Map<Long, StudentExam> studentExamMap = studentExams.stream()
-                .collect(Collectors.toMap(StudentExam::getExamId, se -> se, (v1, v2) -> v1));
-
-        examWrapper.orderByDesc("create_time");
-        List<Exam> exams = examMapper.selectList(examWrapper);
-
-        Date now = new Date();
-        // 5. 应用加入时间过滤逻辑
-        List<Exam> filteredExams = new ArrayList<>();
-        for (Exam exam : exams) {
-            Date joinTime = courseJoinTimeMap.get(exam.getCourseId());
-            Date createTime = exam.getCreateTime();
-            Date endTime = exam.getEndTime();
-
-            // 逻辑：
-            // 1. 加入后发布的考试 (createTime >= joinTime)
-            // 2. 加入前发布但未截止的考试 (createTime < joinTime && endTime > now)
-            // 3. 特殊情况：如果学生已经提交了，无论如何都应该显示
-            boolean isJoinedAfterPublish = createTime != null && joinTime != null
-                    && (createTime.after(joinTime) || createTime.equals(joinTime));
-            boolean isNotExpired = endTime != null && endTime.after(now);
-            boolean hasSubmitted = studentExamMap.containsKey(exam.getExamId());
-
-            if (isJoinedAfterPublish || isNotExpired || hasSubmitted) {
-                // 如果还指定了前端的状态过滤 (ONGOING, ENDED 等)，则在这里进一步判断
-                if (status != null && !status.isEmpty()) {
-                    boolean statusMatch = false;
-                    if ("ONGOING".equals(status)) {
-                        statusMatch = now.after(exam.getStartTime()) && now.before(exam.getEndTime());
-                    } else if ("FUTURE".equals(status) || "PUBLISHED".equals(status)) {
-                        statusMatch = now.before(exam.getStartTime());
-                    } else if ("ENDED".equals(status)) {
-                        statusMatch = now.after(exam.getEndTime());
-                    } else {
-                        statusMatch = true;
-                    }
-                    if (!statusMatch)
-                        continue;
-                }
-                filteredExams.add(exam);
-            }
+            return page;
         }
-        exams = filteredExams;
-
-        // 5. 组装结果
-        List<Map<String, Object>> resultList = new ArrayList<>();
-        for (Exam exam : exams) {
-            enrichExamInfo(exam);
-
-            Map<String, Object> map = new HashMap<>();
-            // Manually put essential fields or use BeanUtils to map -> object then convert
-            // Simple way:
-            map.put("examId", exam.getExamId());
-            map.put("examTitle", exam.getExamTitle());
-            map.put("courseId", exam.getCourseId());
-            map.put("courseName", exam.getCourseName());
-            map.put("startTime", exam.getStartTime());
-            map.put("endTime", exam.getEndTime());
-            map.put("duration", exam.getDuration());
-            map.put("totalScore", exam.getTotalScore());
-            map.put("passScore", exam.getPassScore());
-
-            StudentExam se = studentExamMap.get(exam.getExamId());
-            if (se != null) {
-                map.put("studentExamId", se.getStudentExamId());
-                map.put("studentScore", se.getObtainedScore());
-                map.put("isSubmitted", true);
-                map.put("studentStatus", se.getStatus());
-            } else {
-                map.put("isSubmitted", false);
-                map.put("studentScore", null);
-            }
-
-            resultList.add(map);
+        if (courseId != null && (courseId.isEmpty() || "null".equals(courseId))) {
+            courseId = null;
         }
-
-        return resultList;
+        // 选课、发布时间、状态过滤及作答记录合并均在 SQL 中完成
+        return examMapper.selectStudentExamPage(page, studentId, courseId, status, new Date());
     }
 
     @Override
@@ -767,4 +645,9 @@ public class ExamServiceImpl implements ExamService {
 
         return result;
     }
+
+    @Override
+    public Map<String, Object> getExamSummaryMetrics() {
+        return examSummaryAggregator.getMetrics();
+    }
 }
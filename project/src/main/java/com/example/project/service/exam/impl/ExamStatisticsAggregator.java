@@ -0,0 +1,296 @@
+package com.example.project.service.exam.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.example.project.dto.exam.ExamStatisticsDTO;
+import com.example.project.entity.exam.StudentExam;
+import com.example.project.mapper.exam.StudentExamMapper;
+import com.example.project.util.TransactionUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 考试成绩统计聚合
+ * 每场考试在内存中维护提交数、批改数、总分、分数有序计数（用于最高/最低分）、及格数和分数段计数，
+ * 由提交、批改、退回试卷增量更新，读取统计为 O(1)。
+ * 首次读取时从 student_exam 构建一次，也可通过 rebuild 手动重建；
+ * 内存中最多保留 cache-size 场考试（LRU 淘汰），被淘汰的考试下次读取时重新构建
+ */
+@Component
+public class ExamStatisticsAggregator {
+
+    @Autowired
+    private StudentExamMapper studentExamMapper;
+
+    /**
+     * 分数段下边界，如 60,70,80,90 对应 0-59、60-69、70-79、80-89、90-100
+     */
+    @Value("${exam.statistics.bucket-boundaries:60,70,80,90}")
+    private int[] bucketBoundaries;
+
+    @Value("${exam.statistics.pass-score:60}")
+    private int passScore;
+
+    @Value("${exam.statistics.cache-size:1024}")
+    private int maxSize;
+
+    private final Map<Long, Aggregate> aggregates = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Aggregate> eldest) {
+            return size() > maxSize;
+        }
+    };
+
+    /**
+     * 正在构建的考试（examId -> 代数及构建中的请求数），由 aggregates 锁保护；
+     * 构建期间发生变更会换一个新代数，构建结果不缓存。代数取自全局递增序列，构建结束后即删除
+     */
+    private final Map<Long, Loading> loading = new HashMap<>();
+
+    private final AtomicLong generationSeq = new AtomicLong();
+
+    private static final class Loading {
+        private long generation;
+        private int count;
+    }
+
+    /**
+     * 学生考试记录对统计的贡献（状态 + 得分，分为单位）
+     */
+    public static final class ScoreState {
+        private final int status;
+        private final Long scoreCents;
+
+        private ScoreState(int status, Long scoreCents) {
+            this.status = status;
+            this.scoreCents = scoreCents;
+        }
+
+        private boolean isGraded() {
+            return status == 3 && scoreCents != null;
+        }
+    }
+
+    /**
+     * 记录当前状态，需在修改 StudentExam 之前调用
+     */
+    public static ScoreState stateOf(StudentExam studentExam) {
+        if (studentExam == null) {
+            return null;
+        }
+        int status = studentExam.getStatus() != null ? studentExam.getStatus() : 0;
+        BigDecimal score = studentExam.getObtainedScore();
+        Long cents = score != null ? score.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue() : null;
+        return new ScoreState(status, cents);
+    }
+
+    /**
+     * 学生考试记录发生变化（before 为 null 表示新增，after 为 null 表示删除）
+     * 事务提交后才更新内存统计
+     */
+    public void onChange(Long examId, ScoreState before, ScoreState after) {
+        if (examId == null) {
+            return;
+        }
+        TransactionUtil.afterCommit(() -> {
+            Aggregate aggregate;
+            synchronized (aggregates) {
+                markChanged(examId);
+                aggregate = aggregates.get(examId);
+            }
+            if (aggregate != null) {
+                aggregate.replace(before, after);
+            }
+        });
+    }
+
+    /**
+     * 获取考试统计
+     */
+    public ExamStatisticsDTO getStatistics(Long examId) {
+        Aggregate aggregate;
+        synchronized (aggregates) {
+            aggregate = aggregates.get(examId);
+        }
+        if (aggregate == null) {
+            aggregate = load(examId);
+        }
+        return aggregate.toDTO(examId);
+    }
+
+    /**
+     * 从数据库重建考试统计（用于数据修复后纠正偏差）
+     */
+    public ExamStatisticsDTO rebuild(Long examId) {
+        synchronized (aggregates) {
+            aggregates.remove(examId);
+        }
+        return load(examId).toDTO(examId);
+    }
+
+    /**
+     * 移除考试统计（考试被删除时调用）
+     */
+    public void evict(Long examId) {
+        TransactionUtil.afterCommit(() -> {
+            synchronized (aggregates) {
+                markChanged(examId);
+                aggregates.remove(examId);
+            }
+        });
+    }
+
+    /**
+     * 考试正在构建时换一个新代数，使构建结果不被缓存；需持有 aggregates 锁
+     */
+    private void markChanged(Long examId) {
+        Loading state = loading.get(examId);
+        if (state != null) {
+            state.generation = generationSeq.incrementAndGet();
+        }
+    }
+
+    private Aggregate load(Long examId) {
+        long generation;
+        synchronized (aggregates) {
+            Loading state = loading.computeIfAbsent(examId, id -> {
+                Loading created = new Loading();
+                created.generation = generationSeq.incrementAndGet();
+                return created;
+            });
+            state.count++;
+            generation = state.generation;
+        }
+
+        try {
+            return build(examId, generation);
+        } finally {
+            synchronized (aggregates) {
+                Loading state = loading.get(examId);
+                if (--state.count == 0) {
+                    loading.remove(examId);
+                }
+            }
+        }
+    }
+
+    private Aggregate build(Long examId, long generation) {
+        QueryWrapper<StudentExam> wrapper = new QueryWrapper<>();
+        wrapper.select("status", "obtained_score");
+        wrapper.eq("exam_id", examId);
+        List<StudentExam> studentExams = studentExamMapper.selectList(wrapper);
+
+        Aggregate aggregate = new Aggregate(bucketBoundaries, passScore);
+        for (StudentExam studentExam : studentExams) {
+            aggregate.replace(null, stateOf(studentExam));
+        }
+
+        // 构建期间有变更则不缓存，下次读取重新构建
+        synchronized (aggregates) {
+            if (loading.get(examId).generation == generation) {
+                aggregates.put(examId, aggregate);
+            }
+        }
+        return aggregate;
+    }
+
+    /**
+     * 单场考试的统计状态
+     */
+    private static final class Aggregate {
+        private final int[] boundaries;
+        private final int passScore;
+        private final int[] buckets;
+        private final TreeMap<Long, Integer> scoreCounts = new TreeMap<>();
+        private int totalStudents;
+        private int submittedCount;
+        private int gradedCount;
+        private int passCount;
+        private long sumCents;
+
+        private Aggregate(int[] boundaries, int passScore) {
+            this.boundaries = boundaries.clone();
+            Arrays.sort(this.boundaries);
+            this.passScore = passScore;
+            this.buckets = new int[this.boundaries.length + 1];
+        }
+
+        synchronized void replace(ScoreState before, ScoreState after) {
+            if (before != null) {
+                apply(before, -1);
+            }
+            if (after != null) {
+                apply(after, 1);
+            }
+        }
+
+        private void apply(ScoreState state, int delta) {
+            totalStudents += delta;
+            if (state.status >= 2) { // 已提交
+                submittedCount += delta;
+            }
+            if (state.isGraded()) { // 已批改
+                long cents = state.scoreCents;
+                gradedCount += delta;
+                sumCents += delta * cents;
+                scoreCounts.merge(cents, delta, Integer::sum);
+                if (scoreCounts.get(cents) <= 0) {
+                    scoreCounts.remove(cents);
+                }
+
+                // 统计分数分布
+                int scoreInt = (int) (cents / 100);
+                buckets[bucketOf(scoreInt)] += delta;
+                if (scoreInt >= passScore) {
+                    passCount += delta;
+                }
+            }
+        }
+
+        private int bucketOf(int scoreInt) {
+            for (int i = 0; i < boundaries.length; i++) {
+                if (scoreInt < boundaries[i]) {
+                    return i;
+                }
+            }
+            return boundaries.length;
+        }
+
+        synchronized ExamStatisticsDTO toDTO(Long examId) {
+            ExamStatisticsDTO statistics = new ExamStatisticsDTO();
+            statistics.setExamId(examId);
+            statistics.setTotalStudents(totalStudents);
+            statistics.setSubmittedCount(submittedCount);
+            statistics.setGradedCount(gradedCount);
+
+            if (gradedCount > 0 && !scoreCounts.isEmpty()) {
+                BigDecimal graded = new BigDecimal(gradedCount);
+                statistics.setAverageScore(BigDecimal.valueOf(sumCents, 2).divide(graded, 2, RoundingMode.HALF_UP));
+                statistics.setMaxScore(BigDecimal.valueOf(scoreCounts.lastKey(), 2));
+                statistics.setMinScore(BigDecimal.valueOf(scoreCounts.firstKey(), 2));
+                statistics.setPassRate(new BigDecimal(passCount)
+                        .divide(graded, 4, RoundingMode.HALF_UP).multiply(new BigDecimal("100")));
+            }
+
+            Map<String, Integer> scoreDistribution = new LinkedHashMap<>();
+            for (int i = 0; i < buckets.length; i++) {
+                int lower = i == 0 ? 0 : boundaries[i - 1];
+                String upper = i < boundaries.length ? String.valueOf(boundaries[i] - 1) : "100";
+                scoreDistribution.put(lower + "-" + upper, buckets[i]);
+            }
+            statistics.setScoreDistribution(scoreDistribution);
+
+            return statistics;
+        }
+    }
+}
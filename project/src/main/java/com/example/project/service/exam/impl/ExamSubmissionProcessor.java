@@ -0,0 +1,47 @@
+package com.example.project.service.exam.impl;
+
+import com.alibaba.fastjson2.JSON;
+import com.example.project.dto.exam.StudentExamSubmitDTO;
+import com.example.project.entity.exam.ExamSubmission;
+import com.example.project.mapper.exam.ExamSubmissionMapper;
+import com.example.project.service.exam.ExamService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * 已受理提交的判分处理
+ * 判分与标记完成在同一事务中提交，进程中途崩溃时重新处理不会产生重复数据
+ */
+@Component
+public class ExamSubmissionProcessor {
+
+    @Autowired
+    private ExamSubmissionMapper examSubmissionMapper;
+
+    @Autowired
+    private ExamService examService;
+
+    /**
+     * 判分并标记完成
+     */
+    @Transactional
+    public void process(Long submissionId) {
+        ExamSubmission submission = examSubmissionMapper.selectById(submissionId);
+        if (submission == null) {
+            return;
+        }
+        StudentExamSubmitDTO submitDTO = JSON.parseObject(submission.getPayload(), StudentExamSubmitDTO.class);
+        // 交卷时间为受理时间，而不是排队后的处理时间
+        examService.submitExam(submitDTO, submission.getCreateTime());
+        examSubmissionMapper.updateStatus(submissionId, ExamSubmission.STATUS_DONE, null);
+    }
+
+    /**
+     * 标记判分失败，学生可重新提交
+     */
+    public void markFailed(Long submissionId, String message) {
+        String error = message != null && message.length() > 500 ? message.substring(0, 500) : message;
+        examSubmissionMapper.updateStatus(submissionId, ExamSubmission.STATUS_FAILED, error);
+    }
+}
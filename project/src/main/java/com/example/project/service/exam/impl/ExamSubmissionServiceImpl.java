@@ -0,0 +1,106 @@
+package com.example.project.service.exam.impl;
+
+import com.alibaba.fastjson2.JSON;
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.example.project.dto.exam.StudentExamSubmitDTO;
+import com.example.project.entity.exam.ExamSubmission;
+import com.example.project.entity.exam.StudentExam;
+import com.example.project.mapper.exam.ExamSubmissionMapper;
+import com.example.project.mapper.exam.StudentExamMapper;
+import com.example.project.service.exam.ExamSubmissionService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Service
+public class ExamSubmissionServiceImpl implements ExamSubmissionService {
+
+    @Autowired
+    private ExamSubmissionMapper examSubmissionMapper;
+
+    @Autowired
+    private StudentExamMapper studentExamMapper;
+
+    @Autowired
+    private ExamSubmissionWorker examSubmissionWorker;
+
+    @Override
+    public Map<String, Object> submit(StudentExamSubmitDTO submitDTO) {
+        if (submitDTO.getExamId() == null || submitDTO.getStudentId() == null) {
+            throw new RuntimeException("缺少考试或学生信息");
+        }
+        String studentId = String.valueOf(submitDTO.getStudentId());
+        String payload = JSON.toJSONString(submitDTO);
+
+        // 1. 由唯一键 (exam_id, student_id) 保证只受理一次
+        ExamSubmission submission = new ExamSubmission();
+        submission.setExamId(submitDTO.getExamId());
+        submission.setStudentId(studentId);
+        submission.setPayload(payload);
+
+        Long submissionId;
+        if (examSubmissionMapper.insertIgnore(submission) > 0) {
+            submissionId = submission.getId();
+        } else {
+            ExamSubmission existing = examSubmissionMapper.selectByKey(submitDTO.getExamId(), studentId);
+            if (existing == null) {
+                throw new RuntimeException("提交失败，请重试");
+            }
+            if (ExamSubmission.STATUS_DONE.equals(existing.getStatus())) {
+                throw new RuntimeException("您已提交过该试卷，请勿重复提交");
+            }
+            if (!ExamSubmission.STATUS_FAILED.equals(existing.getStatus())
+                    || examSubmissionMapper.reopenFailed(existing.getId(), payload) == 0) {
+                // 已受理、正在判分：重复请求直接返回当前状态
+                return buildStatus(examSubmissionMapper.selectById(existing.getId()));
+            }
+            submissionId = existing.getId();
+        }
+
+        // 2. 异步模式交给工作线程池，同步模式在当前线程判分
+        if (examSubmissionWorker.isAsyncEnabled()) {
+            examSubmissionWorker.dispatch(submissionId);
+        } else {
+            examSubmissionWorker.processNow(submissionId);
+        }
+        return buildStatus(examSubmissionMapper.selectById(submissionId));
+    }
+
+    @Override
+    public Map<String, Object> getSubmissionStatus(Long examId, String studentId) {
+        ExamSubmission submission = examSubmissionMapper.selectByKey(examId, studentId);
+        if (submission == null) {
+            Map<String, Object> result = new HashMap<>();
+            result.put("examId", examId);
+            result.put("studentId", studentId);
+            result.put("status", "NONE");
+            return result;
+        }
+        return buildStatus(submission);
+    }
+
+    private Map<String, Object> buildStatus(ExamSubmission submission) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("submissionId", submission.getId());
+        result.put("examId", submission.getExamId());
+        result.put("studentId", submission.getStudentId());
+        result.put("status", submission.getStatus());
+        result.put("errorMessage", submission.getErrorMessage());
+
+        // 判分完成后附带成绩状态：2-已提交(待批改主观题), 3-已批改
+        if (ExamSubmission.STATUS_DONE.equals(submission.getStatus())) {
+            QueryWrapper<StudentExam> wrapper = new QueryWrapper<>();
+            wrapper.eq("exam_id", submission.getExamId());
+            wrapper.eq("student_id", submission.getStudentId());
+            StudentExam studentExam = studentExamMapper.selectOne(wrapper);
+            if (studentExam != null) {
+                result.put("studentExamId", studentExam.getStudentExamId());
+                result.put("studentStatus", studentExam.getStatus());
+                result.put("obtainedScore", studentExam.getObtainedScore());
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.project.service.exam.impl;
+
+import com.example.project.mapper.exam.ExamSubmissionMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 试卷提交判分工作线程池
+ * 受理后的提交由固定数量的线程按数据库可承受的速度判分；
+ * 线程池队列满时提交保持 PENDING，由定时轮询补偿，进程重启后同样由轮询恢复
+ */
+@Component
+public class ExamSubmissionWorker {
+
+    @Autowired
+    private ExamSubmissionMapper examSubmissionMapper;
+
+    @Autowired
+    private ExamSubmissionProcessor examSubmissionProcessor;
+
+    @Value("${exam.submit.async:false}")
+    private boolean asyncEnabled;
+
+    @Value("${exam.submit.workers:4}")
+    private int workers;
+
+    @Value("${exam.submit.queue-capacity:200}")
+    private int queueCapacity;
+
+    @Value("${exam.submit.stale-timeout-ms:300000}")
+    private long staleTimeoutMs;
+
+    private ThreadPoolExecutor executor;
+
+    /**
+     * 已进入线程池但尚未处理完的提交，避免轮询重复派发
+     */
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread thread = new Thread(r, "exam-submit-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    public boolean isAsyncEnabled() {
+        return asyncEnabled;
+    }
+
+    /**
+     * 派发到线程池，队列已满时返回 false（留给轮询处理）
+     */
+    public boolean dispatch(Long submissionId) {
+        if (!inFlight.add(submissionId)) {
+            return true;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    processNow(submissionId);
+                } catch (Exception e) {
+                    System.err.println("试卷提交判分失败 submissionId=" + submissionId + ": " + e.getMessage());
+                } finally {
+                    inFlight.remove(submissionId);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(submissionId);
+            return false;
+        }
+    }
+
+    /**
+     * 在当前线程领取并处理一条提交，判分失败时标记 FAILED 并抛出原异常
+     *
+     * @return 未领取到（已被其他线程处理）时返回 false
+     */
+    public boolean processNow(Long submissionId) {
+        if (examSubmissionMapper.claim(submissionId) == 0) {
+            return false;
+        }
+        try {
+            examSubmissionProcessor.process(submissionId);
+        } catch (RuntimeException e) {
+            examSubmissionProcessor.markFailed(submissionId, e.getMessage());
+            throw e;
+        }
+        return true;
+    }
+
+    /**
+     * 定时补偿：恢复卡住的提交，并按线程池剩余容量派发待判分提交
+     */
+    @Scheduled(fixedDelayString = "${exam.submit.poll-interval-ms:2000}")
+    public void poll() {
+        if (!asyncEnabled) {
+            return;
+        }
+        examSubmissionMapper.requeueStale(new Date(System.currentTimeMillis() - staleTimeoutMs));
+
+        int capacity = executor.getQueue().remainingCapacity();
+        if (capacity <= 0) {
+            return;
+        }
+        List<Long> pendingIds = examSubmissionMapper.selectPendingIds(capacity);
+        for (Long id : pendingIds) {
+            if (!dispatch(id)) {
+                break;
+            }
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.project.service.exam.impl;
+
+import com.example.project.entity.exam.Exam;
+import com.example.project.mapper.enrollment.CourseEnrollmentMapper;
+import com.example.project.mapper.exam.ExamMapper;
+import com.example.project.mapper.exam.StudentExamMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 考试列表汇总信息聚合器
+ * 一次性为整批考试加载课程名称、审核通过人数和已提交人数，
+ * 无论列表多长，最多只发出 3 条分组查询（GROUP BY course_id / exam_id）
+ */
+@Component
+public class ExamSummaryAggregator {
+
+    @Autowired
+    private ExamMapper examMapper;
+
+    @Autowired
+    private CourseEnrollmentMapper courseEnrollmentMapper;
+
+    @Autowired
+    private StudentExamMapper studentExamMapper;
+
+    /**
+     * 查询次数统计，用于验证列表接口的数据库往返次数保持为常数
+     */
+    private final AtomicLong batchCount = new AtomicLong();
+    private final AtomicLong examCount = new AtomicLong();
+    private final AtomicLong queryCount = new AtomicLong();
+    private final AtomicLong maxQueriesPerBatch = new AtomicLong();
+    private volatile int lastBatchQueries;
+    private volatile int lastBatchSize;
+
+    /**
+     * 批量填充考试的课程名称、参考人数（审核通过的报名人数）和提交人数
+     */
+    public void enrich(List<Exam> exams) {
+        if (exams == null || exams.isEmpty()) {
+            return;
+        }
+
+        Set<String> courseIds = new HashSet<>();
+        Set<Long> examIds = new HashSet<>();
+        for (Exam exam : exams) {
+            if (exam.getCourseId() != null) {
+                courseIds.add(exam.getCourseId());
+            }
+            if (exam.getExamId() != null) {
+                examIds.add(exam.getExamId());
+            }
+        }
+
+        int queries = 0;
+        Map<String, String> courseNames = new HashMap<>();
+        Map<String, Integer> approvedCounts = new HashMap<>();
+        Map<Long, Integer> submittedCounts = new HashMap<>();
+
+        if (!courseIds.isEmpty()) {
+            // 1. 课程名称
+            for (Map<String, Object> row : examMapper.selectCourseNamesByIds(courseIds)) {
+                courseNames.put(String.valueOf(row.get("courseId")), (String) row.get("courseName"));
+            }
+            queries++;
+
+            // 2. 审核通过的报名人数 (GROUP BY course_id)
+            for (Map<String, Object> row : courseEnrollmentMapper.countApprovedByCourseIds(courseIds)) {
+                approvedCounts.put(String.valueOf(row.get("courseId")), toInt(row.get("approvedCount")));
+            }
+            queries++;
+        }
+
+        if (!examIds.isEmpty()) {
+            // 3. 已提交人数 (GROUP BY exam_id)
+            for (Map<String, Object> row : studentExamMapper.countSubmittedByExamIds(examIds)) {
+                submittedCounts.put(toLong(row.get("examId")), toInt(row.get("submittedCount")));
+            }
+            queries++;
+        }
+
+        for (Exam exam : exams) {
+            if (exam.getCourseId() != null) {
+                String courseName = courseNames.get(exam.getCourseId());
+                if (courseName != null) {
+                    exam.setCourseName(courseName);
+                }
+                exam.setTotalStudents(approvedCounts.getOrDefault(exam.getCourseId(), 0));
+            }
+            exam.setSubmittedCount(submittedCounts.getOrDefault(exam.getExamId(), 0));
+        }
+
+        recordBatch(exams.size(), queries);
+    }
+
+    /**
+     * 获取查询次数统计
+     */
+    public Map<String, Object> getMetrics() {
+        long batches = batchCount.get();
+        long queries = queryCount.get();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("batchCount", batches);
+        metrics.put("examCount", examCount.get());
+        metrics.put("queryCount", queries);
+        metrics.put("avgQueriesPerBatch", batches > 0 ? (double) queries / batches : 0.0);
+        metrics.put("maxQueriesPerBatch", maxQueriesPerBatch.get());
+        metrics.put("lastBatchSize", lastBatchSize);
+        metrics.put("lastBatchQueries", lastBatchQueries);
+        return metrics;
+    }
+
+    private void recordBatch(int size, int queries) {
+        batchCount.incrementAndGet();
+        examCount.addAndGet(size);
+        queryCount.addAndGet(queries);
+        maxQueriesPerBatch.accumulateAndGet(queries, Math::max);
+        lastBatchSize = size;
+        lastBatchQueries = queries;
+    }
+
+    private static int toInt(Object value) {
+        return value instanceof Number ? ((Number) value).intValue() : 0;
+    }
+
+    private static Long toLong(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : null;
+    }
+}
@@ -10,6 +10,8 @@ import com.example.project.mapper.homework.LabReportMapper;
 import com.example.project.mapper.homework.StudentLabReportMapper;
 import com.example.project.service.homework.LabReportService;
 import com.example.project.service.notification.MessageService;
+import com.example.project.service.impl.TeacherDashboardCounters;
+import com.example.project.service.impl.TeacherDashboardCounters.Counter;
 import com.example.project.entity.course.Course;
 import com.example.project.mapper.course.CourseMapper;
 import org.springframework.beans.BeanUtils;
@@ -45,6 +47,9 @@ public class LabReportServiceImpl implements LabReportService {
     @Autowired
     private MessageService messageService;
 
+    @Autowired
+    private TeacherDashboardCounters teacherDashboardCounters;
+
     @Override
     @Transactional
     public Long publishLabReport(LabReport labReport, MultipartFile attachment) {
@@ -205,6 +210,8 @@ public class LabReportServiceImpl implements LabReportService {
             throw new ResourceNotFoundException("学生报告不存在");
         }
 
+        boolean wasPending = Integer.valueOf(1).equals(studentReport.getStatus());
+
         // 更新批改信息
         studentReport.setScore(gradingDTO.getScore());
         studentReport.setTeacherComment(gradingDTO.getTeacherComment());
@@ -214,9 +221,13 @@ public class LabReportServiceImpl implements LabReportService {
 
         studentLabReportMapper.updateById(studentReport);
 
+        LabReport report = labReportMapper.selectById(studentReport.getReportId());
+        if (wasPending && report != null) {
+            teacherDashboardCounters.adjustByCourse(report.getCourseId(), Counter.PENDING_HOMEWORK, -1);
+        }
+
         // 发送系统通知给学生
         try {
-            LabReport report = labReportMapper.selectById(studentReport.getReportId());
             String title = "作业/实验报告已批改";
             String content = String.format("您的实验报告《%s》已被教师批改。得分：%s。",
                     report != null ? report.getReportTitle() : "未知报告",
@@ -263,6 +274,8 @@ public class LabReportServiceImpl implements LabReportService {
         }
 
         studentLabReportMapper.delete(wrapper);
+        long pending = studentReports.stream().filter(r -> Integer.valueOf(1).equals(r.getStatus())).count();
+        teacherDashboardCounters.adjustByCourse(report.getCourseId(), Counter.PENDING_HOMEWORK, (int) -pending);
 
         // 删除报告
         labReportMapper.deleteById(reportId);
@@ -389,6 +402,7 @@ public class LabReportServiceImpl implements LabReportService {
 
         // 保存学生报告
         studentLabReportMapper.insert(studentReport);
+        teacherDashboardCounters.adjustByCourse(labReport.getCourseId(), Counter.PENDING_HOMEWORK, 1);
 
         return studentReport.getStudentReportId();
     }
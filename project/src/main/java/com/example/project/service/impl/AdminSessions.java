@@ -0,0 +1,71 @@
+package com.example.project.service.impl;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 管理员登录会话
+ * 登录时签发 token 并记录在内存中，需要管理员身份的操作（如按角色群发）据此校验请求头；
+ * 进程重启后需重新登录
+ */
+@Component
+public class AdminSessions {
+
+    /**
+     * 唯一的管理员账号ID（与 AdminAuthController 返回的管理员信息一致）
+     */
+    public static final String ADMIN_ID = "1";
+
+    @Value("${admin.session-ttl-ms:86400000}")
+    private long ttlMs;
+
+    /**
+     * token -> 过期时间
+     */
+    private final Map<String, Long> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * 签发新 token
+     */
+    public String issue() {
+        long now = System.currentTimeMillis();
+        sessions.values().removeIf(expiresAt -> expiresAt <= now);
+        String token = "admin_token_" + UUID.randomUUID().toString().replace("-", "");
+        sessions.put(token, now + ttlMs);
+        return token;
+    }
+
+    /**
+     * 校验请求头中的 token（支持 "Bearer " 前缀）
+     */
+    public boolean isValid(String authorization) {
+        String token = tokenOf(authorization);
+        if (token == null) {
+            return false;
+        }
+        Long expiresAt = sessions.get(token);
+        return expiresAt != null && expiresAt > System.currentTimeMillis();
+    }
+
+    public void revoke(String authorization) {
+        String token = tokenOf(authorization);
+        if (token != null) {
+            sessions.remove(token);
+        }
+    }
+
+    private static String tokenOf(String authorization) {
+        if (authorization == null || authorization.isBlank()) {
+            return null;
+        }
+        String token = authorization.trim();
+        if (token.regionMatches(true, 0, "Bearer ", 0, 7)) {
+            token = token.substring(7).trim();
+        }
+        return token.isEmpty() ? null : token;
+    }
+}
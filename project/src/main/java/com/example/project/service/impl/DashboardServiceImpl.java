@@ -1,22 +1,52 @@
 package com.example.project.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.example.project.dto.ActivityFeedItemDTO;
 import com.example.project.dto.DashboardStatisticsDTO;
 import com.example.project.dto.TodoItemDTO;
 import com.example.project.entity.course.Course;
-import com.example.project.entity.enrollment.CourseEnrollment;
+import com.example.project.mapper.ActivityFeedMapper;
 import com.example.project.mapper.course.CourseMapper;
-import com.example.project.mapper.course.CourseScheduleMapper;
+import com.example.project.service.course.impl.TimetableCache;
 import com.example.project.service.DashboardService;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
 public class DashboardServiceImpl implements DashboardService {
 
+    /**
+     * 单个板块的最长等待时间，超时的板块返回 null 并记录错误
+     */
+    @Value("${dashboard.section-timeout-ms:3000}")
+    private long sectionTimeoutMs;
+
+    private static final int MAX_FEED_SIZE = 100;
+
+    private static final Map<String, String> FEED_TITLES = Map.of(
+            "homework", "提交了作业",
+            "exam", "提交了考试",
+            "enrollment", "申请加入课程",
+            "comment", "发表了评论");
+
+    /**
+     * 主页各板块在虚拟线程上并行加载（板块内部均为阻塞的数据库查询）
+     */
+    private final ExecutorService sectionExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
     @Autowired
     private com.example.project.mapper.course.StudentCourseMapper studentCourseMapper;
 
@@ -24,250 +54,270 @@ public class DashboardServiceImpl implements DashboardService {
     private CourseMapper courseMapper;
 
     @Autowired
-    private com.example.project.mapper.exam.ExamMapper examMapper;
-
-    @Autowired(required = false)
-    private CourseScheduleMapper courseScheduleMapper;
+    private TimetableCache timetableCache;
 
     @Autowired
     private com.example.project.mapper.course.CourseChapterMapper courseChapterMapper;
 
     @Autowired
-    private com.example.project.mapper.homework.LabReportMapper labReportMapper;
+    private ActivityFeedMapper activityFeedMapper;
 
     @Autowired
-    private com.example.project.mapper.homework.StudentLabReportMapper studentLabReportMapper;
+    private TeacherDashboardCounters teacherDashboardCounters;
 
-    @Autowired
-    private com.example.project.mapper.StudentUserMapper studentUserMapper;
+    @PreDestroy
+    public void shutdown() {
+        sectionExecutor.shutdownNow();
+    }
 
     @Override
-    public DashboardStatisticsDTO getStatistics(String teacherId) {
-        DashboardStatisticsDTO statistics = new DashboardStatisticsDTO();
+    public Map<String, Object> getDashboard(String teacherId, Integer recentLimit, Integer messageLimit) {
+        long begin = System.nanoTime();
+        Map<String, Object> data = new LinkedHashMap<>();
+        Map<String, Long> timings = new ConcurrentHashMap<>();
+        Map<String, String> errors = new LinkedHashMap<>();
+
+        // 教师课程只查询一次，各板块共享
+        List<Course> courses = loadCourses(teacherId);
+        timings.put("courses", elapsedMs(begin));
+
+        Map<String, Supplier<Object>> sections = new LinkedHashMap<>();
+        sections.put("statistics", () -> teacherDashboardCounters.getStatistics(teacherId));
+        sections.put("recentCourses", () -> recentCoursesOf(courses, recentLimit));
+        sections.put("todoList", () -> todoListOf(teacherId));
+        sections.put("recentMessages", () -> activityFeedOf(teacherId, null,
+                messageLimit != null ? Math.min(messageLimit, MAX_FEED_SIZE) : 5));
+        sections.put("weekSchedule", () -> weekScheduleOf(teacherId));
+
+        // 1. 所有板块同时开始
+        long start = System.nanoTime();
+        Map<String, Future<Object>> futures = new LinkedHashMap<>();
+        for (Map.Entry<String, Supplier<Object>> section : sections.entrySet()) {
+            String name = section.getKey();
+            futures.put(name, sectionExecutor.submit(() -> {
+                long sectionStart = System.nanoTime();
+                try {
+                    return section.getValue().get();
+                } finally {
+                    timings.put(name, elapsedMs(sectionStart));
+                }
+            }));
+        }
 
-        try {
-            // 获取课程总数
-            QueryWrapper<Course> courseWrapper = new QueryWrapper<>();
-            courseWrapper.eq("teacher_id", teacherId);
-            courseWrapper.eq("state", 1);
-            Long courseCount = courseMapper.selectCount(courseWrapper);
-            statistics.setCourseCount(courseCount.intValue());
-
-            // 获取课程ID列表
-            List<Course> courses = courseMapper.selectList(courseWrapper);
-            List<String> courseIds = courses.stream().map(Course::getId).collect(Collectors.toList());
-
-            if (!courseIds.isEmpty()) {
-                // 1. 活跃学生总数 (去重处理：同一学生加入多个课程只算一个)
-                QueryWrapper<com.example.project.entity.course.StudentCourse> scWrapper = new QueryWrapper<>();
-                scWrapper.in("course_id", courseIds);
-                scWrapper.eq("status", 1);
-                // 获取所有学生ID并去重
-                scWrapper.select("DISTINCT student_id");
-                List<Object> studentIds = studentCourseMapper.selectObjs(scWrapper);
-                statistics.setStudentCount(studentIds != null ? studentIds.size() : 0);
-
-                // 2. 待批改作业数 (统计已提交但未批改的记录)
-                QueryWrapper<com.example.project.entity.homework.StudentLabReport> slrWrapper = new QueryWrapper<>();
-                slrWrapper.in("report_id",
-                        labReportMapper
-                                .selectList(new QueryWrapper<com.example.project.entity.homework.LabReport>()
-                                        .in("course_id", courseIds))
-                                .stream().map(com.example.project.entity.homework.LabReport::getReportId)
-                                .collect(Collectors.toList()));
-                slrWrapper.eq("status", 1); // 1-已提交待批改
-                Long pendingCount = studentLabReportMapper.selectCount(slrWrapper);
-                statistics.setPendingHomeworkCount(pendingCount.intValue());
-
-                // 3. 进行中的考试数 (统计该教师课程下所有已发布的考试)
-                QueryWrapper<com.example.project.entity.exam.Exam> examWrapper = new QueryWrapper<>();
-                examWrapper.in("course_id", courseIds);
-                examWrapper.eq("status", 1); // 1-已发布
-                Long publishedExams = examMapper.selectCount(examWrapper);
-                statistics.setOngoingExamCount(publishedExams.intValue());
-
-            } else {
-                statistics.setStudentCount(0);
-                statistics.setPendingHomeworkCount(0);
-                statistics.setOngoingExamCount(0);
+        // 2. 按各自的超时等待，失败或超时的板块置为 null，其余板块照常返回
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(sectionTimeoutMs);
+        for (Map.Entry<String, Future<Object>> entry : futures.entrySet()) {
+            String name = entry.getKey();
+            Future<Object> future = entry.getValue();
+            try {
+                data.put(name, future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                timings.putIfAbsent(name, elapsedMs(start));
+                data.put(name, null);
+                errors.put(name, "加载超时（" + sectionTimeoutMs + "ms）");
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                System.err.println("主页板块 " + name + " 加载失败: " + cause.getMessage());
+                data.put(name, null);
+                errors.put(name, "加载失败: " + cause.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                future.cancel(true);
+                data.put(name, null);
+                errors.put(name, "加载被中断");
             }
+        }
 
-            statistics.setUnreadMessageCount(0);
-            statistics.setTodayNewStudentCount(0);
+        timings.put("total", elapsedMs(begin));
+        data.put("errors", errors);
+        data.put("timings", new TreeMap<>(timings));
+        return data;
+    }
 
+    @Override
+    public DashboardStatisticsDTO getStatistics(String teacherId) {
+        try {
+            return teacherDashboardCounters.getStatistics(teacherId);
         } catch (Exception e) {
             e.printStackTrace();
+            return new DashboardStatisticsDTO();
         }
-
-        return statistics;
     }
 
     @Override
     public List<Course> getRecentCourses(String teacherId, Integer limit) {
         try {
-            QueryWrapper<Course> wrapper = new QueryWrapper<>();
-            wrapper.eq("teacher_id", teacherId);
-            wrapper.eq("state", 1);
-            wrapper.orderByDesc("update_time");
-            wrapper.last("LIMIT " + limit);
-
-            List<Course> courses = courseMapper.selectList(wrapper);
-
-            // 为每个课程获取学生人数和章节数
-            for (Course course : courses) {
-                // 1. 获取学生人数
-                QueryWrapper<com.example.project.entity.course.StudentCourse> scWrapper = new QueryWrapper<>();
-                scWrapper.eq("course_id", course.getId());
-                scWrapper.eq("status", 1); // 已通过审核
-                Long scount = studentCourseMapper.selectCount(scWrapper);
-                course.setStudentCount(scount.intValue());
-
-                // 2. 获取章节数
-                QueryWrapper<com.example.project.entity.course.CourseChapter> chapterWrapper = new QueryWrapper<>();
-                chapterWrapper.eq("course_id", course.getId());
-                Long ccount = courseChapterMapper.selectCount(chapterWrapper);
-                course.setChapterCount(ccount.intValue());
-            }
-
-            return courses;
+            return recentCoursesOf(loadCourses(teacherId), limit);
         } catch (Exception e) {
             e.printStackTrace();
             return new ArrayList<>();
         }
     }
 
-    @Autowired
-    private com.example.project.mapper.enrollment.CourseEnrollmentMapper courseEnrollmentMapper;
-
     @Override
     public List<TodoItemDTO> getTodoList(String teacherId) {
-        List<TodoItemDTO> todoList = new ArrayList<>();
-
         try {
-            // 获取教师课程ID
-            QueryWrapper<Course> courseWrapper = new QueryWrapper<>();
-            courseWrapper.eq("teacher_id", teacherId);
-            courseWrapper.eq("state", 1);
-            List<Course> courses = courseMapper.selectList(courseWrapper);
-            List<String> courseIds = courses.stream().map(Course::getId).collect(Collectors.toList());
-
-            if (courseIds.isEmpty())
-                return todoList;
-
-            // 1. 待批改作业 (暂无)
-
-            // 2. 待审核报名 (查CourseEnrollment表)
-            QueryWrapper<CourseEnrollment> enrollWrapper = new QueryWrapper<>();
-            enrollWrapper.in("course_id", courseIds);
-            enrollWrapper.eq("status", "pending");
-            Long pendingAudit = courseEnrollmentMapper.selectCount(enrollWrapper);
-
-            if (pendingAudit > 0) {
-                TodoItemDTO item = new TodoItemDTO();
-                item.setRelatedId(2L);
-                item.setTitle("待审核选课");
-                item.setDescription("您有 " + pendingAudit + " 位学生申请加入课程");
-                item.setType("course_approval");
-                item.setCount(pendingAudit.intValue());
-                todoList.add(item);
-            }
-
+            return todoListOf(teacherId);
         } catch (Exception e) {
             e.printStackTrace();
+            return new ArrayList<>();
         }
-
-        return todoList;
     }
 
     @Override
-    public List<Map<String, Object>> getRecentMessages(String teacherId, Integer limit) {
-        List<Map<String, Object>> messages = new ArrayList<>();
-
+    public List<ActivityFeedItemDTO> getRecentMessages(String teacherId, Integer limit) {
         try {
-            // 获取教师课程ID
-            QueryWrapper<Course> courseWrapper = new QueryWrapper<>();
-            courseWrapper.eq("teacher_id", teacherId);
-            courseWrapper.eq("state", 1);
-            List<Course> courses = courseMapper.selectList(courseWrapper);
-            // 以此建立课程ID映射方便获取课程名
-            Map<String, String> courseNameMap = courses.stream()
-                    .collect(Collectors.toMap(Course::getId, Course::getCourseName));
-            List<String> courseIds = new ArrayList<>(courseNameMap.keySet());
-
-            if (courseIds.isEmpty())
-                return messages;
-
-            // 1. 获取最近提交的作业动态
-            QueryWrapper<com.example.project.entity.homework.StudentLabReport> slrWrapper = new QueryWrapper<>();
-            slrWrapper.eq("status", 1);
-            slrWrapper.orderByDesc("submit_time");
-            slrWrapper.last("LIMIT " + limit);
-            List<com.example.project.entity.homework.StudentLabReport> submissions = studentLabReportMapper
-                    .selectList(slrWrapper);
-
-            for (com.example.project.entity.homework.StudentLabReport sub : submissions) {
-                com.example.project.entity.homework.LabReport report = labReportMapper.selectById(sub.getReportId());
-                if (report != null && courseIds.contains(report.getCourseId())) {
-                    Map<String, Object> msg = new HashMap<>();
-                    msg.put("studentName", sub.getStudentName());
-                    msg.put("type", "homework"); // 添加类型字段
-                    msg.put("title", "提交了作业");
-                    msg.put("content", report.getReportTitle());
-                    msg.put("time", sub.getSubmitTime());
-
-                    // 添加学生头像
-                    try {
-                        com.example.project.entity.Student student = studentUserMapper.selectById(sub.getStudentId());
-                        if (student != null && student.getStudentsHead() != null) {
-                            msg.put("studentAvatar", student.getStudentsHead());
-                        }
-                    } catch (Exception e) {
-                        // 如果获取头像失败，不影响其他数据
-                    }
-
-                    messages.add(msg);
-                }
-            }
-
+            return activityFeedOf(teacherId, null, limit != null ? Math.min(limit, MAX_FEED_SIZE) : 5);
         } catch (Exception e) {
             e.printStackTrace();
+            return new ArrayList<>();
         }
-
-        return messages;
     }
 
     @Override
     public List<Map<String, Object>> getWeekSchedule(String teacherId) {
-        List<Map<String, Object>> schedule = new ArrayList<>();
-
         try {
-            if (courseScheduleMapper == null) {
-                return schedule;
-            }
+            return weekScheduleOf(teacherId);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return new ArrayList<>();
+        }
+    }
 
-            // 获取教师的所有课程
-            QueryWrapper<Course> courseWrapper = new QueryWrapper<>();
-            courseWrapper.eq("teacher_id", teacherId);
-            courseWrapper.eq("state", 1);
-            List<Course> courses = courseMapper.selectList(courseWrapper);
+    @Override
+    public Map<String, Object> getActivityFeed(String teacherId, Integer limit, String cursor) {
+        int size = limit != null && limit > 0 ? Math.min(limit, MAX_FEED_SIZE) : 10;
+
+        // 多取一条判断是否还有下一页
+        List<ActivityFeedItemDTO> items = activityFeedOf(teacherId, cursor, size + 1);
+        boolean hasMore = items.size() > size;
+        if (hasMore) {
+            items = new ArrayList<>(items.subList(0, size));
+        }
 
-            if (courses.isEmpty()) {
-                return schedule;
+        Map<String, Object> result = new HashMap<>();
+        result.put("list", items);
+        result.put("hasMore", hasMore);
+        if (hasMore) {
+            ActivityFeedItemDTO last = items.get(items.size() - 1);
+            result.put("nextCursor", last.getTime().getTime() + "_" + last.getType() + "_" + last.getSourceId());
+        }
+        return result;
+    }
+
+    /**
+     * 查询教师动态，游标格式为 time(毫秒)_type_sourceId，即上一页最后一条动态
+     */
+    private List<ActivityFeedItemDTO> activityFeedOf(String teacherId, String cursor, int limit) {
+        Date cursorTime = null;
+        String cursorType = null;
+        Long cursorId = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            String[] parts = cursor.split("_", 3);
+            if (parts.length != 3) {
+                throw new RuntimeException("无效的分页游标");
             }
+            try {
+                cursorTime = new Date(Long.parseLong(parts[0]));
+                cursorType = parts[1];
+                cursorId = Long.parseLong(parts[2]);
+            } catch (NumberFormatException e) {
+                throw new RuntimeException("无效的分页游标");
+            }
+        }
 
-            // 获取相关周数和课程安排 logic pending implementation
-            // int currentWeek = getCurrentWeek();
-            // List<String> courseIds = courses.stream()...
+        List<ActivityFeedItemDTO> items = activityFeedMapper.selectTeacherFeed(teacherId, cursorTime, cursorType,
+                cursorId, limit);
+        for (ActivityFeedItemDTO item : items) {
+            item.setTitle(FEED_TITLES.getOrDefault(item.getType(), ""));
+        }
+        return items;
+    }
 
-            // 从course_schedule表查询（后续实现）
-            // 暂时返回空列表
+    /**
+     * 教师的已启用课程（各板块共用的课程集合）
+     */
+    private List<Course> loadCourses(String teacherId) {
+        QueryWrapper<Course> courseWrapper = new QueryWrapper<>();
+        courseWrapper.eq("teacher_id", teacherId);
+        courseWrapper.eq("state", 1);
+        return courseMapper.selectList(courseWrapper);
+    }
 
-        } catch (Exception e) {
-            e.printStackTrace();
+    private List<Course> recentCoursesOf(List<Course> courses, Integer limit) {
+        // 从已加载的课程集合中按更新时间取最近的课程
+        List<Course> recent = courses.stream()
+                .sorted(Comparator.comparing(Course::getUpdateTime,
+                        Comparator.nullsLast(Comparator.<Date>reverseOrder())))
+                .limit(limit != null ? limit : 5)
+                .collect(Collectors.toList());
+        if (recent.isEmpty()) {
+            return recent;
+        }
+        List<String> courseIds = recent.stream().map(Course::getId).collect(Collectors.toList());
+
+        // 1. 学生人数（已通过审核），按课程分组一次查询
+        QueryWrapper<com.example.project.entity.course.StudentCourse> scWrapper = new QueryWrapper<>();
+        scWrapper.select("course_id", "COUNT(*) AS cnt");
+        scWrapper.in("course_id", courseIds);
+        scWrapper.eq("status", 1);
+        scWrapper.groupBy("course_id");
+        Map<String, Integer> studentCounts = groupCounts(studentCourseMapper.selectMaps(scWrapper));
+
+        // 2. 章节数，按课程分组一次查询
+        QueryWrapper<com.example.project.entity.course.CourseChapter> chapterWrapper = new QueryWrapper<>();
+        chapterWrapper.select("course_id", "COUNT(*) AS cnt");
+        chapterWrapper.in("course_id", courseIds);
+        chapterWrapper.groupBy("course_id");
+        Map<String, Integer> chapterCounts = groupCounts(courseChapterMapper.selectMaps(chapterWrapper));
+
+        for (Course course : recent) {
+            course.setStudentCount(studentCounts.getOrDefault(course.getId(), 0));
+            course.setChapterCount(chapterCounts.getOrDefault(course.getId(), 0));
+        }
+        return recent;
+    }
+
+    private List<TodoItemDTO> todoListOf(String teacherId) {
+        List<TodoItemDTO> todoList = new ArrayList<>();
+
+        // 1. 待批改作业 (暂无)
+
+        // 2. 待审核报名 (取自主页计数器)
+        Integer pendingAudit = teacherDashboardCounters.getStatistics(teacherId).getPendingEnrollmentCount();
+
+        if (pendingAudit > 0) {
+            TodoItemDTO item = new TodoItemDTO();
+            item.setRelatedId(2L);
+            item.setTitle("待审核选课");
+            item.setDescription("您有 " + pendingAudit + " 位学生申请加入课程");
+            item.setType("course_approval");
+            item.setCount(pendingAudit);
+            todoList.add(item);
         }
 
-        return schedule;
+        return todoList;
+    }
+
+    private List<Map<String, Object>> weekScheduleOf(String teacherId) {
+        // 本教学周的课程表，取自课程表缓存
+        return timetableCache.getTeacherWeek(teacherId, timetableCache.currentWeek());
+    }
+
+    private static Map<String, Integer> groupCounts(List<Map<String, Object>> rows) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (Map<String, Object> row : rows) {
+            Object courseId = row.get("course_id");
+            Object cnt = row.get("cnt");
+            if (courseId != null && cnt instanceof Number) {
+                counts.put(String.valueOf(courseId), ((Number) cnt).intValue());
+            }
+        }
+        return counts;
     }
 
-    // Week schedule logic placeholder
+    private static long elapsedMs(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
 }
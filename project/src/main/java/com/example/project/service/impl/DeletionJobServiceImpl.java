@@ -0,0 +1,221 @@
+package com.example.project.service.impl;
+
+import com.example.project.entity.DeletionJob;
+import com.example.project.mapper.DeletionJobMapper;
+import com.example.project.service.DeletionJobService;
+import com.example.project.util.TransactionUtil;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.ToIntFunction;
+
+/**
+ * 级联删除任务执行
+ * 每个步骤反复删除一批（DELETE ... LIMIT）子记录直到清空，每批为一条自动提交的短语句，批间按配置休眠限流；
+ * 步骤均可重复执行，进程崩溃后由定时轮询按心跳超时重新领取并从记录的步骤继续
+ */
+@Service
+public class DeletionJobServiceImpl implements DeletionJobService {
+
+    @Autowired
+    private DeletionJobMapper deletionJobMapper;
+
+    @Value("${deletion.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${deletion.parent-chunk-size:100}")
+    private int parentChunkSize;
+
+    @Value("${deletion.throttle-ms:50}")
+    private long throttleMs;
+
+    @Value("${deletion.stale-timeout-ms:300000}")
+    private long staleTimeoutMs;
+
+    @Value("${deletion.max-attempts:5}")
+    private int maxAttempts;
+
+    /**
+     * 清理步骤：名称 + 删除一批并返回删除行数（0 表示该步骤已完成）
+     */
+    private static final class Step {
+        private final String name;
+        private final ToIntFunction<String> chunk;
+
+        private Step(String name, ToIntFunction<String> chunk) {
+            this.name = name;
+            this.chunk = chunk;
+        }
+    }
+
+    private List<Step> examSteps;
+
+    private List<Step> courseSteps;
+
+    /**
+     * 单线程顺序执行，避免多个大任务同时占用数据库
+     */
+    private ExecutorService executor;
+
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void init() {
+        examSteps = Arrays.asList(
+                new Step("student_exam", examId -> deleteWithChildren(
+                        "student_exam", "student_exam_id", "exam_id", examId, "student_answer")),
+                new Step("exam_submission", examId -> deletionJobMapper.deleteChunk(
+                        "exam_submission", "exam_id", examId, chunkSize)),
+                new Step("exam_question", examId -> deletionJobMapper.deleteChunk(
+                        "exam_question", "exam_id", examId, chunkSize)));
+
+        // 课程下的考试在标记删除时已各自登记 EXAM 任务
+        courseSteps = Arrays.asList(
+                new Step("student_course", courseId -> deletionJobMapper.deleteChunk(
+                        "student_course", "course_id", courseId, chunkSize)),
+                new Step("course_progress", courseId -> deletionJobMapper.deleteChunk(
+                        "course_progress", "course_id", courseId, chunkSize)),
+                new Step("course_comment", courseId -> deletionJobMapper.deleteChunk(
+                        "course_comment", "course_id", courseId, chunkSize)),
+                new Step("course_schedule", courseId -> deletionJobMapper.deleteChunk(
+                        "course_schedule", "course_id", courseId, chunkSize)),
+                new Step("course_chapter", courseId -> deletionJobMapper.deleteChunk(
+                        "course_chapter", "course_id", courseId, chunkSize)),
+                new Step("class", courseId -> deleteWithChildren(
+                        "class", "class_id", "course_id", courseId, "class_student")));
+
+        executor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "deletion-job");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // 未完成的任务保持 RUNNING，重启后按心跳超时恢复
+        executor.shutdownNow();
+    }
+
+    @Override
+    public Long enqueue(String targetType, String targetId) {
+        DeletionJob job = new DeletionJob();
+        job.setTargetType(targetType);
+        job.setTargetId(targetId);
+        job.setStatus(DeletionJob.STATUS_PENDING);
+        job.setStep(0);
+        job.setDeletedRows(0L);
+        job.setAttempts(0);
+        job.setCreateTime(new Date());
+        job.setUpdateTime(new Date());
+        deletionJobMapper.insert(job);
+
+        Long jobId = job.getId();
+        TransactionUtil.afterCommit(() -> dispatch(jobId));
+        return jobId;
+    }
+
+    @Override
+    public DeletionJob getJob(Long jobId) {
+        DeletionJob job = deletionJobMapper.selectById(jobId);
+        if (job == null) {
+            throw new RuntimeException("删除任务不存在");
+        }
+        return job;
+    }
+
+    @Override
+    public List<DeletionJob> getJobsByTarget(String targetType, String targetId) {
+        return deletionJobMapper.selectByTarget(targetType, targetId);
+    }
+
+    /**
+     * 定时补偿：派发未完成、失败待重试及心跳超时的任务
+     */
+    @Scheduled(fixedDelayString = "${deletion.poll-interval-ms:10000}")
+    public void poll() {
+        for (Long jobId : deletionJobMapper.selectRunnableIds(staleBefore(), maxAttempts, 20)) {
+            dispatch(jobId);
+        }
+    }
+
+    private void dispatch(Long jobId) {
+        if (!inFlight.add(jobId)) {
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                run(jobId);
+            } finally {
+                inFlight.remove(jobId);
+            }
+        });
+    }
+
+    private void run(Long jobId) {
+        if (deletionJobMapper.claim(jobId, staleBefore(), maxAttempts) == 0) {
+            return;
+        }
+        DeletionJob job = deletionJobMapper.selectById(jobId);
+        List<Step> steps = DeletionJob.TYPE_COURSE.equals(job.getTargetType()) ? courseSteps : examSteps;
+        try {
+            for (int i = job.getStep() != null ? job.getStep() : 0; i < steps.size(); i++) {
+                Step step = steps.get(i);
+                deletionJobMapper.updateProgress(jobId, i, step.name, 0);
+                int deleted;
+                while ((deleted = step.chunk.applyAsInt(job.getTargetId())) > 0) {
+                    deletionJobMapper.updateProgress(jobId, i, step.name, deleted);
+                    if (throttleMs > 0) {
+                        Thread.sleep(throttleMs);
+                    }
+                }
+            }
+            deletionJobMapper.updateProgress(jobId, steps.size(), null, 0);
+            deletionJobMapper.finish(jobId, DeletionJob.STATUS_DONE, null);
+            System.out.println("级联删除完成: " + job.getTargetType() + " " + job.getTargetId());
+        } catch (InterruptedException e) {
+            // 应用关闭：保持 RUNNING，由心跳超时恢复
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            System.err.println("级联删除失败 jobId=" + jobId + ": " + e.getMessage());
+            deletionJobMapper.finish(jobId, DeletionJob.STATUS_FAILED, truncate(e.getMessage()));
+        }
+    }
+
+    /**
+     * 删除一批父记录及其子记录：先按批删除子记录，子记录清空后再删除这批父记录
+     */
+    private int deleteWithChildren(String table, String idColumn, String column, String value, String childTable) {
+        List<Long> ids = deletionJobMapper.selectChildIds(table, idColumn, column, value, parentChunkSize);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        int deleted = deletionJobMapper.deleteChunkByIds(childTable, idColumn, ids, chunkSize);
+        if (deleted < chunkSize) {
+            deleted += deletionJobMapper.deleteChunkByIds(table, idColumn, ids, ids.size());
+        }
+        return deleted;
+    }
+
+    private Date staleBefore() {
+        return new Date(System.currentTimeMillis() - staleTimeoutMs);
+    }
+
+    private String truncate(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() > 500 ? message.substring(0, 500) : message;
+    }
+}
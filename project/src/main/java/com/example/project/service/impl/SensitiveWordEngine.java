@@ -0,0 +1,288 @@
+package com.example.project.service.impl;
+
+import com.example.project.entity.SensitiveWord;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 敏感词匹配引擎（Aho-Corasick 多模式自动机）
+ * 由启用的敏感词一次构建，构建后不可变，可被多个线程同时使用；词库变化时整体重建后替换。
+ * 扫描文本只需一遍，时间与文本长度（加命中数）成正比，与词库大小无关
+ */
+final class SensitiveWordEngine {
+
+    static final String DEFAULT_REPLACEMENT = "***";
+
+    /**
+     * 一次命中
+     */
+    static final class Match {
+        private final int start;
+        private final int end;
+        private final SensitiveWord word;
+
+        private Match(int start, int end, SensitiveWord word) {
+            this.start = start;
+            this.end = end;
+            this.word = word;
+        }
+
+        int getStart() {
+            return start;
+        }
+
+        int getEnd() {
+            return end;
+        }
+
+        SensitiveWord getWord() {
+            return word;
+        }
+    }
+
+    private final SensitiveWord[] words;
+
+    /**
+     * 每个节点的子节点：按字符升序排列的 keys 与对应的节点下标
+     */
+    private final char[][] childKeys;
+    private final int[][] childNodes;
+    private final int[] fail;
+
+    /**
+     * 以该节点结尾的敏感词下标，无则为 -1
+     */
+    private final int[] output;
+
+    /**
+     * 沿失败链最近的有输出的节点，无则为 -1
+     */
+    private final int[] dictLink;
+
+    private final int[] depth;
+
+    private SensitiveWordEngine(SensitiveWord[] words, char[][] childKeys, int[][] childNodes, int[] fail,
+            int[] output, int[] dictLink, int[] depth) {
+        this.words = words;
+        this.childKeys = childKeys;
+        this.childNodes = childNodes;
+        this.fail = fail;
+        this.output = output;
+        this.dictLink = dictLink;
+        this.depth = depth;
+    }
+
+    /**
+     * 由敏感词构建自动机；同一个词出现多次时保留级别最高的一条
+     */
+    static SensitiveWordEngine build(List<SensitiveWord> source) {
+        Map<String, SensitiveWord> unique = new LinkedHashMap<>();
+        for (SensitiveWord word : source) {
+            if (word == null || word.getWord() == null || word.getWord().isEmpty()) {
+                continue;
+            }
+            unique.merge(word.getWord(), word, (a, b) -> levelOf(b) > levelOf(a) ? b : a);
+        }
+        SensitiveWord[] words = unique.values().toArray(new SensitiveWord[0]);
+
+        // 1. 构建 trie
+        List<TreeMap<Character, Integer>> children = new ArrayList<>();
+        List<Integer> outputs = new ArrayList<>();
+        List<Integer> depths = new ArrayList<>();
+        children.add(new TreeMap<>());
+        outputs.add(-1);
+        depths.add(0);
+        for (int i = 0; i < words.length; i++) {
+            String text = words[i].getWord();
+            int node = 0;
+            for (int j = 0; j < text.length(); j++) {
+                Integer next = children.get(node).get(text.charAt(j));
+                if (next == null) {
+                    next = children.size();
+                    children.get(node).put(text.charAt(j), next);
+                    children.add(new TreeMap<>());
+                    outputs.add(-1);
+                    depths.add(j + 1);
+                }
+                node = next;
+            }
+            outputs.set(node, i);
+        }
+
+        int size = children.size();
+        char[][] childKeys = new char[size][];
+        int[][] childNodes = new int[size][];
+        int[] output = new int[size];
+        int[] depth = new int[size];
+        for (int node = 0; node < size; node++) {
+            TreeMap<Character, Integer> map = children.get(node);
+            childKeys[node] = new char[map.size()];
+            childNodes[node] = new int[map.size()];
+            int k = 0;
+            for (Map.Entry<Character, Integer> entry : map.entrySet()) {
+                childKeys[node][k] = entry.getKey();
+                childNodes[node][k] = entry.getValue();
+                k++;
+            }
+            output[node] = outputs.get(node);
+            depth[node] = depths.get(node);
+        }
+
+        // 2. 按层（BFS）计算失败指针和输出链
+        int[] fail = new int[size];
+        int[] dictLink = new int[size];
+        Arrays.fill(dictLink, -1);
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int child : childNodes[0]) {
+            fail[child] = 0;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            for (int k = 0; k < childKeys[node].length; k++) {
+                char c = childKeys[node][k];
+                int child = childNodes[node][k];
+                int f = fail[node];
+                int target = step(childKeys, childNodes, f, c);
+                while (target < 0 && f != 0) {
+                    f = fail[f];
+                    target = step(childKeys, childNodes, f, c);
+                }
+                fail[child] = target >= 0 ? target : 0;
+                dictLink[child] = output[fail[child]] >= 0 ? fail[child] : dictLink[fail[child]];
+                queue.add(child);
+            }
+        }
+        return new SensitiveWordEngine(words, childKeys, childNodes, fail, output, dictLink, depth);
+    }
+
+    int size() {
+        return words.length;
+    }
+
+    /**
+     * 是否包含任一敏感词（命中即返回）
+     */
+    boolean containsAny(String text) {
+        if (words.length == 0 || text == null) {
+            return false;
+        }
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            state = next(state, text.charAt(i));
+            if (output[state] >= 0 || dictLink[state] >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 找出全部命中（可能重叠），按结束位置升序
+     */
+    List<Match> findAll(String text) {
+        List<Match> matches = new ArrayList<>();
+        if (words.length == 0 || text == null) {
+            return matches;
+        }
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            state = next(state, text.charAt(i));
+            for (int node = output[state] >= 0 ? state : dictLink[state]; node >= 0; node = dictLink[node]) {
+                matches.add(new Match(i + 1 - depth[node], i + 1, words[output[node]]));
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * 替换命中的敏感词：相互重叠的命中合并为一段整体替换，不留下未遮蔽的字符；
+     * 整段使用其中级别最高（其次最长、最靠左）的词的替换内容
+     */
+    String replace(String text, List<Match> matches) {
+        if (matches.isEmpty()) {
+            return text;
+        }
+        List<Match> sorted = new ArrayList<>(matches);
+        sorted.sort((a, b) -> a.start != b.start ? Integer.compare(a.start, b.start) : Integer.compare(b.end, a.end));
+
+        StringBuilder result = new StringBuilder(text.length());
+        int copied = 0;
+        int i = 0;
+        while (i < sorted.size()) {
+            Match winner = sorted.get(i);
+            int start = winner.start;
+            int end = winner.end;
+            for (i++; i < sorted.size() && sorted.get(i).start < end; i++) {
+                Match match = sorted.get(i);
+                end = Math.max(end, match.end);
+                if (ranksAbove(match, winner)) {
+                    winner = match;
+                }
+            }
+            result.append(text, copied, start);
+            String replacement = winner.word.getReplacement();
+            result.append(replacement != null && !replacement.isEmpty() ? replacement : DEFAULT_REPLACEMENT);
+            copied = end;
+        }
+        result.append(text, copied, text.length());
+        return result.toString();
+    }
+
+    private static boolean ranksAbove(Match match, Match current) {
+        int level = levelOf(match.word);
+        int currentLevel = levelOf(current.word);
+        if (level != currentLevel) {
+            return level > currentLevel;
+        }
+        return match.end - match.start > current.end - current.start;
+    }
+
+    private int next(int state, char c) {
+        int target = step(childKeys, childNodes, state, c);
+        while (target < 0 && state != 0) {
+            state = fail[state];
+            target = step(childKeys, childNodes, state, c);
+        }
+        return target >= 0 ? target : 0;
+    }
+
+    private static int step(char[][] childKeys, int[][] childNodes, int node, char c) {
+        int index = Arrays.binarySearch(childKeys[node], c);
+        return index >= 0 ? childNodes[node][index] : -1;
+    }
+
+    static int levelOf(SensitiveWord word) {
+        return word.getLevel() != null ? word.getLevel() : 1;
+    }
+
+    /**
+     * 处理方式，未设置时按 REPLACE
+     */
+    static String actionOf(SensitiveWord word) {
+        return word.getAction() != null && !word.getAction().isEmpty() ? word.getAction().toUpperCase() : "REPLACE";
+    }
+
+    /**
+     * 命中的处理方式汇总：action -> 命中词
+     */
+    static Map<String, List<String>> groupByAction(List<Match> matches) {
+        Map<String, List<String>> grouped = new HashMap<>();
+        for (Match match : matches) {
+            String action = actionOf(match.word);
+            List<String> list = grouped.computeIfAbsent(action, k -> new ArrayList<>());
+            if (!list.contains(match.word.getWord())) {
+                list.add(match.word.getWord());
+            }
+        }
+        return grouped;
+    }
+}
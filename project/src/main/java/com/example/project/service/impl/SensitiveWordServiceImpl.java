@@ -6,16 +6,25 @@ import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.example.project.entity.SensitiveWord;
 import com.example.project.mapper.SensitiveWordMapper;
 import com.example.project.service.SensitiveWordService;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 public class SensitiveWordServiceImpl extends ServiceImpl<SensitiveWordMapper, SensitiveWord>
         implements SensitiveWordService {
 
+    /**
+     * 当前生效的匹配引擎，词库变化时整体替换
+     */
+    private volatile SensitiveWordEngine engine;
+
     @Override
     public Page<SensitiveWord> getSensitiveWordList(Integer pageNumber, Integer pageSize, String keyword,
             String category, Integer level) {
@@ -41,15 +50,7 @@ public class SensitiveWordServiceImpl extends ServiceImpl<SensitiveWordMapper, S
         if (!StringUtils.hasText(text))
             return false;
 
-        // This is a naive implementation. In production, use a Trie or Aho-Corasick
-        // algorithm.
-        List<SensitiveWord> words = this.list(new LambdaQueryWrapper<SensitiveWord>().eq(SensitiveWord::getStatus, 1));
-        for (SensitiveWord sw : words) {
-            if (text.contains(sw.getWord())) {
-                return true;
-            }
-        }
-        return false;
+        return engine().containsAny(text);
     }
 
     @Override
@@ -57,14 +58,81 @@ public class SensitiveWordServiceImpl extends ServiceImpl<SensitiveWordMapper, S
         if (!StringUtils.hasText(text))
             return text;
 
+        SensitiveWordEngine current = engine();
+        return current.replace(text, current.findAll(text));
+    }
+
+    @Override
+    public Map<String, Object> checkText(String text) {
+        Map<String, Object> result = new HashMap<>();
+        if (!StringUtils.hasText(text)) {
+            result.put("hasSensitiveWords", false);
+            result.put("filteredText", text);
+            result.put("blocked", false);
+            result.put("needsReview", false);
+            result.put("maxLevel", 0);
+            result.put("matches", new HashMap<String, List<String>>());
+            return result;
+        }
+
+        SensitiveWordEngine current = engine();
+        List<SensitiveWordEngine.Match> matches = current.findAll(text);
+        int maxLevel = 0;
+        for (SensitiveWordEngine.Match match : matches) {
+            maxLevel = Math.max(maxLevel, SensitiveWordEngine.levelOf(match.getWord()));
+        }
+        Map<String, List<String>> byAction = SensitiveWordEngine.groupByAction(matches);
+        // 只替换 REPLACE 类的词；BLOCK 类由调用方拒绝，REVIEW 类保留原文供人工复核
+        List<SensitiveWordEngine.Match> replaceable = new ArrayList<>();
+        for (SensitiveWordEngine.Match match : matches) {
+            if ("REPLACE".equals(SensitiveWordEngine.actionOf(match.getWord()))) {
+                replaceable.add(match);
+            }
+        }
+        result.put("hasSensitiveWords", !matches.isEmpty());
+        result.put("filteredText", current.replace(text, replaceable));
+        result.put("blocked", byAction.containsKey("BLOCK"));
+        result.put("needsReview", byAction.containsKey("REVIEW"));
+        result.put("maxLevel", maxLevel);
+        result.put("matches", byAction);
+        return result;
+    }
+
+    @Override
+    public void reload() {
         List<SensitiveWord> words = this.list(new LambdaQueryWrapper<SensitiveWord>().eq(SensitiveWord::getStatus, 1));
-        for (SensitiveWord sw : words) {
-            if (text.contains(sw.getWord())) {
-                String replacement = StringUtils.hasText(sw.getReplacement()) ? sw.getReplacement() : "***";
-                text = text.replace(sw.getWord(), replacement);
+        long start = System.currentTimeMillis();
+        SensitiveWordEngine built = SensitiveWordEngine.build(words);
+        engine = built;
+        System.out.println("敏感词库已加载: " + built.size() + " 个词, 构建耗时 "
+                + (System.currentTimeMillis() - start) + "ms");
+    }
+
+    /**
+     * 定时重建，覆盖其他实例或直接改库造成的变化
+     */
+    @Scheduled(fixedDelayString = "${sensitive-word.reload-interval-ms:300000}",
+            initialDelayString = "${sensitive-word.reload-interval-ms:300000}")
+    public void scheduledReload() {
+        try {
+            reload();
+        } catch (Exception e) {
+            System.err.println("敏感词库重建失败（继续使用旧词库）: " + e.getMessage());
+        }
+    }
+
+    private SensitiveWordEngine engine() {
+        SensitiveWordEngine current = engine;
+        if (current == null) {
+            synchronized (this) {
+                current = engine;
+                if (current == null) {
+                    reload();
+                    current = engine;
+                }
             }
         }
-        return text;
+        return current;
     }
 
     @Override
@@ -93,5 +161,6 @@ public class SensitiveWordServiceImpl extends ServiceImpl<SensitiveWordMapper, S
             sw.setUpdateTime(new Date());
             this.save(sw);
         }
+        reload();
     }
 }
@@ -21,6 +21,9 @@ public class StudentUserServiceImpl implements StudentUserService {
     @Autowired
     private StudentUserMapper studentUserMapper;
 
+    @Autowired
+    private UserDirectory userDirectory;
+
     @Autowired
     private CourseEnrollmentMapper courseEnrollmentMapper;
 
@@ -115,6 +118,7 @@ public class StudentUserServiceImpl implements StudentUserService {
             student.setStudentsId(studentId);
             student.setStudentsHead(avatarUrl);
             studentUserMapper.updateById(student);
+            userDirectory.invalidate(UserDirectory.STUDENT, studentId);
 
             return avatarUrl;
         } catch (IOException e) {
@@ -0,0 +1,274 @@
+package com.example.project.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.example.project.dto.DashboardStatisticsDTO;
+import com.example.project.entity.course.Course;
+import com.example.project.entity.notification.Message;
+import com.example.project.mapper.course.CourseMapper;
+import com.example.project.mapper.course.StudentCourseMapper;
+import com.example.project.mapper.enrollment.CourseEnrollmentMapper;
+import com.example.project.mapper.exam.ExamMapper;
+import com.example.project.mapper.homework.StudentLabReportMapper;
+import com.example.project.mapper.notification.MessageMapper;
+import com.example.project.util.TransactionUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 教师主页计数器
+ * 每位教师在内存中维护课程数、去重学生数、待批改作业数、已发布考试数、待审核报名数和未读留言数，
+ * 由选课审核、作业提交/批改、考试发布等业务事件在事务提交后增量更新，读取统计为一次内存查找。
+ * 首次读取时从数据库构建，定时对账纠正偏差；课程集合变化（新建、删除、公开/私密切换）时整体重建
+ */
+@Component
+public class TeacherDashboardCounters {
+
+    /**
+     * 增量维护的计数项
+     */
+    public enum Counter {
+        COURSES, PENDING_HOMEWORK, PUBLISHED_EXAMS, PENDING_ENROLLMENTS, UNREAD_MESSAGES
+    }
+
+    @Autowired
+    private CourseMapper courseMapper;
+
+    @Autowired
+    private StudentCourseMapper studentCourseMapper;
+
+    @Autowired
+    private StudentLabReportMapper studentLabReportMapper;
+
+    @Autowired
+    private ExamMapper examMapper;
+
+    @Autowired
+    private CourseEnrollmentMapper courseEnrollmentMapper;
+
+    @Autowired
+    private MessageMapper messageMapper;
+
+    private final Map<String, Counters> counters = new ConcurrentHashMap<>();
+
+    /**
+     * 每位教师的变更代数，构建期间发生变更时不缓存构建结果
+     */
+    private final Map<String, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    /**
+     * courseId -> 所属教师（仅已启用课程），私密课程的事件不计入主页
+     */
+    private final Map<String, String> activeCourseTeachers = new ConcurrentHashMap<>();
+
+    private static final String INACTIVE = "";
+
+    /**
+     * 获取教师主页统计
+     */
+    public DashboardStatisticsDTO getStatistics(String teacherId) {
+        Counters current = counters.get(teacherId);
+        if (current == null) {
+            current = load(teacherId);
+        }
+        return current.toDTO();
+    }
+
+    /**
+     * 按教师调整计数（事务提交后生效）
+     */
+    public void adjust(String teacherId, Counter counter, int delta) {
+        if (teacherId == null || delta == 0) {
+            return;
+        }
+        TransactionUtil.afterCommit(() -> apply(teacherId, counter, delta));
+    }
+
+    /**
+     * 按课程调整计数，课程所属教师在事务提交后解析
+     */
+    public void adjustByCourse(String courseId, Counter counter, int delta) {
+        if (courseId == null || delta == 0) {
+            return;
+        }
+        TransactionUtil.afterCommit(() -> {
+            String teacherId = teacherOf(courseId);
+            if (teacherId != null) {
+                apply(teacherId, counter, delta);
+            }
+        });
+    }
+
+    /**
+     * 学生加入课程（学习中）
+     */
+    public void onStudentJoined(String courseId, String studentId) {
+        adjustStudent(courseId, studentId, 1);
+    }
+
+    /**
+     * 学生退出课程或结课（不再是学习中）
+     */
+    public void onStudentLeft(String courseId, String studentId) {
+        adjustStudent(courseId, studentId, -1);
+    }
+
+    /**
+     * 教师的课程集合发生变化，丢弃计数，下次读取时重建
+     */
+    public void invalidate(String teacherId, String courseId) {
+        TransactionUtil.afterCommit(() -> {
+            if (courseId != null) {
+                activeCourseTeachers.remove(courseId);
+            }
+            if (teacherId != null) {
+                generationOf(teacherId).incrementAndGet();
+                counters.remove(teacherId);
+            }
+        });
+    }
+
+    /**
+     * 定时对账：重新统计已缓存的教师，与内存计数不一致时以数据库为准
+     */
+    @Scheduled(fixedDelayString = "${dashboard.counters.reconcile-interval-ms:600000}")
+    public void reconcile() {
+        int drifted = 0;
+        for (String teacherId : new ArrayList<>(counters.keySet())) {
+            Counters cached = counters.get(teacherId);
+            if (cached == null) {
+                continue;
+            }
+            try {
+                DashboardStatisticsDTO before = cached.toDTO();
+                DashboardStatisticsDTO after = load(teacherId).toDTO();
+                if (!before.equals(after)) {
+                    drifted++;
+                    System.err.println("教师主页计数偏差已修正 teacherId=" + teacherId
+                            + ": " + before + " -> " + after);
+                }
+            } catch (Exception e) {
+                System.err.println("教师主页计数对账失败 teacherId=" + teacherId + ": " + e.getMessage());
+            }
+        }
+        if (drifted > 0) {
+            System.out.println("教师主页计数对账完成，修正 " + drifted + " 位教师");
+        }
+    }
+
+    private void apply(String teacherId, Counter counter, int delta) {
+        generationOf(teacherId).incrementAndGet();
+        Counters current = counters.get(teacherId);
+        if (current != null) {
+            current.add(counter, delta);
+        }
+    }
+
+    private void adjustStudent(String courseId, String studentId, int delta) {
+        if (courseId == null || studentId == null) {
+            return;
+        }
+        TransactionUtil.afterCommit(() -> {
+            String teacherId = teacherOf(courseId);
+            if (teacherId == null) {
+                return;
+            }
+            generationOf(teacherId).incrementAndGet();
+            Counters current = counters.get(teacherId);
+            if (current != null) {
+                current.addStudent(studentId, delta);
+            }
+        });
+    }
+
+    private String teacherOf(String courseId) {
+        String teacherId = activeCourseTeachers.computeIfAbsent(courseId, id -> {
+            Course course = courseMapper.selectById(id);
+            if (course == null || course.getTeacherId() == null
+                    || course.getState() == null || course.getState() != 1) {
+                return INACTIVE;
+            }
+            return course.getTeacherId();
+        });
+        return INACTIVE.equals(teacherId) ? null : teacherId;
+    }
+
+    private Counters load(String teacherId) {
+        long generation = generationOf(teacherId).get();
+
+        Counters loaded = new Counters();
+        QueryWrapper<Course> courseWrapper = new QueryWrapper<>();
+        courseWrapper.eq("teacher_id", teacherId);
+        courseWrapper.eq("state", 1);
+        loaded.values[Counter.COURSES.ordinal()] = courseMapper.selectCount(courseWrapper).intValue();
+        loaded.values[Counter.PENDING_HOMEWORK.ordinal()] = studentLabReportMapper.countPendingByTeacher(teacherId);
+        loaded.values[Counter.PUBLISHED_EXAMS.ordinal()] = examMapper.countPublishedByTeacher(teacherId);
+        loaded.values[Counter.PENDING_ENROLLMENTS.ordinal()] = courseEnrollmentMapper.countPendingByTeacher(teacherId);
+
+        QueryWrapper<Message> messageWrapper = new QueryWrapper<>();
+        messageWrapper.eq("receiver_id", teacherId);
+        messageWrapper.eq("receiver_type", "TEACHER");
+        messageWrapper.eq("is_read", 0);
+        loaded.values[Counter.UNREAD_MESSAGES.ordinal()] = messageMapper.selectCount(messageWrapper).intValue();
+
+        for (Map<String, Object> row : studentCourseMapper.selectActiveStudentEnrollments(teacherId)) {
+            Object studentId = row.get("studentId");
+            Object cnt = row.get("cnt");
+            if (studentId != null && cnt instanceof Number) {
+                loaded.studentEnrollments.put(String.valueOf(studentId), ((Number) cnt).intValue());
+            }
+        }
+
+        // 构建期间有变更则不缓存，下次读取重新构建
+        if (generationOf(teacherId).get() == generation) {
+            counters.put(teacherId, loaded);
+        }
+        return loaded;
+    }
+
+    private AtomicLong generationOf(String teacherId) {
+        return generations.computeIfAbsent(teacherId, id -> new AtomicLong());
+    }
+
+    /**
+     * 单位教师的计数状态
+     */
+    private static final class Counters {
+        private final int[] values = new int[Counter.values().length];
+
+        /**
+         * studentId -> 学习中的课程数，用于维护去重学生数
+         */
+        private final Map<String, Integer> studentEnrollments = new HashMap<>();
+
+        synchronized void add(Counter counter, int delta) {
+            values[counter.ordinal()] = Math.max(0, values[counter.ordinal()] + delta);
+        }
+
+        synchronized void addStudent(String studentId, int delta) {
+            studentEnrollments.merge(studentId, delta, Integer::sum);
+            if (studentEnrollments.get(studentId) <= 0) {
+                studentEnrollments.remove(studentId);
+            }
+        }
+
+        synchronized DashboardStatisticsDTO toDTO() {
+            DashboardStatisticsDTO statistics = new DashboardStatisticsDTO();
+            statistics.setCourseCount(values[Counter.COURSES.ordinal()]);
+            statistics.setStudentCount(studentEnrollments.size());
+            statistics.setPendingHomeworkCount(values[Counter.PENDING_HOMEWORK.ordinal()]);
+            statistics.setOngoingExamCount(values[Counter.PUBLISHED_EXAMS.ordinal()]);
+            statistics.setPendingEnrollmentCount(values[Counter.PENDING_ENROLLMENTS.ordinal()]);
+            statistics.setUnreadMessageCount(values[Counter.UNREAD_MESSAGES.ordinal()]);
+            statistics.setTodayNewStudentCount(0);
+            return statistics;
+        }
+    }
+}
@@ -21,6 +21,9 @@ public class TeacherUserServiceImpl implements TeacherUserService {
 
     @Autowired
     private TeacherUserMapper teacherUserMapper;
+
+    @Autowired
+    private UserDirectory userDirectory;
     // 上传路径
     @Value("${file.upload-dir:./uploads}")
     private String uploadDir;
@@ -198,6 +201,7 @@ public class TeacherUserServiceImpl implements TeacherUserService {
             teacher.setTeacherId(teacherId);
             teacher.setTeacherHead(avatarUrl);
             teacherUserMapper.updateById(teacher);
+            userDirectory.invalidate(UserDirectory.TEACHER, teacherId);
 
             return avatarUrl;
         } catch (IOException e) {
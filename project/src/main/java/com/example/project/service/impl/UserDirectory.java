@@ -0,0 +1,161 @@
+package com.example.project.service.impl;
+
+import com.example.project.entity.Student;
+import com.example.project.entity.Teacher;
+import com.example.project.mapper.StudentUserMapper;
+import com.example.project.mapper.TeacherUserMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 用户名片缓存（学生/教师的用户名和头像）
+ * 列表接口按页批量解析发送者、作者，未命中的按类型一次 selectBatchIds 补齐；
+ * 头像、资料修改时主动失效，其余变化（如删除用户）由过期时间兜底
+ */
+@Component
+public class UserDirectory {
+
+    public static final String STUDENT = "STUDENT";
+
+    public static final String TEACHER = "TEACHER";
+
+    @Autowired
+    private StudentUserMapper studentUserMapper;
+
+    @Autowired
+    private TeacherUserMapper teacherUserMapper;
+
+    @Value("${user-directory.cache-size:5000}")
+    private int maxSize;
+
+    @Value("${user-directory.ttl-ms:300000}")
+    private long ttlMs;
+
+    private final Map<String, Profile> cache = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Profile> eldest) {
+            return size() > maxSize;
+        }
+    };
+
+    /**
+     * 用户名片；用户不存在时 name、avatar 为 null
+     */
+    public static final class Profile {
+        private final String name;
+        private final String avatar;
+        private final long expiresAt;
+
+        private Profile(String name, String avatar, long expiresAt) {
+            this.name = name;
+            this.avatar = avatar;
+            this.expiresAt = expiresAt;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getAvatar() {
+            return avatar;
+        }
+    }
+
+    /**
+     * 批量解析同一类型的用户，返回 userId -> 名片（包含不存在的用户）
+     */
+    public Map<String, Profile> resolve(String userType, Collection<String> userIds) {
+        Map<String, Profile> result = new HashMap<>();
+        if (userType == null || userIds == null || userIds.isEmpty()) {
+            return result;
+        }
+        String type = userType.toUpperCase();
+        if (!STUDENT.equals(type) && !TEACHER.equals(type)) {
+            return result;
+        }
+
+        List<Integer> missing = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        synchronized (cache) {
+            for (String userId : userIds) {
+                Profile cached = cache.get(keyOf(type, userId));
+                if (cached != null && cached.expiresAt > now) {
+                    result.put(userId, cached);
+                } else if (!result.containsKey(userId)) {
+                    Integer id = parseId(userId);
+                    if (id != null && !missing.contains(id)) {
+                        missing.add(id);
+                    }
+                }
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        Map<String, Profile> loaded = new HashMap<>();
+        long expiresAt = System.currentTimeMillis() + ttlMs;
+        if (STUDENT.equals(type)) {
+            for (Student student : studentUserMapper.selectBatchIds(missing)) {
+                loaded.put(String.valueOf(student.getStudentsId()),
+                        new Profile(student.getStudentsUsername(), student.getStudentsHead(), expiresAt));
+            }
+        } else {
+            for (Teacher teacher : teacherUserMapper.selectBatchIds(missing)) {
+                loaded.put(String.valueOf(teacher.getTeacherId()),
+                        new Profile(teacher.getTeacherUsername(), teacher.getTeacherHead(), expiresAt));
+            }
+        }
+        for (Integer id : missing) {
+            loaded.putIfAbsent(String.valueOf(id), new Profile(null, null, expiresAt));
+        }
+
+        synchronized (cache) {
+            for (Map.Entry<String, Profile> entry : loaded.entrySet()) {
+                cache.put(keyOf(type, entry.getKey()), entry.getValue());
+            }
+        }
+        for (String userId : userIds) {
+            Integer id = parseId(userId);
+            if (id != null && loaded.containsKey(String.valueOf(id))) {
+                result.put(userId, loaded.get(String.valueOf(id)));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 用户名或头像变化后失效
+     */
+    public void invalidate(String userType, Object userId) {
+        if (userType == null || userId == null) {
+            return;
+        }
+        synchronized (cache) {
+            cache.remove(keyOf(userType.toUpperCase(), String.valueOf(userId)));
+        }
+    }
+
+    private static String keyOf(String userType, String userId) {
+        return userType + ":" + userId;
+    }
+
+    private static Integer parseId(String userId) {
+        if (userId == null) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(userId.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -23,6 +23,9 @@ public class teacherHeadServiceImpl implements teacherHeadService {
     
     @Autowired
     private TeacherUserMapper teacherUserMapper;
+
+    @Autowired
+    private UserDirectory userDirectory;
     
     @PostConstruct
     public void init() {
@@ -79,6 +82,7 @@ public class teacherHeadServiceImpl implements teacherHeadService {
             teacher.setTeacherId(id);
             teacher.setTeacherHead("/uploads/avatar/" + newFileName);
             teacherUserMapper.updateById(teacher);
+            userDirectory.invalidate(UserDirectory.TEACHER, id);
             
         } catch (Exception e) {
             throw new RuntimeException("文件保存失败: " + e.getMessage(), e);
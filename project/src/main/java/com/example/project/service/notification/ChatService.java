@@ -16,6 +16,12 @@ public interface ChatService {
      */
     List<ChatMessage> getHistory(String user1Id, String user1Type, String user2Id, String user2Type);
 
+    /**
+     * 分页获取两人之间的聊天记录（由新到旧），beforeId 为上一页最早一条消息的 ID
+     */
+    Map<String, Object> getHistoryPage(String user1Id, String user1Type, String user2Id, String user2Type,
+            Long beforeId, Integer limit);
+
     /**
      * 获取联系人列表（包含最后一条消息和未读数）
      */
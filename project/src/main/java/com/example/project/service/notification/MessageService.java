@@ -1,8 +1,10 @@
 package com.example.project.service.notification;
 
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.example.project.dto.notification.BroadcastMessageDTO;
 import com.example.project.entity.notification.Message;
 import java.util.List;
+import java.util.Map;
 
 public interface MessageService {
     
@@ -10,9 +12,21 @@ public interface MessageService {
                       String messageType, String title, String content, String relatedId);
     
     void saveMessage(Message message);
+
+    /**
+     * 群发消息（课程、班级或角色），返回接收人数和实际写入条数
+     * 以管理员身份发送时 authorization 须为管理员登录签发的 token
+     */
+    Map<String, Object> broadcast(BroadcastMessageDTO request, String authorization);
     
-    Page<Message> getMessageList(String receiverId, String receiverType, Integer isRead, 
+    Page<Message> getMessageList(String receiverId, String receiverType, Integer isRead, String messageType,
                                Integer pageNumber, Integer pageSize);
+
+    /**
+     * 游标分页获取消息，游标格式为 createTime(毫秒)_messageId，即上一页最后一条消息
+     */
+    Map<String, Object> getMessageFeed(String receiverId, String receiverType, Integer isRead, String messageType,
+                                       String cursor, Integer limit);
     
     void markAsRead(Long messageId, String receiverId, String receiverType);
     
@@ -39,4 +39,25 @@ public interface NotificationService {
      * delete or mark as expired)
      */
     void withdrawNotification(Long id);
+
+    /**
+     * 获取用户的系统通知列表（带已读状态）
+     */
+    Page<SystemNotification> getUserNotificationList(String userId, String userType, Integer pageNumber,
+            Integer pageSize);
+
+    /**
+     * 获取用户未读系统通知数
+     */
+    Integer getUnreadCount(String userId, String userType);
+
+    /**
+     * 标记单条系统通知已读
+     */
+    void markAsRead(String userId, String userType, Long notificationId);
+
+    /**
+     * 全部标记已读
+     */
+    void markAllAsRead(String userId, String userType);
 }
@@ -0,0 +1,100 @@
+package com.example.project.service.notification.impl;
+
+import com.example.project.entity.DataBackfill;
+import com.example.project.mapper.DataBackfillMapper;
+import com.example.project.mapper.notification.ChatConversationMapper;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 私信会话回填
+ * 首次上线（或配置要求重建）时，在后台按 conversation_key 分批从 chat_message 重新统计会话。
+ * 每批为一条 INSERT ... SELECT，可重复执行；回填期间新发送的消息由 sendChatMessage 正常写入，不会被覆盖。
+ * 进度记录在 data_backfill 中，进程中途退出后从最后完成的批次继续，全部完成后不再执行
+ */
+@Component
+public class ChatConversationBackfill {
+
+    private static final String BACKFILL_NAME = "chat_conversation";
+
+    @Autowired
+    private ChatConversationMapper chatConversationMapper;
+
+    @Autowired
+    private DataBackfillMapper dataBackfillMapper;
+
+    @Value("${chat.conversation.backfill-batch-size:200}")
+    private int batchSize;
+
+    @Value("${chat.conversation.rebuild-on-startup:false}")
+    private boolean rebuildOnStartup;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "chat-conversation-backfill");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        executor.execute(() -> {
+            try {
+                if (rebuildOnStartup) {
+                    backfill(null);
+                    return;
+                }
+                DataBackfill progress = dataBackfillMapper.selectById(BACKFILL_NAME);
+                if (progress == null) {
+                    backfill(null);
+                } else if (!DataBackfill.STATUS_DONE.equals(progress.getStatus())) {
+                    backfill(progress.getLastKey());
+                }
+            } catch (Exception e) {
+                System.err.println("私信会话回填失败: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 按 conversation_key 顺序分批重建 afterKey 之后的会话，每批完成后记录进度
+     */
+    public void backfill(String afterKey) {
+        long start = System.currentTimeMillis();
+        int conversations = 0;
+        dataBackfillMapper.saveProgress(BACKFILL_NAME, DataBackfill.STATUS_RUNNING, afterKey);
+        while (true) {
+            if (Thread.currentThread().isInterrupted()) {
+                return; // 保持 RUNNING，下次启动继续
+            }
+            List<String> keys = chatConversationMapper.selectMessageConversationKeys(afterKey, batchSize);
+            if (keys.isEmpty()) {
+                break;
+            }
+            chatConversationMapper.rebuildConversations(keys);
+            conversations += keys.size();
+            afterKey = keys.get(keys.size() - 1);
+            dataBackfillMapper.saveProgress(BACKFILL_NAME, DataBackfill.STATUS_RUNNING, afterKey);
+            if (keys.size() < batchSize) {
+                break;
+            }
+        }
+        dataBackfillMapper.saveProgress(BACKFILL_NAME, DataBackfill.STATUS_DONE, afterKey);
+        if (conversations > 0) {
+            System.out.println("私信会话回填完成: " + conversations + " 个会话, 耗时 "
+                    + (System.currentTimeMillis() - start) + "ms");
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package com.example.project.service.notification.impl;
+
+import com.example.project.common.Result;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+/**
+ * 私信推送中心
+ * 按用户（类型 + ID）登记 SSE 连接和长轮询请求，新私信、未读数变化直接推送给在线用户；
+ * 每个在线用户保留最近若干条事件（带递增序号），断线重连或下一次长轮询可按序号补齐，
+ * 空闲用户不产生任何数据库查询
+ */
+@Component
+public class ChatPushHub {
+
+    @Value("${chat.push.sse-timeout-ms:1800000}")
+    private long sseTimeoutMs;
+
+    @Value("${chat.push.poll-timeout-ms:25000}")
+    private long pollTimeoutMs;
+
+    @Value("${chat.push.mailbox-size:50}")
+    private int mailboxSize;
+
+    @Value("${chat.push.mailbox-idle-ms:300000}")
+    private long mailboxIdleMs;
+
+    /**
+     * "TYPE:userId" -> 该用户的连接与最近事件
+     */
+    private final Map<String, Mailbox> mailboxes = new ConcurrentHashMap<>();
+
+    /**
+     * 订阅私信事件（SSE），lastEventId 为浏览器重连时携带的 Last-Event-ID
+     */
+    public SseEmitter subscribe(String userId, String userType, Long lastEventId) {
+        String key = keyOf(userId, userType);
+        SseEmitter emitter = new SseEmitter(sseTimeoutMs);
+        Mailbox mailbox;
+        List<Event> missed;
+        while (true) {
+            mailbox = mailboxes.computeIfAbsent(key, k -> new Mailbox());
+            synchronized (mailbox) {
+                // 取到后可能已被心跳清理，登记到孤立的 mailbox 上将收不到推送，重新获取
+                if (mailboxes.get(key) != mailbox) {
+                    continue;
+                }
+                mailbox.touch();
+                mailbox.emitters.add(emitter);
+                missed = lastEventId != null ? mailbox.since(lastEventId) : new ArrayList<>();
+                break;
+            }
+        }
+        Mailbox registered = mailbox;
+        Runnable remove = () -> registered.emitters.remove(emitter);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(e -> remove.run());
+        try {
+            emitter.send(SseEmitter.event().name("connected").data("ok"));
+            for (Event event : missed) {
+                emitter.send(event.toSse());
+            }
+        } catch (IOException e) {
+            remove.run();
+        }
+        return emitter;
+    }
+
+    /**
+     * 长轮询（不支持 SSE 时的兜底）：有 since 之后的事件立即返回，否则等待下一条事件或超时
+     */
+    public DeferredResult<Result<Map<String, Object>>> poll(String userId, String userType, Long since) {
+        String key = keyOf(userId, userType);
+        DeferredResult<Result<Map<String, Object>>> result = new DeferredResult<>(pollTimeoutMs);
+        Mailbox mailbox;
+        while (true) {
+            mailbox = mailboxes.computeIfAbsent(key, k -> new Mailbox());
+            synchronized (mailbox) {
+                if (mailboxes.get(key) != mailbox) {
+                    continue;
+                }
+                mailbox.touch();
+                List<Event> pending = since != null ? mailbox.since(since) : new ArrayList<>();
+                if (!pending.isEmpty()) {
+                    result.setResult(Result.success(pollResponse(pending, mailbox.seq)));
+                    return result;
+                }
+                mailbox.waiters.add(result);
+                break;
+            }
+        }
+        Mailbox registered = mailbox;
+        result.onTimeout(() -> {
+            registered.waiters.remove(result);
+            long seq;
+            synchronized (registered) {
+                seq = registered.seq;
+            }
+            result.setResult(Result.success(pollResponse(new ArrayList<>(), seq)));
+        });
+        result.onCompletion(() -> registered.waiters.remove(result));
+        return result;
+    }
+
+    /**
+     * 用户是否在线（有 SSE 连接或最近轮询过），不在线时调用方无需计算推送内容
+     */
+    public boolean isOnline(String userId, String userType) {
+        return mailboxes.containsKey(keyOf(userId, userType));
+    }
+
+    /**
+     * 向在线用户推送事件，不在线时直接忽略
+     */
+    public void push(String userId, String userType, String eventName, Object data) {
+        Mailbox mailbox = mailboxes.get(keyOf(userId, userType));
+        if (mailbox == null) {
+            return;
+        }
+        Event event;
+        List<DeferredResult<Result<Map<String, Object>>>> waiters;
+        long seq;
+        synchronized (mailbox) {
+            event = new Event(++mailbox.seq, eventName, data);
+            seq = mailbox.seq;
+            mailbox.events.addLast(event);
+            while (mailbox.events.size() > mailboxSize) {
+                mailbox.events.removeFirst();
+            }
+            waiters = new ArrayList<>(mailbox.waiters);
+            mailbox.waiters.clear();
+        }
+
+        for (SseEmitter emitter : mailbox.emitters) {
+            try {
+                emitter.send(event.toSse());
+            } catch (Exception e) {
+                mailbox.emitters.remove(emitter);
+            }
+        }
+        List<Event> delivered = new ArrayList<>();
+        delivered.add(event);
+        for (DeferredResult<Result<Map<String, Object>>> waiter : waiters) {
+            waiter.setResult(Result.success(pollResponse(delivered, seq)));
+        }
+    }
+
+    /**
+     * 心跳，防止代理断开空闲连接；同时清理长时间无连接、无轮询的用户
+     */
+    @Scheduled(fixedDelayString = "${chat.push.heartbeat-ms:25000}")
+    public void heartbeat() {
+        long idleBefore = System.currentTimeMillis() - mailboxIdleMs;
+        for (Map.Entry<String, Mailbox> entry : mailboxes.entrySet()) {
+            Mailbox mailbox = entry.getValue();
+            for (SseEmitter emitter : mailbox.emitters) {
+                try {
+                    emitter.send(SseEmitter.event().comment("ping"));
+                } catch (Exception e) {
+                    mailbox.emitters.remove(emitter);
+                }
+            }
+            synchronized (mailbox) {
+                if (mailbox.emitters.isEmpty() && mailbox.waiters.isEmpty() && mailbox.lastActive < idleBefore) {
+                    mailboxes.remove(entry.getKey(), mailbox);
+                }
+            }
+        }
+    }
+
+    public int getConnectionCount() {
+        return mailboxes.values().stream().mapToInt(mailbox -> mailbox.emitters.size()).sum();
+    }
+
+    private static String keyOf(String userId, String userType) {
+        return (userType != null ? userType.toUpperCase() : "") + ":" + userId;
+    }
+
+    private static Map<String, Object> pollResponse(List<Event> events, long lastEventId) {
+        List<Map<String, Object>> list = new ArrayList<>();
+        for (Event event : events) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("id", event.seq);
+            item.put("event", event.name);
+            item.put("data", event.data);
+            list.add(item);
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("events", list);
+        response.put("lastEventId", lastEventId);
+        return response;
+    }
+
+    /**
+     * 单个用户的连接、长轮询请求和最近事件
+     */
+    private static final class Mailbox {
+        private final Set<SseEmitter> emitters = new CopyOnWriteArraySet<>();
+        private final Set<DeferredResult<Result<Map<String, Object>>>> waiters = ConcurrentHashMap.newKeySet();
+        private final Deque<Event> events = new ArrayDeque<>();
+        private long seq;
+        private long lastActive = System.currentTimeMillis();
+
+        private void touch() {
+            lastActive = System.currentTimeMillis();
+        }
+
+        private List<Event> since(long lastEventId) {
+            List<Event> result = new ArrayList<>();
+            for (Event event : events) {
+                if (event.seq > lastEventId) {
+                    result.add(event);
+                }
+            }
+            return result;
+        }
+    }
+
+    private static final class Event {
+        private final long seq;
+        private final String name;
+        private final Object data;
+
+        private Event(long seq, String name, Object data) {
+            this.seq = seq;
+            this.name = name;
+            this.data = data;
+        }
+
+        private SseEmitter.SseEventBuilder toSse() {
+            return SseEmitter.event().id(String.valueOf(seq)).name(name).data(data);
+        }
+    }
+}
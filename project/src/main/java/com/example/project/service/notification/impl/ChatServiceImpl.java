@@ -2,58 +2,125 @@ package com.example.project.service.notification.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
+import com.example.project.entity.notification.ChatConversation;
 import com.example.project.entity.notification.ChatMessage;
+import com.example.project.mapper.notification.ChatConversationMapper;
 import com.example.project.mapper.notification.ChatMessageMapper;
 import com.example.project.service.notification.ChatService;
 import com.example.project.service.SensitiveWordService;
+import com.example.project.util.TransactionUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 @Service
 public class ChatServiceImpl implements ChatService {
 
+    private static final int DEFAULT_HISTORY_SIZE = 50;
+
+    private static final int MAX_HISTORY_SIZE = 200;
+
+    private static final int SNIPPET_LENGTH = 200;
+
     @Autowired
     private ChatMessageMapper chatMessageMapper;
 
+    @Autowired
+    private ChatConversationMapper chatConversationMapper;
+
     @Autowired
     private SensitiveWordService sensitiveWordService;
 
+    @Autowired
+    private ChatPushHub chatPushHub;
+
+    @Autowired
+    private UnreadCounters unreadCounters;
+
     @Override
     @Transactional
     public ChatMessage sendChatMessage(ChatMessage message) {
-        // 敏感词拦截检查
-        if (sensitiveWordService != null && sensitiveWordService.hasSensitiveWords(message.getContent())) {
-            throw new RuntimeException("消息发送失败：检测到敏感内容，请文明交流");
+        // 敏感词检查：BLOCK 拒绝发送，REPLACE 替换后保存，REVIEW 标记待复核
+        if (sensitiveWordService != null) {
+            Map<String, Object> check = sensitiveWordService.checkText(message.getContent());
+            if (Boolean.TRUE.equals(check.get("blocked"))) {
+                throw new RuntimeException("消息发送失败：检测到敏感内容，请文明交流");
+            }
+            message.setContent((String) check.get("filteredText"));
+            message.setNeedReview(Boolean.TRUE.equals(check.get("needsReview")) ? 1 : 0);
         }
 
         if (message.getCreateTime() == null) {
             message.setCreateTime(new Date());
         }
         message.setIsRead(0);
+        message.setConversationKey(conversationKeyOf(message.getSenderId(), message.getSenderType(),
+                message.getReceiverId(), message.getReceiverType()));
         chatMessageMapper.insert(message);
+
+        // 同一事务内更新双方的会话行（接收方未读 +1）
+        // 按 (owner_role, owner_id) 固定顺序加锁，避免双方同时互发消息时死锁
+        List<ChatConversation> rows = new ArrayList<>(Arrays.asList(
+                conversationOf(message, message.getSenderId(), message.getSenderType(),
+                        message.getReceiverId(), message.getReceiverType(), 0),
+                conversationOf(message, message.getReceiverId(), message.getReceiverType(),
+                        message.getSenderId(), message.getSenderType(), 1)));
+        rows.sort(Comparator.comparing(ChatConversation::getOwnerRole)
+                .thenComparing(ChatConversation::getOwnerId, Comparator.nullsFirst(Comparator.naturalOrder())));
+        chatConversationMapper.upsertOnMessage(rows);
+        unreadCounters.adjustChat(message.getReceiverId(), message.getReceiverType(), message.getSenderType(), 1);
+
+        // 提交后推送给在线的接收方，离线时不做任何查询
+        TransactionUtil.afterCommit(() -> pushMessage(message));
         return message;
     }
 
     @Override
     public List<ChatMessage> getHistory(String user1Id, String user1Type, String user2Id, String user2Type) {
         QueryWrapper<ChatMessage> wrapper = new QueryWrapper<>();
-        wrapper.and(w -> w.eq("sender_id", user1Id).eq("sender_role", user1Type).eq("receiver_id", user2Id)
-                .eq("receiver_role", user2Type))
-                .or(w -> w.eq("sender_id", user2Id).eq("sender_role", user2Type).eq("receiver_id", user1Id)
-                        .eq("receiver_role", user1Type))
-                .orderByAsc("create_time");
+        wrapper.eq("conversation_key", conversationKeyOf(user1Id, user1Type, user2Id, user2Type))
+                .orderByAsc("id");
 
         return chatMessageMapper.selectList(wrapper);
     }
 
+    @Override
+    public Map<String, Object> getHistoryPage(String user1Id, String user1Type, String user2Id, String user2Type,
+            Long beforeId, Integer limit) {
+        int size = limit == null || limit <= 0 ? DEFAULT_HISTORY_SIZE : Math.min(limit, MAX_HISTORY_SIZE);
+
+        // 按 (conversation_key, id) 索引倒序取 size + 1 条，多出的一条用于判断是否还有更早的消息
+        QueryWrapper<ChatMessage> wrapper = new QueryWrapper<>();
+        wrapper.eq("conversation_key", conversationKeyOf(user1Id, user1Type, user2Id, user2Type));
+        if (beforeId != null) {
+            wrapper.lt("id", beforeId);
+        }
+        wrapper.orderByDesc("id");
+        wrapper.last("LIMIT " + (size + 1));
+        List<ChatMessage> messages = chatMessageMapper.selectList(wrapper);
+
+        boolean hasMore = messages.size() > size;
+        if (hasMore) {
+            messages = new ArrayList<>(messages.subList(0, size));
+        }
+        Map<String, Object> result = new HashMap<>();
+        result.put("list", messages);
+        result.put("hasMore", hasMore);
+        result.put("nextBeforeId", hasMore ? messages.get(messages.size() - 1).getId() : null);
+        return result;
+    }
+
     @Override
     public List<Map<String, Object>> getContactList(String userId, String userType) {
-        return chatMessageMapper.getContactList(userId, userType);
+        return chatConversationMapper.selectContactList(userId, upper(userType));
     }
 
     @Override
@@ -75,24 +142,22 @@ public class ChatServiceImpl implements ChatService {
                 .eq("receiver_role", currentUserType)
                 .eq("sender_id", senderId)
                 .eq("sender_role", senderType)
+                .eq("is_read", 0)
                 .set("is_read", 1);
 
-        chatMessageMapper.update(null, wrapper);
+        int updated = chatMessageMapper.update(null, wrapper);
+        if (updated > 0) {
+            chatConversationMapper.decreaseUnread(currentUserId, upper(currentUserType), senderId, upper(senderType),
+                    updated);
+            unreadCounters.adjustChat(currentUserId, currentUserType, senderType, -updated);
+            TransactionUtil.afterCommit(() -> pushRead(currentUserId, currentUserType, senderId, senderType));
+        }
     }
 
     @Override
     public Integer getTotalUnreadCount(String userId, String userType) {
-        QueryWrapper<ChatMessage> wrapper = new QueryWrapper<>();
-        wrapper.eq("receiver_id", userId)
-                .eq("receiver_role", userType)
-                .eq("is_read", 0);
-
         // 如果不是管理员，其主消息中心不统计来自管理员的未读（由独立组件处理）
-        if (!"ADMIN".equalsIgnoreCase(userType)) {
-            wrapper.ne("sender_role", "ADMIN");
-        }
-
-        return Math.toIntExact(chatMessageMapper.selectCount(wrapper));
+        return unreadCounters.getChatUnread(userId, userType, "ADMIN".equalsIgnoreCase(userType));
     }
 
     @Override
@@ -103,11 +168,8 @@ public class ChatServiceImpl implements ChatService {
 
         // 获取最后一条消息
         QueryWrapper<ChatMessage> lastMsgWrapper = new QueryWrapper<>();
-        lastMsgWrapper.and(w -> w.eq("sender_id", userId).eq("sender_role", userType).eq("receiver_id", adminId)
-                .eq("receiver_role", adminType))
-                .or(w -> w.eq("sender_id", adminId).eq("sender_role", adminType).eq("receiver_id", userId)
-                        .eq("receiver_role", userType))
-                .orderByDesc("create_time")
+        lastMsgWrapper.eq("conversation_key", conversationKeyOf(userId, userType, adminId, adminType))
+                .orderByDesc("id")
                 .last("LIMIT 1");
 
         ChatMessage lastMsg = chatMessageMapper.selectOne(lastMsgWrapper);
@@ -122,7 +184,7 @@ public class ChatServiceImpl implements ChatService {
 
         Integer unreadCount = Math.toIntExact(chatMessageMapper.selectCount(unreadWrapper));
 
-        Map<String, Object> result = new java.util.HashMap<>();
+        Map<String, Object> result = new HashMap<>();
         result.put("contactId", adminId);
         result.put("contactType", adminType);
         result.put("contactName", "系统管理员");
@@ -132,4 +194,77 @@ public class ChatServiceImpl implements ChatService {
 
         return result;
     }
+
+    /**
+     * 新私信推送给接收方：消息本身 + 最新未读数
+     */
+    private void pushMessage(ChatMessage message) {
+        String receiverId = message.getReceiverId();
+        String receiverType = message.getReceiverType();
+        if (!chatPushHub.isOnline(receiverId, receiverType)) {
+            return;
+        }
+        try {
+            Map<String, Object> data = new HashMap<>();
+            data.put("message", message);
+            data.put("unreadCount", getTotalUnreadCount(receiverId, receiverType));
+            chatPushHub.push(receiverId, receiverType, "message", data);
+        } catch (Exception e) {
+            System.err.println("私信推送失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 标记已读后：阅读方更新未读数，发送方收到已读回执
+     */
+    private void pushRead(String readerId, String readerType, String senderId, String senderType) {
+        try {
+            if (chatPushHub.isOnline(readerId, readerType)) {
+                Map<String, Object> data = new HashMap<>();
+                data.put("unreadCount", getTotalUnreadCount(readerId, readerType));
+                chatPushHub.push(readerId, readerType, "unread", data);
+            }
+            if (chatPushHub.isOnline(senderId, senderType)) {
+                Map<String, Object> receipt = new HashMap<>();
+                receipt.put("readerId", readerId);
+                receipt.put("readerType", readerType);
+                chatPushHub.push(senderId, senderType, "read", receipt);
+            }
+        } catch (Exception e) {
+            System.err.println("已读推送失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 会话标识：双方 "角色:ID" 按字典序排列后以 "|" 连接（与 DatabaseInitializer 中的回填规则一致）
+     */
+    static String conversationKeyOf(String user1Id, String user1Type, String user2Id, String user2Type) {
+        String first = upper(user1Type) + ":" + user1Id;
+        String second = upper(user2Type) + ":" + user2Id;
+        return first.compareTo(second) <= 0 ? first + "|" + second : second + "|" + first;
+    }
+
+    /**
+     * 新消息对应的一侧会话行
+     */
+    private static ChatConversation conversationOf(ChatMessage message, String ownerId, String ownerType,
+            String peerId, String peerType, int unread) {
+        ChatConversation conversation = new ChatConversation();
+        conversation.setOwnerId(ownerId);
+        conversation.setOwnerRole(upper(ownerType));
+        conversation.setPeerId(peerId);
+        conversation.setPeerRole(upper(peerType));
+        conversation.setConversationKey(message.getConversationKey());
+        conversation.setLastMessageId(message.getId());
+        String content = message.getContent();
+        conversation.setLastMessage(content != null && content.length() > SNIPPET_LENGTH
+                ? content.substring(0, SNIPPET_LENGTH) : content);
+        conversation.setLastTime(message.getCreateTime());
+        conversation.setUnreadCount(unread);
+        return conversation;
+    }
+
+    private static String upper(String type) {
+        return type != null ? type.toUpperCase() : "";
+    }
 }
@@ -2,21 +2,82 @@ package com.example.project.service.notification.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.example.project.dto.notification.BroadcastMessageDTO;
+import com.example.project.entity.Teacher;
+import com.example.project.entity.classmanage.ClassInfo;
+import com.example.project.entity.course.Course;
+import com.example.project.entity.course.CourseComment;
 import com.example.project.entity.notification.Message;
+import com.example.project.mapper.TeacherUserMapper;
+import com.example.project.mapper.classmanage.ClassInfoMapper;
+import com.example.project.mapper.course.CourseCommentMapper;
+import com.example.project.mapper.course.CourseMapper;
 import com.example.project.mapper.notification.MessageMapper;
+import com.example.project.service.impl.AdminSessions;
+import com.example.project.service.impl.TeacherDashboardCounters;
+import com.example.project.service.impl.TeacherDashboardCounters.Counter;
+import com.example.project.service.impl.UserDirectory;
+import com.example.project.service.impl.UserDirectory.Profile;
 import com.example.project.service.notification.MessageService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
 
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 public class MessageServiceImpl implements MessageService {
 
+    private static final String INTERACTION = "INTERACTION";
+
+    private static final String DEFAULT_AVATAR = "/uploads/avatar/default.png";
+
+    private static final int MAX_PAGE_SIZE = 100;
+
+    @Value("${message.broadcast.batch-size:500}")
+    private int broadcastBatchSize;
+
     @Autowired
     private MessageMapper messageMapper;
 
+    @Autowired
+    private CourseCommentMapper courseCommentMapper;
+
+    @Autowired
+    private UserDirectory userDirectory;
+
+    @Autowired
+    private CourseMapper courseMapper;
+
+    @Autowired
+    private ClassInfoMapper classInfoMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private TeacherDashboardCounters teacherDashboardCounters;
+
+    @Autowired
+    private UnreadCounters unreadCounters;
+
+    @Autowired
+    private TeacherUserMapper teacherUserMapper;
+
+    @Autowired
+    private AdminSessions adminSessions;
+
     @Override
     public Message sendMessage(String senderId, String senderType, String receiverId, String receiverType,
             String messageType,
@@ -34,6 +95,7 @@ public class MessageServiceImpl implements MessageService {
         message.setCreateTime(new Date());
 
         messageMapper.insert(message);
+        onUnreadChange(receiverId, receiverType, 1);
         return message;
     }
 
@@ -46,37 +108,199 @@ public class MessageServiceImpl implements MessageService {
             message.setIsRead(0);
         }
         messageMapper.insert(message);
+        if (message.getIsRead() == 0) {
+            onUnreadChange(message.getReceiverId(), message.getReceiverType(), 1);
+        }
     }
 
     @Override
-    public Page<Message> getMessageList(String receiverId, String receiverType, Integer isRead, Integer pageNumber,
-            Integer pageSize) {
-        // 使用关联查询获取所有消息（包含发送者信息）
-        java.util.List<Message> allMessages = messageMapper.selectMessagesWithSenderInfo(receiverId, receiverType);
+    public Map<String, Object> broadcast(BroadcastMessageDTO request, String authorization) {
+        long start = System.currentTimeMillis();
+        String targetType = request.getTargetType() != null ? request.getTargetType().toUpperCase() : null;
+        String targetId = request.getTargetId();
+        if ("ROLE".equals(targetType) && targetId != null) {
+            targetId = targetId.toUpperCase();
+        }
+        checkBroadcastTarget(request.getSenderId(), request.getSenderType(), authorization, targetType, targetId);
+        if (!StringUtils.hasText(request.getTitle()) && !StringUtils.hasText(request.getContent())) {
+            throw new RuntimeException("消息标题和内容不能同时为空");
+        }
+
+        // 一次查询解析全部接收人，再按批次多行插入
+        List<Message> messages = messageMapper.selectBroadcastRecipients(targetType, targetId);
+        Date now = new Date();
+        String senderType = request.getSenderType().toUpperCase();
+        String messageType = StringUtils.hasText(request.getMessageType()) ? request.getMessageType() : "SYSTEM";
+        for (Message message : messages) {
+            message.setSenderId(request.getSenderId());
+            message.setSenderType(senderType);
+            message.setMessageType(messageType);
+            message.setTitle(request.getTitle());
+            message.setContent(request.getContent());
+            message.setRelatedId(request.getRelatedId());
+            message.setIsRead(0);
+            message.setCreateTime(now);
+        }
+
+        // 每批独立事务提交，不加入调用方事务；某批失败时已提交的批次保留，并在结果中报告
+        TransactionTemplate batchTransaction = new TransactionTemplate(transactionManager);
+        batchTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        int delivered = 0;
+        int batches = 0;
+        String error = null;
+        for (int from = 0; from < messages.size(); from += broadcastBatchSize) {
+            List<Message> batch = messages.subList(from, Math.min(from + broadcastBatchSize, messages.size()));
+            try {
+                Integer rows = batchTransaction.execute(status -> {
+                    int inserted = messageMapper.insertBatch(batch);
+                    for (Message message : batch) {
+                        onUnreadChange(message.getReceiverId(), message.getReceiverType(), 1);
+                    }
+                    return inserted;
+                });
+                delivered += rows != null ? rows : 0;
+                batches++;
+            } catch (Exception e) {
+                error = e.getMessage();
+                System.err.println("群发消息失败 target=" + targetType + ":" + targetId + ", 已发送 " + delivered
+                        + " 条: " + e.getMessage());
+                break;
+            }
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("recipients", messages.size());
+        result.put("delivered", delivered);
+        result.put("batches", batches);
+        result.put("elapsedMs", System.currentTimeMillis() - start);
+        if (error != null) {
+            result.put("error", error);
+        }
+        return result;
+    }
+
+    /**
+     * 群发权限：教师只能发给自己课程（或其班级）的学生，按角色群发仅限管理员
+     */
+    private void checkBroadcastTarget(String senderId, String senderType, String authorization,
+            String targetType, String targetId) {
+        if (!StringUtils.hasText(senderId) || !StringUtils.hasText(senderType)) {
+            throw new RuntimeException("发送者不能为空");
+        }
+        if (!StringUtils.hasText(targetId)) {
+            throw new RuntimeException("接收范围不能为空");
+        }
+        boolean admin = "ADMIN".equalsIgnoreCase(senderType);
+        if (!admin && !"TEACHER".equalsIgnoreCase(senderType)) {
+            throw new RuntimeException("仅教师和管理员可以群发消息");
+        }
+        // 发送者身份不能只信任请求体：管理员须持有有效的登录 token，教师须存在
+        if (admin) {
+            if (!AdminSessions.ADMIN_ID.equals(senderId) || !adminSessions.isValid(authorization)) {
+                throw new RuntimeException("管理员登录已失效，请重新登录");
+            }
+        } else {
+            Teacher teacher;
+            try {
+                teacher = teacherUserMapper.selectById(Integer.valueOf(senderId.trim()));
+            } catch (NumberFormatException e) {
+                teacher = null;
+            }
+            if (teacher == null) {
+                throw new RuntimeException("发送者不存在");
+            }
+        }
 
-        // 根据isRead过滤
-        java.util.List<Message> filteredMessages = allMessages;
-        if (isRead != null) {
-            filteredMessages = allMessages.stream()
-                    .filter(m -> m.getIsRead() != null && m.getIsRead().equals(isRead))
-                    .collect(java.util.stream.Collectors.toList());
+        if ("ROLE".equals(targetType)) {
+            if (!admin) {
+                throw new RuntimeException("仅管理员可以按角色群发");
+            }
+            if (!"STUDENT".equals(targetId) && !"TEACHER".equals(targetId) && !"ALL".equals(targetId)) {
+                throw new RuntimeException("不支持的接收角色: " + targetId);
+            }
+            return;
         }
 
-        // 手动分页
-        int total = filteredMessages.size();
-        int start = (pageNumber - 1) * pageSize;
-        int end = Math.min(start + pageSize, total);
+        String courseId;
+        if ("COURSE".equals(targetType)) {
+            courseId = targetId;
+        } else if ("CLASS".equals(targetType)) {
+            ClassInfo classInfo;
+            try {
+                classInfo = classInfoMapper.selectById(Long.valueOf(targetId));
+            } catch (NumberFormatException e) {
+                throw new RuntimeException("班级不存在");
+            }
+            if (classInfo == null) {
+                throw new RuntimeException("班级不存在");
+            }
+            courseId = classInfo.getCourseId();
+        } else {
+            throw new RuntimeException("不支持的接收范围: " + targetType);
+        }
+
+        Course course = courseMapper.selectById(courseId);
+        if (course == null) {
+            throw new RuntimeException("课程不存在");
+        }
+        if (!admin && !senderId.equals(course.getTeacherId())) {
+            throw new RuntimeException("只能向自己课程的学生群发消息");
+        }
+    }
 
-        java.util.List<Message> pageRecords = start < total ? filteredMessages.subList(start, end)
-                : new java.util.ArrayList<>();
+    @Override
+    public Page<Message> getMessageList(String receiverId, String receiverType, Integer isRead, String messageType,
+            Integer pageNumber, Integer pageSize) {
+        int current = pageNumber != null && pageNumber > 0 ? pageNumber : 1;
+        int size = pageSize != null && pageSize > 0 ? Math.min(pageSize, MAX_PAGE_SIZE) : 10;
 
-        // 创建分页对象
-        Page<Message> page = new Page<>(pageNumber, pageSize, total);
-        page.setRecords(pageRecords);
+        long total = messageMapper.countMessages(receiverId, receiverType, isRead, messageType);
+        List<Message> records = total > (long) (current - 1) * size
+                ? messageMapper.selectMessagePage(receiverId, receiverType, isRead, messageType, null, null,
+                        (current - 1) * size, size)
+                : new ArrayList<>();
+        fillSenderInfo(records);
 
+        Page<Message> page = new Page<>(current, size, total);
+        page.setRecords(records);
         return page;
     }
 
+    @Override
+    public Map<String, Object> getMessageFeed(String receiverId, String receiverType, Integer isRead,
+            String messageType, String cursor, Integer limit) {
+        int size = limit != null && limit > 0 ? Math.min(limit, MAX_PAGE_SIZE) : 10;
+        Date cursorTime = null;
+        Long cursorId = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            String[] parts = cursor.split("_", 2);
+            try {
+                cursorTime = new Date(Long.parseLong(parts[0]));
+                cursorId = Long.parseLong(parts[1]);
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                throw new RuntimeException("无效的分页游标");
+            }
+        }
+
+        // 多取一条判断是否还有下一页
+        List<Message> records = messageMapper.selectMessagePage(receiverId, receiverType, isRead, messageType,
+                cursorTime, cursorId, 0, size + 1);
+        boolean hasMore = records.size() > size;
+        if (hasMore) {
+            records = new ArrayList<>(records.subList(0, size));
+        }
+        fillSenderInfo(records);
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("list", records);
+        result.put("hasMore", hasMore);
+        if (hasMore) {
+            Message last = records.get(records.size() - 1);
+            result.put("nextCursor", last.getCreateTime().getTime() + "_" + last.getMessageId());
+        }
+        return result;
+    }
+
     @Override
     public void markAsRead(Long messageId, String receiverId, String receiverType) {
         QueryWrapper<Message> wrapper = new QueryWrapper<>();
@@ -86,14 +310,18 @@ public class MessageServiceImpl implements MessageService {
 
         Message message = messageMapper.selectOne(wrapper);
         if (message != null) {
+            boolean wasUnread = Integer.valueOf(0).equals(message.getIsRead());
             message.setIsRead(1);
             messageMapper.updateById(message);
+            if (wasUnread) {
+                onUnreadChange(receiverId, receiverType, -1);
+            }
         }
     }
 
     @Override
     @Transactional
-    public void markAsReadBatch(java.util.List<Long> messageIds, String receiverId, String receiverType) {
+    public void markAsReadBatch(List<Long> messageIds, String receiverId, String receiverType) {
         if (messageIds == null || messageIds.isEmpty())
             return;
 
@@ -104,8 +332,10 @@ public class MessageServiceImpl implements MessageService {
         wrapper.in("message_id", messageIds);
         wrapper.eq("receiver_id", receiverId);
         wrapper.eq("receiver_type", receiverType);
+        wrapper.eq("is_read", 0);
 
-        messageMapper.update(update, wrapper);
+        int rows = messageMapper.update(update, wrapper);
+        onUnreadChange(receiverId, receiverType, -rows);
     }
 
     @Override
@@ -114,16 +344,96 @@ public class MessageServiceImpl implements MessageService {
         wrapper.eq("message_id", messageId);
         wrapper.eq("receiver_id", receiverId);
         wrapper.eq("receiver_type", receiverType);
-        messageMapper.delete(wrapper);
+        Message message = messageMapper.selectOne(wrapper);
+        if (message == null) {
+            return;
+        }
+        messageMapper.deleteById(messageId);
+        if (Integer.valueOf(0).equals(message.getIsRead())) {
+            onUnreadChange(receiverId, receiverType, -1);
+        }
     }
 
     @Override
     public Integer getUnreadCount(String receiverId, String receiverType) {
-        QueryWrapper<Message> queryWrapper = new QueryWrapper<>();
-        queryWrapper.eq("receiver_id", receiverId);
-        queryWrapper.eq("receiver_type", receiverType);
-        queryWrapper.eq("is_read", 0);
+        return unreadCounters.getMessageUnread(receiverId, receiverType);
+    }
+
+    /**
+     * 补充发送者名称、头像（互动消息取评论作者）和课程ID：评论按本页批量查询，用户名片走缓存
+     */
+    private void fillSenderInfo(List<Message> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        List<Long> commentIds = new ArrayList<>();
+        for (Message message : messages) {
+            if (INTERACTION.equals(message.getMessageType()) && message.getRelatedId() != null) {
+                try {
+                    commentIds.add(Long.valueOf(message.getRelatedId()));
+                } catch (NumberFormatException ignored) {
+                    // related_id 不是评论ID时按普通消息处理
+                }
+            }
+        }
+        Map<String, CourseComment> comments = new HashMap<>();
+        if (!commentIds.isEmpty()) {
+            QueryWrapper<CourseComment> wrapper = new QueryWrapper<>();
+            wrapper.select("comment_id", "course_id", "user_id", "user_type");
+            wrapper.in("comment_id", commentIds);
+            for (CourseComment comment : courseCommentMapper.selectList(wrapper)) {
+                comments.put(String.valueOf(comment.getCommentId()), comment);
+            }
+        }
+
+        // 按用户类型收集需要解析的用户
+        Map<String, Set<String>> userIds = new HashMap<>();
+        for (Message message : messages) {
+            if (message.getSenderId() != null && message.getSenderType() != null) {
+                userIds.computeIfAbsent(message.getSenderType(), k -> new HashSet<>()).add(message.getSenderId());
+            }
+            CourseComment comment = comments.get(message.getRelatedId());
+            if (comment != null && comment.getUserId() != null && comment.getUserType() != null) {
+                userIds.computeIfAbsent(comment.getUserType(), k -> new HashSet<>()).add(comment.getUserId());
+            }
+        }
+        Map<String, Map<String, Profile>> profiles = new HashMap<>();
+        for (Map.Entry<String, Set<String>> entry : userIds.entrySet()) {
+            profiles.put(entry.getKey(), userDirectory.resolve(entry.getKey(), entry.getValue()));
+        }
+
+        for (Message message : messages) {
+            CourseComment comment = INTERACTION.equals(message.getMessageType())
+                    ? comments.get(message.getRelatedId()) : null;
+            Profile sender = profileOf(profiles, message.getSenderType(), message.getSenderId());
+            Profile author = comment != null ? profileOf(profiles, comment.getUserType(), comment.getUserId()) : null;
+
+            // 与原关联查询一致：发送者优先，其次评论作者
+            String name = sender != null && sender.getName() != null ? sender.getName()
+                    : author != null ? author.getName() : null;
+            String avatar = sender != null && sender.getAvatar() != null ? sender.getAvatar()
+                    : author != null ? author.getAvatar() : null;
+            message.setSenderName(name != null ? name : "系统");
+            message.setSenderAvatar(avatar != null ? avatar : DEFAULT_AVATAR);
+            message.setCourseId(comment != null ? comment.getCourseId() : null);
+        }
+    }
 
-        return Math.toIntExact(messageMapper.selectCount(queryWrapper));
+    private static Profile profileOf(Map<String, Map<String, Profile>> profiles, String userType, String userId) {
+        if (userType == null || userId == null) {
+            return null;
+        }
+        Map<String, Profile> byId = profiles.get(userType);
+        return byId != null ? byId.get(userId) : null;
+    }
+
+    /**
+     * 收到或读完消息时更新未读计数（教师同时更新主页计数）
+     */
+    private void onUnreadChange(String receiverId, String receiverType, int delta) {
+        unreadCounters.adjustMessage(receiverId, receiverType, delta);
+        if ("TEACHER".equals(receiverType)) {
+            teacherDashboardCounters.adjust(receiverId, Counter.UNREAD_MESSAGES, delta);
+        }
     }
 }
@@ -0,0 +1,392 @@
+package com.example.project.service.notification.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.example.project.entity.notification.NotificationReadState;
+import com.example.project.entity.notification.SystemNotification;
+import com.example.project.mapper.notification.NotificationReadStateMapper;
+import com.example.project.mapper.notification.SystemNotificationMapper;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 系统通知阅读状态
+ * 每个用户只保存一个水位线（ID 不大于水位线的通知均已读）和水位线之上零散已读的少量通知ID，
+ * 与通知数量、用户数量的乘积无关。阅读状态缓存在内存中，修改后标记为脏数据，由定时任务批量写回。
+ * 各角色当前可见的通知ID（未过期）缓存为有序数组，未读数 = 水位线之上的可见通知数 - 其中已读的个数
+ */
+@Component
+public class NotificationReadStateStore {
+
+    /**
+     * 水位线之上最多保留的已读ID数，超出时丢弃最小的（这些通知重新显示为未读）
+     */
+    private static final int MAX_READ_IDS = 150;
+
+    private static final int FLUSH_BATCH_SIZE = 500;
+
+    @Autowired
+    private NotificationReadStateMapper readStateMapper;
+
+    @Autowired
+    private SystemNotificationMapper systemNotificationMapper;
+
+    @Value("${notification.read-state.cache-size:10000}")
+    private int maxSize;
+
+    private final Map<String, ReadState> cache = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ReadState> eldest) {
+            return size() > maxSize;
+        }
+    };
+
+    /**
+     * 尚未写回的阅读状态，写回前不会因 LRU 淘汰而丢失
+     */
+    private final Map<String, ReadState> dirty = new ConcurrentHashMap<>();
+
+    private volatile ActiveNotifications active;
+
+    /**
+     * 通知变更代数，构建可见通知期间发生变更则不缓存
+     */
+    private final AtomicLong activeVersion = new AtomicLong();
+
+    /**
+     * 未读系统通知数
+     */
+    public int getUnreadCount(String userId, String userRole) {
+        long[] visible = activeNotifications().idsOf(userRole);
+        return stateOf(userId, userRole).unreadCount(visible);
+    }
+
+    /**
+     * 返回给定通知中该用户已读的ID
+     */
+    public Set<Long> filterRead(String userId, String userRole, Collection<Long> notificationIds) {
+        ReadState state = stateOf(userId, userRole);
+        Set<Long> read = new HashSet<>();
+        for (Long id : notificationIds) {
+            if (id != null && state.isRead(id)) {
+                read.add(id);
+            }
+        }
+        return read;
+    }
+
+    /**
+     * 标记单条通知已读
+     */
+    public void markRead(String userId, String userRole, Long notificationId) {
+        if (notificationId == null) {
+            return;
+        }
+        long[] visible = activeNotifications().idsOf(userRole);
+        String key = keyOf(userId, userRole);
+        ReadState state = stateOf(userId, userRole);
+        synchronized (state) {
+            if (state.markRead(notificationId, visible)) {
+                markDirty(key, state);
+            }
+        }
+    }
+
+    /**
+     * 全部标记已读：水位线移到当前可见的最大通知ID
+     */
+    public void markAllRead(String userId, String userRole) {
+        long[] visible = activeNotifications().idsOf(userRole);
+        if (visible.length == 0) {
+            return;
+        }
+        String key = keyOf(userId, userRole);
+        ReadState state = stateOf(userId, userRole);
+        synchronized (state) {
+            if (state.raiseHighWater(visible[visible.length - 1])) {
+                markDirty(key, state);
+            }
+        }
+    }
+
+    /**
+     * 通知发布、修改、撤回、删除后调用
+     */
+    public void invalidateActive() {
+        activeVersion.incrementAndGet();
+        active = null;
+    }
+
+    /**
+     * 定时批量写回修改过的阅读状态
+     */
+    @Scheduled(fixedDelayString = "${notification.read-state.flush-interval-ms:5000}")
+    public void flush() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+        List<String> keys = new ArrayList<>(dirty.keySet());
+        for (int from = 0; from < keys.size(); from += FLUSH_BATCH_SIZE) {
+            List<String> chunk = keys.subList(from, Math.min(from + FLUSH_BATCH_SIZE, keys.size()));
+            List<NotificationReadState> rows = new ArrayList<>();
+            List<ReadState> states = new ArrayList<>();
+            List<Long> versions = new ArrayList<>();
+            Date now = new Date();
+            for (String key : chunk) {
+                ReadState state = dirty.get(key);
+                if (state == null) {
+                    continue;
+                }
+                synchronized (state) {
+                    rows.add(state.toEntity(now));
+                    states.add(state);
+                    versions.add(state.version);
+                }
+            }
+            if (rows.isEmpty()) {
+                continue;
+            }
+            try {
+                readStateMapper.upsertBatch(rows);
+            } catch (Exception e) {
+                System.err.println("通知阅读状态写回失败（下次重试）: " + e.getMessage());
+                return;
+            }
+            // 写回期间又被修改的保留脏标记
+            for (int i = 0; i < states.size(); i++) {
+                ReadState state = states.get(i);
+                synchronized (state) {
+                    if (state.version == versions.get(i)) {
+                        dirty.remove(state.key, state);
+                    }
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private void markDirty(String key, ReadState state) {
+        state.version++;
+        dirty.put(key, state);
+    }
+
+    private ReadState stateOf(String userId, String userRole) {
+        String key = keyOf(userId, userRole);
+        ReadState state = dirty.get(key);
+        if (state == null) {
+            synchronized (cache) {
+                state = cache.get(key);
+            }
+        }
+        if (state != null) {
+            return state;
+        }
+
+        QueryWrapper<NotificationReadState> wrapper = new QueryWrapper<>();
+        wrapper.eq("user_role", userRole.toUpperCase());
+        wrapper.eq("user_id", userId);
+        ReadState loaded = new ReadState(key, userId, userRole.toUpperCase(), readStateMapper.selectOne(wrapper));
+        synchronized (cache) {
+            ReadState existing = dirty.get(key);
+            if (existing == null) {
+                existing = cache.get(key);
+            }
+            if (existing != null) {
+                return existing;
+            }
+            cache.put(key, loaded);
+            return loaded;
+        }
+    }
+
+    private ActiveNotifications activeNotifications() {
+        ActiveNotifications current = active;
+        if (current != null && current.validUntil > System.currentTimeMillis()) {
+            return current;
+        }
+
+        long version = activeVersion.get();
+        Date now = new Date();
+        QueryWrapper<SystemNotification> wrapper = new QueryWrapper<>();
+        wrapper.select("notification_id", "target_type", "expire_time");
+        wrapper.and(w -> w.isNull("expire_time").or().gt("expire_time", now));
+        List<SystemNotification> notifications = systemNotificationMapper.selectList(wrapper);
+
+        ActiveNotifications built = new ActiveNotifications(notifications, now.getTime());
+        if (activeVersion.get() == version) {
+            active = built;
+        }
+        return built;
+    }
+
+    private static String keyOf(String userId, String userRole) {
+        return (userRole != null ? userRole.toUpperCase() : "") + ":" + userId;
+    }
+
+    /**
+     * 各角色可见的未过期通知ID（升序），在最早的过期时间到达前有效
+     */
+    private static final class ActiveNotifications {
+        private final long[] studentIds;
+        private final long[] teacherIds;
+        private final long validUntil;
+
+        private ActiveNotifications(List<SystemNotification> notifications, long now) {
+            List<Long> students = new ArrayList<>();
+            List<Long> teachers = new ArrayList<>();
+            long earliestExpire = Long.MAX_VALUE;
+            for (SystemNotification notification : notifications) {
+                String target = notification.getTargetType() != null ? notification.getTargetType().toUpperCase() : "";
+                if ("ALL".equals(target) || "STUDENT".equals(target)) {
+                    students.add(notification.getNotificationId());
+                }
+                if ("ALL".equals(target) || "TEACHER".equals(target)) {
+                    teachers.add(notification.getNotificationId());
+                }
+                if (notification.getExpireTime() != null) {
+                    earliestExpire = Math.min(earliestExpire, notification.getExpireTime().getTime());
+                }
+            }
+            this.studentIds = toSortedArray(students);
+            this.teacherIds = toSortedArray(teachers);
+            this.validUntil = Math.max(earliestExpire, now + 1);
+        }
+
+        private long[] idsOf(String userRole) {
+            return "TEACHER".equalsIgnoreCase(userRole) ? teacherIds : studentIds;
+        }
+
+        private static long[] toSortedArray(List<Long> ids) {
+            long[] array = new long[ids.size()];
+            for (int i = 0; i < array.length; i++) {
+                array[i] = ids.get(i);
+            }
+            Arrays.sort(array);
+            return array;
+        }
+    }
+
+    /**
+     * 单个用户的阅读状态：水位线 + 水位线之上的已读ID
+     */
+    private static final class ReadState {
+        private final String key;
+        private final String userId;
+        private final String userRole;
+        private long highWater;
+        private final TreeSet<Long> readIds = new TreeSet<>();
+        private long version;
+
+        private ReadState(String key, String userId, String userRole, NotificationReadState row) {
+            this.key = key;
+            this.userId = userId;
+            this.userRole = userRole;
+            if (row != null) {
+                this.highWater = row.getHighWater() != null ? row.getHighWater() : 0;
+                if (row.getReadIds() != null && !row.getReadIds().isEmpty()) {
+                    for (String id : row.getReadIds().split(",")) {
+                        try {
+                            long value = Long.parseLong(id.trim());
+                            if (value > highWater) {
+                                readIds.add(value);
+                            }
+                        } catch (NumberFormatException ignored) {
+                            // 忽略无法解析的ID
+                        }
+                    }
+                }
+            }
+        }
+
+        private synchronized boolean isRead(long notificationId) {
+            return notificationId <= highWater || readIds.contains(notificationId);
+        }
+
+        private synchronized int unreadCount(long[] visible) {
+            // 可见通知中大于水位线的个数（二分查找）
+            int index = Arrays.binarySearch(visible, highWater);
+            int firstAbove = index >= 0 ? index + 1 : -index - 1;
+            int unread = visible.length - firstAbove;
+            for (Long id : readIds) {
+                if (Arrays.binarySearch(visible, id) >= 0) {
+                    unread--;
+                }
+            }
+            return Math.max(0, unread);
+        }
+
+        private synchronized boolean markRead(long notificationId, long[] visible) {
+            if (notificationId <= highWater || !readIds.add(notificationId)) {
+                return false;
+            }
+            compact(visible);
+            return true;
+        }
+
+        private synchronized boolean raiseHighWater(long id) {
+            if (id <= highWater) {
+                return false;
+            }
+            highWater = id;
+            readIds.headSet(highWater, true).clear();
+            return true;
+        }
+
+        /**
+         * 水位线之后连续的可见通知都已读时推进水位线；不可见（已过期、其他角色）的ID不再保留
+         */
+        private void compact(long[] visible) {
+            int index = Arrays.binarySearch(visible, highWater);
+            for (int i = index >= 0 ? index + 1 : -index - 1; i < visible.length; i++) {
+                if (!readIds.contains(visible[i])) {
+                    break;
+                }
+                highWater = visible[i];
+            }
+            readIds.headSet(highWater, true).clear();
+            readIds.removeIf(id -> Arrays.binarySearch(visible, id) < 0);
+            Iterator<Long> iterator = readIds.iterator();
+            while (readIds.size() > MAX_READ_IDS && iterator.hasNext()) {
+                iterator.next();
+                iterator.remove();
+            }
+        }
+
+        private NotificationReadState toEntity(Date now) {
+            NotificationReadState entity = new NotificationReadState();
+            entity.setUserId(userId);
+            entity.setUserRole(userRole);
+            entity.setHighWater(highWater);
+            StringBuilder ids = new StringBuilder();
+            for (Long id : readIds) {
+                if (ids.length() > 0) {
+                    ids.append(',');
+                }
+                ids.append(id);
+            }
+            entity.setReadIds(ids.toString());
+            entity.setUpdateTime(now);
+            return entity;
+        }
+    }
+}
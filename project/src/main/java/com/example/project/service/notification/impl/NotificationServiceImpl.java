@@ -9,7 +9,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
+import java.util.Set;
 
 @Service
 public class NotificationServiceImpl implements NotificationService {
@@ -17,6 +20,9 @@ public class NotificationServiceImpl implements NotificationService {
     @Autowired
     private SystemNotificationMapper systemNotificationMapper;
 
+    @Autowired
+    private NotificationReadStateStore readStateStore;
+
     @Override
     public Page<SystemNotification> getNotificationList(Integer pageNumber, Integer pageSize, String keyword,
             String type) {
@@ -64,17 +70,20 @@ public class NotificationServiceImpl implements NotificationService {
         notification.setCreateTime(new Date());
 
         systemNotificationMapper.insert(notification);
+        readStateStore.invalidateActive();
         return notification;
     }
 
     @Override
     public void updateNotification(SystemNotification notification) {
         systemNotificationMapper.updateById(notification);
+        readStateStore.invalidateActive();
     }
 
     @Override
     public void deleteNotification(Long id) {
         systemNotificationMapper.deleteById(id);
+        readStateStore.invalidateActive();
     }
 
     @Override
@@ -84,5 +93,36 @@ public class NotificationServiceImpl implements NotificationService {
         notification.setNotificationId(id);
         notification.setExpireTime(new Date());
         systemNotificationMapper.updateById(notification);
+        readStateStore.invalidateActive();
+    }
+
+    @Override
+    public Page<SystemNotification> getUserNotificationList(String userId, String userType, Integer pageNumber,
+            Integer pageSize) {
+        Page<SystemNotification> page = getNotificationList(pageNumber, pageSize, null, userType);
+        List<Long> ids = new ArrayList<>();
+        for (SystemNotification notification : page.getRecords()) {
+            ids.add(notification.getNotificationId());
+        }
+        Set<Long> read = readStateStore.filterRead(userId, userType, ids);
+        for (SystemNotification notification : page.getRecords()) {
+            notification.setIsRead(read.contains(notification.getNotificationId()) ? 1 : 0);
+        }
+        return page;
+    }
+
+    @Override
+    public Integer getUnreadCount(String userId, String userType) {
+        return readStateStore.getUnreadCount(userId, userType);
+    }
+
+    @Override
+    public void markAsRead(String userId, String userType, Long notificationId) {
+        readStateStore.markRead(userId, userType, notificationId);
+    }
+
+    @Override
+    public void markAllAsRead(String userId, String userType) {
+        readStateStore.markAllRead(userId, userType);
     }
 }
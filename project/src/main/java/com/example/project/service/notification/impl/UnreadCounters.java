@@ -0,0 +1,247 @@
+package com.example.project.service.notification.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.example.project.entity.notification.ChatMessage;
+import com.example.project.entity.notification.Message;
+import com.example.project.mapper.notification.ChatMessageMapper;
+import com.example.project.mapper.notification.MessageMapper;
+import com.example.project.util.TransactionUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 未读数计数器
+ * 按 (来源, 用户类型, 用户ID) 缓存私信和站内消息的未读数，私信再按发送方是否为管理员分桶，
+ * 发送时加一、标记已读时减去实际更新的行数（均在事务提交后），读取角标只做内存求和。
+ * 首次读取时从数据库统计，统计期间该用户的未读数有变化则本次结果不缓存；
+ * 缓存按哈希分段加锁，每段 LRU 淘汰并设置过期时间，内存占用有上限、偏差定期自愈
+ */
+@Component
+public class UnreadCounters {
+
+    /**
+     * 私信发送方分桶
+     */
+    public enum ChatBucket {
+        ADMIN, OTHER;
+
+        public static ChatBucket of(String senderType) {
+            return "ADMIN".equalsIgnoreCase(senderType) ? ADMIN : OTHER;
+        }
+    }
+
+    private static final String CHAT = "CHAT";
+
+    private static final String MESSAGE = "MESSAGE";
+
+    private static final int STRIPES = 16;
+
+    @Autowired
+    private ChatMessageMapper chatMessageMapper;
+
+    @Autowired
+    private MessageMapper messageMapper;
+
+    @Value("${unread.cache-size:20000}")
+    private int maxSize;
+
+    @Value("${unread.cache-ttl-ms:600000}")
+    private long ttlMs;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    public UnreadCounters() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * 私信未读数，includeAdmin 为 false 时不统计管理员发来的消息
+     */
+    public int getChatUnread(String userId, String userType, boolean includeAdmin) {
+        long[] counts = get(keyOf(CHAT, userId, userType), () -> loadChat(userId, userType));
+        long count = counts[ChatBucket.OTHER.ordinal()];
+        if (includeAdmin) {
+            count += counts[ChatBucket.ADMIN.ordinal()];
+        }
+        return (int) Math.max(0, count);
+    }
+
+    /**
+     * 站内消息未读数
+     */
+    public int getMessageUnread(String receiverId, String receiverType) {
+        long[] counts = get(keyOf(MESSAGE, receiverId, receiverType), () -> loadMessage(receiverId, receiverType));
+        return (int) Math.max(0, counts[0]);
+    }
+
+    /**
+     * 私信未读数变化（事务提交后生效）
+     */
+    public void adjustChat(String userId, String userType, String senderType, int delta) {
+        if (userId == null || delta == 0) {
+            return;
+        }
+        int bucket = ChatBucket.of(senderType).ordinal();
+        TransactionUtil.afterCommit(() -> apply(keyOf(CHAT, userId, userType), bucket, delta));
+    }
+
+    /**
+     * 站内消息未读数变化（事务提交后生效）
+     */
+    public void adjustMessage(String receiverId, String receiverType, int delta) {
+        if (receiverId == null || delta == 0) {
+            return;
+        }
+        TransactionUtil.afterCommit(() -> apply(keyOf(MESSAGE, receiverId, receiverType), 0, delta));
+    }
+
+    /**
+     * 无法确定接收人的批量删除（如随评论删除的通知）：丢弃全部站内消息计数，下次读取时重新统计
+     */
+    public void invalidateMessages() {
+        TransactionUtil.afterCommit(() -> {
+            for (Stripe stripe : stripes) {
+                synchronized (stripe) {
+                    stripe.counters.keySet().removeIf(key -> key.startsWith(MESSAGE + ":"));
+                    for (Map.Entry<String, List<Load>> entry : stripe.loads.entrySet()) {
+                        if (entry.getKey().startsWith(MESSAGE + ":")) {
+                            entry.getValue().forEach(load -> load.changed = true);
+                        }
+                    }
+                }
+            }
+        });
+    }
+
+    private void apply(String key, int bucket, int delta) {
+        Stripe stripe = stripeOf(key);
+        synchronized (stripe) {
+            Counter counter = stripe.counters.get(key);
+            if (counter != null) {
+                counter.counts[bucket] += delta;
+            }
+            List<Load> loads = stripe.loads.get(key);
+            if (loads != null) {
+                loads.forEach(load -> load.changed = true);
+            }
+        }
+    }
+
+    private long[] get(String key, Supplier<Counter> loader) {
+        Stripe stripe = stripeOf(key);
+        Load load = new Load();
+        synchronized (stripe) {
+            Counter cached = stripe.counters.get(key);
+            if (cached != null && cached.expiresAt > System.currentTimeMillis()) {
+                return cached.counts.clone();
+            }
+            stripe.loads.computeIfAbsent(key, k -> new ArrayList<>()).add(load);
+        }
+
+        Counter loaded;
+        try {
+            loaded = loader.get();
+        } finally {
+            synchronized (stripe) {
+                List<Load> loads = stripe.loads.get(key);
+                if (loads != null) {
+                    loads.remove(load);
+                    if (loads.isEmpty()) {
+                        stripe.loads.remove(key);
+                    }
+                }
+            }
+        }
+        synchronized (stripe) {
+            // 统计期间该用户的未读数有变化则不缓存，下次读取重新统计
+            if (!load.changed) {
+                stripe.counters.put(key, loaded);
+            }
+            return loaded.counts.clone();
+        }
+    }
+
+    private Counter loadChat(String userId, String userType) {
+        QueryWrapper<ChatMessage> wrapper = new QueryWrapper<>();
+        wrapper.select("sender_role AS senderRole", "COUNT(*) AS cnt");
+        wrapper.eq("receiver_id", userId);
+        wrapper.eq("receiver_role", userType);
+        wrapper.eq("is_read", 0);
+        wrapper.groupBy("sender_role");
+
+        Counter counter = new Counter(ChatBucket.values().length, System.currentTimeMillis() + ttlMs);
+        List<Map<String, Object>> rows = chatMessageMapper.selectMaps(wrapper);
+        for (Map<String, Object> row : rows) {
+            Object cnt = row.get("cnt");
+            if (cnt instanceof Number) {
+                Object senderRole = row.get("senderRole");
+                ChatBucket bucket = ChatBucket.of(senderRole != null ? String.valueOf(senderRole) : null);
+                counter.counts[bucket.ordinal()] += ((Number) cnt).longValue();
+            }
+        }
+        return counter;
+    }
+
+    private Counter loadMessage(String receiverId, String receiverType) {
+        QueryWrapper<Message> wrapper = new QueryWrapper<>();
+        wrapper.eq("receiver_id", receiverId);
+        wrapper.eq("receiver_type", receiverType);
+        wrapper.eq("is_read", 0);
+
+        Counter counter = new Counter(1, System.currentTimeMillis() + ttlMs);
+        counter.counts[0] = messageMapper.selectCount(wrapper);
+        return counter;
+    }
+
+    private Stripe stripeOf(String key) {
+        return stripes[(key.hashCode() & 0x7fffffff) % STRIPES];
+    }
+
+    private static String keyOf(String source, String userId, String userType) {
+        return source + ":" + (userType != null ? userType.toUpperCase() : "") + ":" + userId;
+    }
+
+    /**
+     * 一个分段：独立加锁的 LRU 缓存，以及正在统计中的键
+     */
+    private final class Stripe {
+        private final Map<String, Counter> counters = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Counter> eldest) {
+                return size() > Math.max(1, maxSize / STRIPES);
+            }
+        };
+
+        private final Map<String, List<Load>> loads = new HashMap<>();
+    }
+
+    /**
+     * 一次进行中的统计；统计期间该键的计数有变化时标记 changed
+     */
+    private static final class Load {
+        private boolean changed;
+    }
+
+    /**
+     * 一位用户某个来源的未读数，每个分桶一个计数（只在分段锁内读写）
+     */
+    private static final class Counter {
+        private final long[] counts;
+        private final long expiresAt;
+
+        private Counter(int buckets, long expiresAt) {
+            this.counts = new long[buckets];
+            this.expiresAt = expiresAt;
+        }
+    }
+}
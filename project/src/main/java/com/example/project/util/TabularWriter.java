@@ -0,0 +1,171 @@
+package com.example.project.util;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * 表格流式写出（XLSX / CSV）
+ * 逐行写出，不在内存中保留已写的行：XLSX 使用 SXSSF 滑动窗口（超出窗口的行刷到临时文件），CSV 直接写入输出流
+ */
+public abstract class TabularWriter implements Closeable {
+
+    public static final String FORMAT_XLSX = "xlsx";
+    public static final String FORMAT_CSV = "csv";
+
+    private static final String DATE_PATTERN = "yyyy-MM-dd HH:mm:ss";
+
+    /**
+     * 按格式创建写出器，未知格式时使用 XLSX
+     */
+    public static TabularWriter create(String format, OutputStream out) {
+        if (FORMAT_CSV.equalsIgnoreCase(format)) {
+            return new Csv(out);
+        }
+        return new Xlsx(out);
+    }
+
+    public static String contentType(String format) {
+        return FORMAT_CSV.equalsIgnoreCase(format) ? "text/csv;charset=UTF-8"
+                : "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+    }
+
+    public static String extension(String format) {
+        return FORMAT_CSV.equalsIgnoreCase(format) ? FORMAT_CSV : FORMAT_XLSX;
+    }
+
+    /**
+     * 是否支持多个工作表（CSV 只能写一个表）
+     */
+    public abstract boolean supportsSheets();
+
+    /**
+     * 开始新的工作表并写入表头
+     */
+    public abstract void startSheet(String name, String... headers) throws IOException;
+
+    public abstract void writeRow(Object... values) throws IOException;
+
+    protected static String format(Object value) {
+        if (value == null) {
+            return "";
+        }
+        if (value instanceof Date) {
+            return new SimpleDateFormat(DATE_PATTERN).format((Date) value);
+        }
+        return String.valueOf(value);
+    }
+
+    private static final class Xlsx extends TabularWriter {
+        private static final int WINDOW_SIZE = 100;
+        private static final int MAX_CELL_LENGTH = 32767;
+
+        private final OutputStream out;
+        private final SXSSFWorkbook workbook = new SXSSFWorkbook(WINDOW_SIZE);
+        private SXSSFSheet sheet;
+        private int rowIndex;
+
+        private Xlsx(OutputStream out) {
+            this.out = out;
+            this.workbook.setCompressTempFiles(true);
+        }
+
+        @Override
+        public boolean supportsSheets() {
+            return true;
+        }
+
+        @Override
+        public void startSheet(String name, String... headers) {
+            sheet = workbook.createSheet(name);
+            rowIndex = 0;
+            writeRow((Object[]) headers);
+        }
+
+        @Override
+        public void writeRow(Object... values) {
+            Row row = sheet.createRow(rowIndex++);
+            for (int i = 0; i < values.length; i++) {
+                Object value = values[i];
+                if (value == null) {
+                    continue;
+                }
+                Cell cell = row.createCell(i);
+                if (value instanceof Number) {
+                    cell.setCellValue(((Number) value).doubleValue());
+                } else {
+                    String text = format(value);
+                    cell.setCellValue(text.length() > MAX_CELL_LENGTH ? text.substring(0, MAX_CELL_LENGTH) : text);
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                workbook.write(out);
+                out.flush();
+            } finally {
+                workbook.dispose();
+                workbook.close();
+            }
+        }
+    }
+
+    private static final class Csv extends TabularWriter {
+        private final BufferedWriter writer;
+        private boolean started;
+
+        private Csv(OutputStream out) {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public boolean supportsSheets() {
+            return false;
+        }
+
+        @Override
+        public void startSheet(String name, String... headers) throws IOException {
+            if (started) {
+                throw new IllegalStateException("CSV 只支持一个表");
+            }
+            started = true;
+            writer.write('\uFEFF'); // BOM，Excel 打开中文不乱码
+            writeRow((Object[]) headers);
+        }
+
+        @Override
+        public void writeRow(Object... values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(escape(format(values[i])));
+            }
+            writer.write("\r\n");
+        }
+
+        private String escape(String text) {
+            if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+                return text;
+            }
+            return "\"" + text.replace("\"", "\"\"") + "\"";
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.flush();
+        }
+    }
+}
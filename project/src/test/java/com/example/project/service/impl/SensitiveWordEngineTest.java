@@ -0,0 +1,180 @@
+package com.example.project.service.impl;
+
+import com.example.project.entity.SensitiveWord;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SensitiveWordEngineTest {
+
+    @Test
+    void emptyDictionaryMatchesNothing() {
+        SensitiveWordEngine engine = SensitiveWordEngine.build(Collections.emptyList());
+
+        assertEquals(0, engine.size());
+        assertFalse(engine.containsAny("任意文本"));
+        assertTrue(engine.findAll("任意文本").isEmpty());
+        assertEquals("任意文本", engine.replace("任意文本", engine.findAll("任意文本")));
+    }
+
+    @Test
+    void reportsWordsEndingInsideLongerWordsThroughDictLinks() {
+        SensitiveWordEngine engine = SensitiveWordEngine.build(Arrays.asList(
+                word("he", 1, "REPLACE", null),
+                word("she", 1, "REPLACE", null),
+                word("hers", 1, "REPLACE", null),
+                word("e", 1, "REPLACE", null)));
+
+        List<String> found = new ArrayList<>();
+        for (SensitiveWordEngine.Match match : engine.findAll("ushers")) {
+            found.add(match.getWord().getWord() + "@" + match.getStart() + "-" + match.getEnd());
+        }
+
+        assertEquals(Arrays.asList("she@1-4", "he@2-4", "e@3-4", "hers@2-6"), found);
+        assertTrue(engine.containsAny("xxhexx"));
+        assertFalse(engine.containsAny("xxhxx"));
+    }
+
+    @Test
+    void usesPerWordReplacementAndDefaultMask() {
+        SensitiveWordEngine engine = SensitiveWordEngine.build(Arrays.asList(
+                word("笨蛋", 1, "REPLACE", "**"),
+                word("坏人", 1, "REPLACE", null)));
+
+        String text = "你是笨蛋还是坏人";
+        assertEquals("你是**还是***", engine.replace(text, engine.findAll(text)));
+    }
+
+    @Test
+    void overlappingMatchesAreMaskedAsOneRangeWithTheHighestLevelReplacement() {
+        SensitiveWordEngine engine = SensitiveWordEngine.build(Arrays.asList(
+                word("ab", 1, "REPLACE", "[L1]"),
+                word("bcd", 3, "REPLACE", "[L3]")));
+
+        String text = "xabcdy";
+        assertEquals("x[L3]y", engine.replace(text, engine.findAll(text)));
+    }
+
+    @Test
+    void sameLevelOverlapPrefersTheLongerWord() {
+        SensitiveWordEngine engine = SensitiveWordEngine.build(Arrays.asList(
+                word("abc", 2, "REPLACE", "[short]"),
+                word("abcde", 2, "REPLACE", "[long]")));
+
+        String text = "abcdef";
+        assertEquals("[long]f", engine.replace(text, engine.findAll(text)));
+    }
+
+    @Test
+    void adjacentMatchesKeepTheirOwnReplacements() {
+        SensitiveWordEngine engine = SensitiveWordEngine.build(Arrays.asList(
+                word("ab", 1, "REPLACE", "1"),
+                word("cd", 1, "REPLACE", "2")));
+
+        String text = "abcd";
+        assertEquals("12", engine.replace(text, engine.findAll(text)));
+    }
+
+    @Test
+    void duplicateWordsKeepTheHighestLevel() {
+        SensitiveWordEngine engine = SensitiveWordEngine.build(Arrays.asList(
+                word("spam", 1, "REPLACE", null),
+                word("spam", 3, "BLOCK", null)));
+
+        List<SensitiveWordEngine.Match> matches = engine.findAll("no spam");
+        assertEquals(1, engine.size());
+        assertEquals(1, matches.size());
+        assertEquals("BLOCK", matches.get(0).getWord().getAction());
+    }
+
+    @Test
+    void groupsMatchedWordsByAction() {
+        SensitiveWordEngine engine = SensitiveWordEngine.build(Arrays.asList(
+                word("aa", 1, "REPLACE", null),
+                word("bb", 2, "review", null),
+                word("cc", 3, "BLOCK", null)));
+
+        Map<String, List<String>> grouped = SensitiveWordEngine.groupByAction(engine.findAll("aa bb cc aa"));
+        assertEquals(Collections.singletonList("aa"), grouped.get("REPLACE"));
+        assertEquals(Collections.singletonList("bb"), grouped.get("REVIEW"));
+        assertEquals(Collections.singletonList("cc"), grouped.get("BLOCK"));
+    }
+
+    /**
+     * 与原实现（逐词 contains）对比：1 万个词下结果一致，并输出耗时供参考
+     */
+    @Test
+    void agreesWithNaiveScanAt10kWords() {
+        Random random = new Random(42);
+        List<SensitiveWord> words = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            words.add(word(randomWord(random, 4 + random.nextInt(4)), 1, "REPLACE", null));
+        }
+        List<String> texts = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            StringBuilder text = new StringBuilder(randomWord(random, 200));
+            if (i % 2 == 0) {
+                text.insert(random.nextInt(text.length()), words.get(random.nextInt(words.size())).getWord());
+            }
+            texts.add(text.toString());
+        }
+
+        long buildStart = System.nanoTime();
+        SensitiveWordEngine engine = SensitiveWordEngine.build(words);
+        long buildNanos = System.nanoTime() - buildStart;
+
+        long naiveStart = System.nanoTime();
+        List<Boolean> naive = new ArrayList<>();
+        for (String text : texts) {
+            naive.add(naiveContains(words, text));
+        }
+        long naiveNanos = System.nanoTime() - naiveStart;
+
+        long engineStart = System.nanoTime();
+        List<Boolean> scanned = new ArrayList<>();
+        for (String text : texts) {
+            scanned.add(engine.containsAny(text));
+        }
+        long engineNanos = System.nanoTime() - engineStart;
+
+        assertEquals(naive, scanned);
+        System.out.println("敏感词对比(10000 词, " + texts.size() + " 条文本): 构建 " + buildNanos / 1_000_000
+                + "ms, 逐词扫描 " + naiveNanos / 1_000_000 + "ms, 自动机扫描 " + engineNanos / 1_000_000 + "ms");
+    }
+
+    private static boolean naiveContains(List<SensitiveWord> words, String text) {
+        for (SensitiveWord sw : words) {
+            if (text.contains(sw.getWord())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String randomWord(Random random, int length) {
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            builder.append((char) ('a' + random.nextInt(26)));
+        }
+        return builder.toString();
+    }
+
+    private static SensitiveWord word(String text, int level, String action, String replacement) {
+        SensitiveWord word = new SensitiveWord();
+        word.setWord(text);
+        word.setLevel(level);
+        word.setAction(action);
+        word.setReplacement(replacement);
+        word.setStatus(1);
+        return word;
+    }
+}